@@ -0,0 +1,198 @@
+package edu.uoc.pac2;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Error reporter that never blocks the reporting thread.
+ * Failures are counted per rule and pushed into a bounded lock-free ring buffer; a background thread drains the
+ * buffer and forwards the failures to a delegate reporter, at most {@code maxPerSecond} times per rule and
+ * second. Failures that do not fit in the buffer are dropped and failures over the rate are suppressed, but
+ * both are still counted.
+ */
+public final class AsyncErrorReporter implements ErrorReporter, AutoCloseable {
+    private static final ValidationRule[] RULES = ValidationRule.values();
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int WITHDRAWN = -1;
+
+    private final ErrorReporter delegate;
+    private final int maxPerSecond;
+    private final int capacity;
+    private final int mask;
+    // Each slot holds the ordinal of the rule plus one, 0 while it is free or not yet published, or WITHDRAWN
+    private final AtomicIntegerArray slots;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private volatile boolean closed;
+
+    private final LongAdder[] counts = new LongAdder[RULES.length];
+    private final AtomicLongArray suppressed = new AtomicLongArray(RULES.length);
+    private final LongAdder dropped = new LongAdder();
+    private final long[] windowStart = new long[RULES.length];
+    private final int[] windowCount = new int[RULES.length];
+    private final Thread drainer;
+
+    /**
+     * Creates the reporter and starts its background thread.
+     *
+     * @param delegate the reporter receiving the failures from the background thread
+     * @param capacity the minimum number of failures the buffer can hold, rounded up to a power of two
+     * @param maxPerSecond the maximum number of failures of the same rule forwarded per second
+     */
+    public AsyncErrorReporter(ErrorReporter delegate, int capacity, int maxPerSecond) {
+        if (delegate == null || capacity <= 0 || capacity > (1 << 30) || maxPerSecond <= 0) {
+            throw new IllegalArgumentException("[ERROR] Invalid asynchronous error reporter configuration.");
+        }
+        this.delegate = delegate;
+        this.maxPerSecond = maxPerSecond;
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.slots = new AtomicIntegerArray(size);
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+            windowStart[i] = System.nanoTime() - WINDOW_NANOS;
+        }
+        drainer = new Thread(this::drainLoop, "error-reporter");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Counts the failure and queues it for the background thread, without blocking.
+     *
+     * @param rule the broken validation rule
+     */
+    @Override
+    public void report(ValidationRule rule) {
+        counts[rule.ordinal()].increment();
+        if (closed) {
+            dropped.increment();
+            return;
+        }
+        long position;
+        do {
+            position = tail.get();
+            if (position - head >= capacity) {
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(position, position + 1));
+        int index = (int) position & mask;
+        slots.set(index, rule.ordinal() + 1);
+        // The background thread may have stopped after the check above; if it has not taken the failure, it is
+        // withdrawn and dropped, so that every failure is either forwarded, suppressed or dropped
+        if (closed && slots.compareAndSet(index, rule.ordinal() + 1, WITHDRAWN)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Returns how many times a rule has been reported, including dropped and suppressed failures.
+     *
+     * @param rule the validation rule
+     * @return the number of failures of the rule
+     */
+    public long getCount(ValidationRule rule) {
+        return counts[rule.ordinal()].sum();
+    }
+
+    /**
+     * Returns how many failures of a rule were not forwarded because of the rate limit.
+     *
+     * @param rule the validation rule
+     * @return the number of suppressed failures of the rule
+     */
+    public long getSuppressed(ValidationRule rule) {
+        return suppressed.get(rule.ordinal());
+    }
+
+    /**
+     * Returns how many failures were discarded because the buffer was full or the reporter was closed.
+     *
+     * @return the number of dropped failures
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Returns the number of slots of the ring buffer.
+     *
+     * @return the capacity of the buffer
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Stops accepting failures, forwards the ones already queued and stops the background thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        while (!closed || head != tail.get()) {
+            if (!drain()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private boolean drain() {
+        long position = head;
+        long end = tail.get();
+        boolean drained = false;
+        while (position < end) {
+            int index = (int) position & mask;
+            int value = slots.get(index);
+            if (value == 0) {
+                // The slot has been claimed but its rule is not published yet
+                break;
+            }
+            // A failure withdrawn meanwhile by its reporter is skipped
+            value = slots.getAndSet(index, 0);
+            head = ++position;
+            if (value != WITHDRAWN) {
+                forward(RULES[value - 1]);
+            }
+            drained = true;
+        }
+        return drained;
+    }
+
+    private void forward(ValidationRule rule) {
+        int ordinal = rule.ordinal();
+        long now = System.nanoTime();
+        if (now - windowStart[ordinal] >= WINDOW_NANOS) {
+            windowStart[ordinal] = now;
+            windowCount[ordinal] = 0;
+        }
+        if (windowCount[ordinal] >= maxPerSecond) {
+            suppressed.incrementAndGet(ordinal);
+            return;
+        }
+        windowCount[ordinal]++;
+        try {
+            delegate.report(rule);
+        } catch (RuntimeException e) {
+            // A failing delegate must not stop the reporting of later failures
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package edu.uoc.pac2;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Source of the current date for the date checks of {@link WebDomain}.
+ * The date is exposed as an epoch day so that checks compare plain longs. The system clock caches the current
+ * epoch day together with the instants at which the day starts and ends, so reading it costs one
+ * {@code currentTimeMillis} call instead of a time-zone lookup and a LocalDate allocation; the day is recomputed
+ * only when the clock crosses one of those instants. Tests can install a fixed clock with {@link #setCurrent}.
+ */
+public abstract class DomainClock {
+    private static final DomainClock SYSTEM = new CachingClock(Clock.systemDefaultZone());
+
+    private static volatile DomainClock current = SYSTEM;
+
+    /**
+     * Returns the clock currently used by {@link WebDomain}.
+     *
+     * @return the current clock
+     */
+    public static DomainClock getCurrent() {
+        return current;
+    }
+
+    /**
+     * Replaces the clock used by {@link WebDomain}.
+     *
+     * @param clock the new clock
+     */
+    public static void setCurrent(DomainClock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("[ERROR] The domain clock cannot be null.");
+        }
+        current = clock;
+    }
+
+    /**
+     * Returns the epoch day of the current date of the current clock.
+     *
+     * @return the current epoch day
+     */
+    public static long currentEpochDay() {
+        return current.epochDay();
+    }
+
+    /**
+     * Returns the clock following the system clock in the default time zone.
+     *
+     * @return the system clock
+     */
+    public static DomainClock system() {
+        return SYSTEM;
+    }
+
+    /**
+     * Returns a clock following the given clock, with the current epoch day cached until the next day starts.
+     *
+     * @param clock the clock providing the instant and the time zone
+     * @return a caching clock
+     */
+    public static DomainClock of(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("[ERROR] The domain clock cannot be null.");
+        }
+        return new CachingClock(clock);
+    }
+
+    /**
+     * Returns a clock that always returns the same date.
+     *
+     * @param date the date returned by the clock
+     * @return a fixed clock
+     */
+    public static DomainClock fixed(LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("[ERROR] The domain clock cannot be null.");
+        }
+        long epochDay = date.toEpochDay();
+        return new DomainClock() {
+            @Override
+            public long epochDay() {
+                return epochDay;
+            }
+        };
+    }
+
+    /**
+     * Returns the current date as a number of days since 1970-01-01.
+     *
+     * @return the current epoch day
+     */
+    public abstract long epochDay();
+
+    /**
+     * Returns the current date.
+     *
+     * @return the current date as a LocalDate
+     */
+    public LocalDate today() {
+        return LocalDate.ofEpochDay(epochDay());
+    }
+
+    private static final class CachingClock extends DomainClock {
+        private final Clock clock;
+        private volatile Day day;
+
+        CachingClock(Clock clock) {
+            this.clock = clock;
+            this.day = Day.of(clock.millis(), clock.getZone());
+        }
+
+        @Override
+        public long epochDay() {
+            long millis = clock.millis();
+            Day cached = day;
+            if (millis < cached.startMillis || millis >= cached.endMillis) {
+                // A new day has started, or the system clock has been set back
+                cached = Day.of(millis, clock.getZone());
+                day = cached;
+            }
+            return cached.epochDay;
+        }
+    }
+
+    private static final class Day {
+        private final long epochDay;
+        private final long startMillis;
+        private final long endMillis;
+
+        private Day(long epochDay, long startMillis, long endMillis) {
+            this.epochDay = epochDay;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+
+        static Day of(long millis, ZoneId zone) {
+            LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(millis), zone);
+            return new Day(date.toEpochDay(), date.atStartOfDay(zone).toInstant().toEpochMilli(),
+                    date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+        }
+    }
+}
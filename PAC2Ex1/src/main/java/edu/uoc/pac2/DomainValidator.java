@@ -0,0 +1,101 @@
+package edu.uoc.pac2;
+
+/**
+ * Allocation-free validator for domain names.
+ * It applies the same rules as {@link WebDomain#setDomain(String)} (a name made of letters, digits and hyphens,
+ * followed by a dot and a valid extension, case-insensitive) in a single scan of the characters, without
+ * lowercasing, splitting or compiling any regular expression. It is meant to be called directly from bulk paths
+ * that do not need to build a {@link WebDomain}.
+ */
+public final class DomainValidator {
+    private static final String[] DEFAULT_EXTENSIONS = new String[]{"com", "org", "net", "int", "edu", "gov", "mil"};
+
+    private DomainValidator() {
+    }
+
+    /**
+     * Checks whether the given candidate is a valid domain name using the default extensions.
+     *
+     * @param domain the candidate domain name
+     * @return true if the domain name is valid, false otherwise
+     */
+    public static boolean isValidDomain(CharSequence domain) {
+        return isValidDomain(domain, DEFAULT_EXTENSIONS);
+    }
+
+    /**
+     * Checks whether the given candidate is a valid domain name for the given extensions.
+     * As with the former {@code split("\\.")} based check, trailing dots after the extension are ignored.
+     *
+     * @param domain the candidate domain name
+     * @param extensions the accepted extensions, in lowercase
+     * @return true if the domain name is valid, false otherwise
+     */
+    public static boolean isValidDomain(CharSequence domain, String[] extensions) {
+        if (domain == null) {
+            return false;
+        }
+        int length = domain.length();
+
+        int dot = 0;
+        while (dot < length && domain.charAt(dot) != '.') {
+            if (!isNameChar(toLowerCase(domain.charAt(dot)))) {
+                return false;
+            }
+            dot++;
+        }
+        if (dot == 0 || dot == length) {
+            return false;
+        }
+
+        int extensionStart = dot + 1;
+        int extensionEnd = extensionStart;
+        while (extensionEnd < length && domain.charAt(extensionEnd) != '.') {
+            extensionEnd++;
+        }
+        for (int i = extensionEnd; i < length; i++) {
+            if (domain.charAt(i) != '.') {
+                return false;
+            }
+        }
+        return isExtension(domain, extensionStart, extensionEnd, extensions);
+    }
+
+    /**
+     * Checks whether the characters between start and end match one of the extensions, ignoring case.
+     *
+     * @param domain the sequence holding the extension
+     * @param start the index of the first character of the extension
+     * @param end the index after the last character of the extension
+     * @param extensions the accepted extensions, in lowercase
+     * @return true if the extension is accepted, false otherwise
+     */
+    static boolean isExtension(CharSequence domain, int start, int end, String[] extensions) {
+        int length = end - start;
+        for (String extension : extensions) {
+            if (extension.length() != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && toLowerCase(domain.charAt(start + i)) == extension.charAt(i)) {
+                i++;
+            }
+            if (i == length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-';
+    }
+
+    static char toLowerCase(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        // KELVIN SIGN is the only non-ASCII character that String.toLowerCase() turns into [a-z0-9-]
+        return c == '\u212A' ? 'k' : c;
+    }
+}
@@ -0,0 +1,118 @@
+package edu.uoc.pac2;
+
+/**
+ * Single-pass validator for owner email addresses.
+ * It accepts exactly the same inputs as the regular expressions previously used by the owner email setters,
+ * but scans the characters once and never builds or compiles a pattern.
+ */
+public final class EmailValidator {
+
+    private EmailValidator() {
+    }
+
+    /**
+     * Checks whether the email matches {@code ^[A-Za-z0-9._-]+@[A-Za-z0-9.-]+\.[A-Za-z]{2,}$}.
+     *
+     * @param email the candidate email address
+     * @return true if the email is valid, false otherwise
+     */
+    public static boolean isValidEmail(CharSequence email) {
+        int at = indexOfAt(email);
+        if (at < 0) {
+            return false;
+        }
+        int length = email.length();
+        int lastDot = -1;
+        for (int i = at + 1; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                lastDot = i;
+            } else if (!isDomainChar(c)) {
+                return false;
+            }
+        }
+        if (lastDot <= at + 1 || length - lastDot - 1 < 2) {
+            return false;
+        }
+        for (int i = lastDot + 1; i < length; i++) {
+            if (!isLetter(email.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the email matches {@code ^[A-Za-z0-9._-]+@[A-Za-z0-9.-]+\.(ext1|ext2|...)$} for the given
+     * extensions. Extensions are compared case-sensitively, as the regular expression did.
+     *
+     * @param email the candidate email address
+     * @param extensions the accepted extensions
+     * @return true if the email is valid, false otherwise
+     */
+    public static boolean isValidEmail(CharSequence email, String[] extensions) {
+        int at = indexOfAt(email);
+        if (at < 0) {
+            return false;
+        }
+        int length = email.length();
+        for (int i = at + 1; i < length; i++) {
+            char c = email.charAt(i);
+            if (c != '.' && !isDomainChar(c)) {
+                return false;
+            }
+        }
+        for (String extension : extensions) {
+            int dot = length - extension.length() - 1;
+            if (dot > at + 1 && email.charAt(dot) == '.' && regionMatches(email, dot + 1, extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scans the local part of the email.
+     *
+     * @param email the candidate email address
+     * @return the index of the '@' separator, or -1 if the local part is empty, contains an invalid character
+     * or is not followed by '@'
+     */
+    private static int indexOfAt(CharSequence email) {
+        if (email == null) {
+            return -1;
+        }
+        int length = email.length();
+        for (int i = 0; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                return i > 0 ? i : -1;
+            }
+            if (!isLocalChar(c)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(CharSequence email, int start, String extension) {
+        for (int i = 0; i < extension.length(); i++) {
+            if (email.charAt(start + i) != extension.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDomainChar(char c) {
+        return isLetter(c) || (c >= '0' && c <= '9') || c == '-';
+    }
+
+    private static boolean isLocalChar(char c) {
+        return isDomainChar(c) || c == '.' || c == '_';
+    }
+}
@@ -0,0 +1,19 @@
+package edu.uoc.pac2;
+
+/**
+ * Receives the validation failures detected by {@link WebDomain}.
+ */
+public interface ErrorReporter {
+
+    /**
+     * Reporter that prints the message of every failure to the current {@code System.out}.
+     */
+    ErrorReporter STDOUT = rule -> System.out.println(rule.getMessage());
+
+    /**
+     * Reports that a validation rule has been broken.
+     *
+     * @param rule the broken validation rule
+     */
+    void report(ValidationRule rule);
+}
@@ -0,0 +1,43 @@
+package edu.uoc.pac2;
+
+/**
+ * Holds the {@link ErrorReporter} used by {@link WebDomain}.
+ * It prints to {@code System.out} by default; install an {@link AsyncErrorReporter} to keep the setters from
+ * blocking on I/O.
+ */
+public final class ErrorReporting {
+    private static volatile ErrorReporter reporter = ErrorReporter.STDOUT;
+
+    private ErrorReporting() {
+    }
+
+    /**
+     * Returns the reporter currently in use.
+     *
+     * @return the current error reporter
+     */
+    public static ErrorReporter getReporter() {
+        return reporter;
+    }
+
+    /**
+     * Replaces the reporter in use.
+     *
+     * @param reporter the new error reporter
+     */
+    public static void setReporter(ErrorReporter reporter) {
+        if (reporter == null) {
+            throw new IllegalArgumentException("[ERROR] The error reporter cannot be null.");
+        }
+        ErrorReporting.reporter = reporter;
+    }
+
+    /**
+     * Reports a broken rule to the current reporter.
+     *
+     * @param rule the broken validation rule
+     */
+    public static void report(ValidationRule rule) {
+        reporter.report(rule);
+    }
+}
@@ -0,0 +1,32 @@
+package edu.uoc.pac2;
+
+/**
+ * Identifies each validation rule enforced by {@link WebDomain}, together with the error message reported when
+ * it is broken.
+ */
+public enum ValidationRule {
+    DOMAIN_FORMAT("[ERROR] Invalid domain format."),
+    OWNER_NAME("[ERROR] Owner name cannot be empty."),
+    OWNER_EMAIL("[ERROR] Invalid owner email format."),
+    HOSTING_PROVIDER("[ERROR] Hosting provider cannot be empty."),
+    REGISTRATION_DATE("[ERROR] The registration date must be prior or equal to the current date."),
+    EXPIRATION_DATE("[ERROR] The expiration date must be later than the registration date."),
+    MAX_CONCURRENT_USERS("[ERROR] Maximum concurrent users must be greater than 0."),
+    CONCURRENT_USERS("[ERROR] The number of concurrent users exceeds the maximum allowed."),
+    TARGET_DATE("[ERROR] The date must be later than the current date.");
+
+    private final String message;
+
+    ValidationRule(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Returns the error message reported when the rule is broken.
+     *
+     * @return the error message as a String
+     */
+    public String getMessage() {
+        return message;
+    }
+}
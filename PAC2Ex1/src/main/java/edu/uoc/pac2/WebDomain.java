@@ -1,8 +1,6 @@
 package edu.uoc.pac2;
 
 import java.time.LocalDate;
-import java.time.Period;
-import java.time.temporal.ChronoUnit;
 
 
 public class WebDomain {
@@ -41,7 +39,7 @@ public class WebDomain {
         // Método para validar el formato del dominio utilizando isValidDomain
 
         if (!isValidDomain(domain)) {
-            System.out.println("[ERROR] Invalid domain format.");
+            ErrorReporting.report(ValidationRule.DOMAIN_FORMAT);
             return;
         }
         domain = domain.toLowerCase();
@@ -49,32 +47,8 @@ public class WebDomain {
     }
 
     private boolean isValidDomain(String domain) {
-        // Comprobamos si es null
-        if (domain == null) {
-            return false;
-        }
-        // Nos aseguramos de que domain está en minúsculas
-        domain = domain.toLowerCase();
-
-        // Comprobamos que el dominio solo tenga una parte y una extensión, separados por un punto
-        String[] parts = domain.split("\\.");
-        if (parts.length != 2) {
-            return false;
-        }
-
-        // Comprobamos que el nombre del dominio solo contiene letras, dígitos y guiones
-        if (!parts[0].matches("^[a-z0-9-]+$")) {
-            return false;
-        }
-
-        // Comparamos con validExtensions para comprobar si es una extensión valida
-        String domainExtension = parts[1];
-        for (String ext : validExtensions) {
-            if (ext.equals(domainExtension)) {
-                return true;
-            }
-        }
-        return false;
+        // Delegamos en DomainValidator, que comprueba el nombre y la extensión en una sola pasada sin crear objetos
+        return DomainValidator.isValidDomain(domain, validExtensions);
     }
 
 
@@ -88,8 +62,10 @@ public class WebDomain {
         if (ownerName != null && !ownerName.trim().isEmpty()) {
             // Eliminamos (si exsisten) los espacios en blanco al principio y/o al final
             this.ownerName = ownerName.trim();
+        } else {
+            // Solo informamos del error si el nombre no es válido
+            ErrorReporting.report(ValidationRule.OWNER_NAME);
         }
-        System.out.println("[ERROR] Owner name cannot be empty.");
     }
 
     public String getOwnerEmail() {
@@ -97,17 +73,13 @@ public class WebDomain {
     }
 
     public void setOwnerEmail(String ownerEmail) {
-        // Construir una cadena con las extensiones válidas para la expresión regular
-        String validExtensionsRegex = String.join("|", validExtensions); // Esto creará una cadena "com|org|net|int|edu|gov|mil"
-
-        // Modificar la expresión regular para incluir las extensiones válidas al final
-        String emailRegex = "^[A-Za-z0-9._-]+@[A-Za-z0-9.-]+\\.(" + validExtensionsRegex + ")$";
-
-        if (ownerEmail != null && ownerEmail.matches(emailRegex)) {
+        // Comprobamos el formato "^[A-Za-z0-9._-]+@[A-Za-z0-9.-]+\.(com|org|net|int|edu|gov|mil)$" con EmailValidator,
+        // que recorre el correo una sola vez sin construir ni compilar la expresión regular en cada llamada
+        if (EmailValidator.isValidEmail(ownerEmail, validExtensions)) {
             this.ownerEmail = ownerEmail;
         } else {
             // Se imprime el error solo si el correo electrónico no es válido.
-            System.out.println("[ERROR] Invalid owner email format.");
+            ErrorReporting.report(ValidationRule.OWNER_EMAIL);
         }
     }
     public String getHostingProvider() {
@@ -120,7 +92,7 @@ public class WebDomain {
 
         // Comprobamos si el valor es null o está vacío después de eliminar espacios en blanco al principio y al final
         if (hostingProvider == null || hostingProvider.trim().isEmpty()) {
-            System.out.println("[ERROR] Hosting provider cannot be empty.");
+            ErrorReporting.report(ValidationRule.HOSTING_PROVIDER);
         } else {
             // Asignamos el valor limpio (sin espacios en blanco al principio y al final) a this.hostingProvider
             this.hostingProvider = hostingProvider.trim();
@@ -134,11 +106,9 @@ public class WebDomain {
     public void setRegistrationDate(LocalDate registrationDate) {
         // Método que comprueba si la fecha de registro es valida (si fue creada antes de la fecha actual)
 
-        // Establecemos la fecha actual
-        LocalDate currentDate = LocalDate.now();
-        // Comprobamos si registrationDate es null o posterior a la fecha actual
-        if (registrationDate == null || registrationDate.isAfter(currentDate)) {
-            System.out.println("[ERROR] The registration date must be prior or equal to the current date.");
+        // Comprobamos si registrationDate es null o posterior a la fecha actual del DomainClock
+        if (registrationDate == null || registrationDate.toEpochDay() > DomainClock.currentEpochDay()) {
+            ErrorReporting.report(ValidationRule.REGISTRATION_DATE);
         } else {
             // Solo actualizamos la fecha de registro si pasa las validaciones
             this.registrationDate = registrationDate;
@@ -157,7 +127,7 @@ public class WebDomain {
         if (expirationDate != null && expirationDate.isAfter(registrationDate)) {
             this.expirationDate = expirationDate;
         } else {
-            System.out.println("[ERROR] The expiration date must be later than the registration date.");
+            ErrorReporting.report(ValidationRule.EXPIRATION_DATE);
         }
     }
 
@@ -169,8 +139,10 @@ public class WebDomain {
         // Método que comprueba si el número máximo de usuarios es valido (mayor que 0)
         if (maxConcurrentUsers > 0) {
             this.maxConcurrentUsers = maxConcurrentUsers;
+        } else {
+            // Solo informamos del error si el número no es válido
+            ErrorReporting.report(ValidationRule.MAX_CONCURRENT_USERS);
         }
-        System.out.println("[ERROR] Maximum concurrent users must be greater than 0.");
     }
 
     public boolean isAutoRenew() {
@@ -185,16 +157,14 @@ public class WebDomain {
     public boolean isExpired() {
         // Método que comprueba si ha expiriado el dominio
 
-        LocalDate currentDate = LocalDate.now();
-        return currentDate.isAfter(expirationDate);
+        return DomainClock.currentEpochDay() > expirationDate.toEpochDay();
     }
 
     public boolean isAboutToExpire() {
         // Método que comprueba si queda poco para que caduque (menos de un mes)
 
-        LocalDate currentDate = LocalDate.now();
         // Establecemos la diferencia de dias entre expirationDate y la fecha actual
-        long diff = Math.abs(ChronoUnit.DAYS.between(currentDate, expirationDate));
+        long diff = Math.abs(expirationDate.toEpochDay() - DomainClock.currentEpochDay());
         return diff < 30;
     }
 
@@ -204,7 +174,7 @@ public class WebDomain {
 
         // Comprobamos que el máximo de usuarios es mayor que 0
         if (currentConcurrentUser < 0 || currentConcurrentUser > maxConcurrentUsers) {
-            System.out.println("[ERROR] The number of concurrent users exceeds the maximum allowed.");
+            ErrorReporting.report(ValidationRule.CONCURRENT_USERS);
         }
         // Hacemos el porcentaje de usuarios en el dominio
         double percentage = (double) currentConcurrentUser / maxConcurrentUsers * 100;
@@ -222,41 +192,17 @@ public class WebDomain {
     public double predictedRenewalCostByDate(LocalDate targetDate) {
         // Método que calcula el precio de la renovación del dominio
 
-        // Establecemos la fecha actual
-        LocalDate currentDate = LocalDate.now();
-        // Comprobamos que la fecha targetDate sea antes que currentDate
-        if (targetDate.isBefore(currentDate)) {
-            System.out.println("[ERROR] The date must be later than the current date.");
+        // Comprobamos que la fecha targetDate no sea anterior a la fecha actual del DomainClock
+        if (targetDate.toEpochDay() < DomainClock.currentEpochDay()) {
+            ErrorReporting.report(ValidationRule.TARGET_DATE);
             return 0.0;
         }
         // Comprobamos que la renovación automática esta desactivada
         if (!autoRenew) {
             return 0.0;
         }
-        // Establecemos totalCost para ir sumando los precios
-        double totalCost = 0.0;
-        // Establecemos nextRenewalDate que será la fecha con la que estemos trabajando según la iteración
-        LocalDate nextRenewalDate = expirationDate;
-
-        // Hacemos un bucle hasta que la fecha targetDate sea antes que currentDate
-        while (nextRenewalDate.isBefore(targetDate)) {
-            long yearsOfAntiquity = Period.between(registrationDate, nextRenewalDate.plusDays(1)).getYears();
-            double discount = 1.0; // Sin descuentos por default
-            // Establecemos los descuentos según los años
-            if (yearsOfAntiquity >= 2 && yearsOfAntiquity <= 3) {
-                discount = 0.95; // 5% discount
-            } else if (yearsOfAntiquity >= 4 && yearsOfAntiquity <= 5) {
-                discount = 0.90; // 10% discount
-            } else if (yearsOfAntiquity >= 6) {
-                discount = 0.85; // 15% discount
-            }
-            // Añadimos el calculo de la iteración a totalCost
-            totalCost += renewalCost * discount;
-            // Para pasar al siguente año
-            nextRenewalDate = nextRenewalDate.plusYears(1);
-        }
-        // Redondeamos a dos decimales y obtenemos el precio total
-        return Math.round(totalCost * 100.0) / 100.0;
+        // Calculamos el precio por tramos de descuento sin recorrer las renovaciones año a año
+        return RenewalCostCalculator.predictedRenewalCost(registrationDate, expirationDate, targetDate, renewalCost);
     }
 
     public boolean isWhoisPrivacy() {
@@ -0,0 +1,109 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncErrorReporterTest {
+
+    @Test
+    public void testForwardsAndCountsFailures() throws InterruptedException {
+        Queue<ValidationRule> forwarded = new ConcurrentLinkedQueue<>();
+        AsyncErrorReporter reporter = new AsyncErrorReporter(forwarded::add, 1 << 16, Integer.MAX_VALUE);
+        assertEquals(1 << 16, reporter.getCapacity());
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    reporter.report(ValidationRule.DOMAIN_FORMAT);
+                    reporter.report(ValidationRule.OWNER_EMAIL);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        reporter.close();
+
+        assertEquals(20000, reporter.getCount(ValidationRule.DOMAIN_FORMAT));
+        assertEquals(20000, reporter.getCount(ValidationRule.OWNER_EMAIL));
+        assertEquals(0, reporter.getCount(ValidationRule.OWNER_NAME));
+        assertEquals(0, reporter.getDropped());
+        assertEquals(40000, forwarded.size());
+    }
+
+    @Test
+    public void testRateLimitAndDrops() {
+        Queue<ValidationRule> forwarded = new ConcurrentLinkedQueue<>();
+        AsyncErrorReporter reporter = new AsyncErrorReporter(forwarded::add, 3, 2);
+        assertEquals(4, reporter.getCapacity());
+
+        for (int i = 0; i < 1000; i++) {
+            reporter.report(ValidationRule.TARGET_DATE);
+        }
+        reporter.close();
+        reporter.report(ValidationRule.TARGET_DATE);
+
+        assertEquals(1001, reporter.getCount(ValidationRule.TARGET_DATE));
+        assertTrue(forwarded.size() <= 2);
+        assertEquals(1001, forwarded.size() + reporter.getSuppressed(ValidationRule.TARGET_DATE) + reporter.getDropped());
+    }
+
+    @Test
+    public void testReportsRacingWithClose() throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            Queue<ValidationRule> forwarded = new ConcurrentLinkedQueue<>();
+            AsyncErrorReporter reporter = new AsyncErrorReporter(forwarded::add, 1 << 10, Integer.MAX_VALUE);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        reporter.report(ValidationRule.OWNER_NAME);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            reporter.close();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            // Failures reported while the reporter closes are either forwarded or dropped, never lost
+            assertEquals(8000, forwarded.size() + reporter.getDropped());
+            assertEquals(8000, reporter.getCount(ValidationRule.OWNER_NAME));
+        }
+    }
+
+    @Test
+    public void testWebDomainReportsOnlyFailures() {
+        Queue<ValidationRule> reported = new ConcurrentLinkedQueue<>();
+        ErrorReporter previous = ErrorReporting.getReporter();
+        ErrorReporting.setReporter(reported::add);
+        try {
+            WebDomain webDomain = new WebDomain("uoc.edu", "Gabriel Ferraté i Pascual", "gferrate@uoc.edu", "Hosting UOC",
+                    LocalDate.now().minusYears(30), LocalDate.now().plusMonths(6), 10000, true, true);
+
+            webDomain.setOwnerName("Another name");
+            webDomain.setMaxConcurrentUsers(10);
+            assertTrue(reported.isEmpty());
+
+            webDomain.setOwnerName(" ");
+            webDomain.setMaxConcurrentUsers(0);
+            webDomain.setDomain("uoc.es");
+            assertArrayEquals(new ValidationRule[]{ValidationRule.OWNER_NAME, ValidationRule.MAX_CONCURRENT_USERS,
+                    ValidationRule.DOMAIN_FORMAT}, reported.toArray());
+        } finally {
+            ErrorReporting.setReporter(previous);
+        }
+        assertThrows(IllegalArgumentException.class, () -> ErrorReporting.setReporter(null));
+    }
+}
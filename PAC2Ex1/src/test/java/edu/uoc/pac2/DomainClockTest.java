@@ -0,0 +1,111 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DomainClockTest {
+
+    private static final class ManualClock extends Clock {
+        private final AtomicLong millis;
+        private final ZoneId zone;
+
+        ManualClock(long millis, ZoneId zone) {
+            this.millis = new AtomicLong(millis);
+            this.zone = zone;
+        }
+
+        void set(LocalDateTime dateTime) {
+            millis.set(dateTime.atZone(zone).toInstant().toEpochMilli());
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new ManualClock(millis.get(), zone);
+        }
+
+        @Override
+        public long millis() {
+            return millis.get();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis());
+        }
+    }
+
+    @Test
+    public void testSystemClock() {
+        LocalDate before = LocalDate.now();
+        LocalDate today = DomainClock.system().today();
+        assertTrue(!today.isBefore(before) && !today.isAfter(LocalDate.now()));
+        assertSame(DomainClock.system(), DomainClock.getCurrent());
+    }
+
+    @Test
+    public void testCachedDayFollowsTheClock() {
+        ZoneId zone = ZoneId.of("Europe/Madrid");
+        ManualClock clock = new ManualClock(0, zone);
+        clock.set(LocalDateTime.of(2024, 3, 30, 23, 59, 59));
+        DomainClock domainClock = DomainClock.of(clock);
+        assertEquals(LocalDate.of(2024, 3, 30), domainClock.today());
+
+        // The day of the change to summer time only lasts 23 hours
+        clock.set(LocalDateTime.of(2024, 3, 31, 0, 0));
+        assertEquals(LocalDate.of(2024, 3, 31).toEpochDay(), domainClock.epochDay());
+        clock.set(LocalDateTime.of(2024, 3, 31, 23, 59, 59));
+        assertEquals(LocalDate.of(2024, 3, 31), domainClock.today());
+        clock.set(LocalDateTime.of(2024, 4, 1, 0, 0));
+        assertEquals(LocalDate.of(2024, 4, 1), domainClock.today());
+
+        // The system clock may also be set back
+        clock.set(LocalDateTime.of(2023, 12, 31, 12, 0));
+        assertEquals(LocalDate.of(2023, 12, 31), domainClock.today());
+    }
+
+    @Test
+    public void testFixedClockDrivesWebDomain() {
+        LocalDate today = LocalDate.of(2030, 6, 15);
+        DomainClock.setCurrent(DomainClock.fixed(today));
+        List<ValidationRule> reported = new ArrayList<>();
+        ErrorReporter previous = ErrorReporting.getReporter();
+        ErrorReporting.setReporter(reported::add);
+        try {
+            WebDomain webDomain = new WebDomain("uoc.edu", "Owner", "owner@uoc.edu", "Hosting UOC",
+                    today.minusYears(3), today.plusDays(29), 100, false, true);
+            assertFalse(webDomain.isExpired());
+            assertTrue(webDomain.isAboutToExpire());
+            webDomain.setExpirationDate(today.plusDays(30));
+            assertFalse(webDomain.isAboutToExpire());
+            webDomain.setExpirationDate(today.minusDays(1));
+            assertTrue(webDomain.isExpired());
+
+            webDomain.setRegistrationDate(today);
+            assertTrue(reported.isEmpty());
+            webDomain.setRegistrationDate(today.plusDays(1));
+            assertEquals(today, webDomain.getRegistrationDate());
+            assertEquals(0.0, webDomain.predictedRenewalCostByDate(today.minusDays(1)));
+            assertEquals(List.of(ValidationRule.REGISTRATION_DATE, ValidationRule.TARGET_DATE), reported);
+        } finally {
+            ErrorReporting.setReporter(previous);
+            DomainClock.setCurrent(DomainClock.system());
+        }
+        assertThrows(IllegalArgumentException.class, () -> DomainClock.setCurrent(null));
+        assertThrows(IllegalArgumentException.class, () -> DomainClock.fixed(null));
+    }
+}
@@ -0,0 +1,49 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+public class DomainValidatorBenchmark {
+    private static final int CANDIDATES = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    static long nanosPerCall(String[] candidates, Predicate<String> validator) {
+        long best = Long.MAX_VALUE;
+        int valid = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (String candidate : candidates) {
+                if (validator.test(candidate)) {
+                    valid++;
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        assertTrue(valid >= 0);
+        return best / candidates.length;
+    }
+
+    @Test
+    public void benchmarkIsValidDomain() {
+        Random random = new Random(7);
+        String[] candidates = new String[CANDIDATES];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = DomainValidatorTest.randomCandidate(random);
+        }
+        for (String candidate : candidates) {
+            assertEquals(DomainValidatorTest.legacyIsValidDomain(candidate), DomainValidator.isValidDomain(candidate));
+        }
+
+        long legacy = nanosPerCall(candidates, DomainValidatorTest::legacyIsValidDomain);
+        long scanner = nanosPerCall(candidates, DomainValidator::isValidDomain);
+        System.out.printf("isValidDomain: split/regex %d ns/call, single pass %d ns/call (x%.1f)%n",
+                legacy, scanner, (double) legacy / Math.max(1, scanner));
+        assertTrue(scanner <= legacy);
+    }
+}
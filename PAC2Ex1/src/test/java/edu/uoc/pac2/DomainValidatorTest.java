@@ -0,0 +1,87 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DomainValidatorTest {
+
+    static boolean legacyIsValidDomain(String domain) {
+        if (domain == null) {
+            return false;
+        }
+        domain = domain.toLowerCase();
+        String[] parts = domain.split("\\.");
+        if (parts.length != 2) {
+            return false;
+        }
+        if (!parts[0].matches("^[a-z0-9-]+$")) {
+            return false;
+        }
+        for (String ext : new String[]{"com", "org", "net", "int", "edu", "gov", "mil"}) {
+            if (ext.equals(parts[1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String randomCandidate(Random random) {
+        String alphabet = "abcxyzABCXYZ0129-_. !\u212A\u0130";
+        String[] extensions = {"com", "ORG", "Net", "edu", "es", "cat", "comm", ""};
+        StringBuilder builder = new StringBuilder();
+        int nameLength = random.nextInt(12);
+        for (int i = 0; i < nameLength; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        if (random.nextInt(10) > 0) {
+            builder.append('.').append(extensions[random.nextInt(extensions.length)]);
+        }
+        while (random.nextInt(8) == 0) {
+            builder.append('.');
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testIsValidDomain() {
+        assertTrue(DomainValidator.isValidDomain("uoc.edu"));
+        assertTrue(DomainValidator.isValidDomain("UOC.EDU"));
+        assertTrue(DomainValidator.isValidDomain("custom-domain-123.com"));
+        assertTrue(DomainValidator.isValidDomain("uoc.com."));
+        assertTrue(DomainValidator.isValidDomain("\u212Aelvin.org"));
+
+        assertFalse(DomainValidator.isValidDomain(null));
+        assertFalse(DomainValidator.isValidDomain(""));
+        assertFalse(DomainValidator.isValidDomain("."));
+        assertFalse(DomainValidator.isValidDomain(".com"));
+        assertFalse(DomainValidator.isValidDomain("uoc."));
+        assertFalse(DomainValidator.isValidDomain("uocedu"));
+        assertFalse(DomainValidator.isValidDomain("uoc..edu"));
+        assertFalse(DomainValidator.isValidDomain("cv.uoc.edu"));
+        assertFalse(DomainValidator.isValidDomain(" uoc.edu "));
+        assertFalse(DomainValidator.isValidDomain("spin_uoc.com"));
+        assertFalse(DomainValidator.isValidDomain("uoc.ed2u"));
+        assertFalse(DomainValidator.isValidDomain("uoc.es"));
+        assertFalse(DomainValidator.isValidDomain("\u0130stanbul.com"));
+    }
+
+    @Test
+    public void testIsValidDomainWithExtensions() {
+        String[] extensions = {"es", "cat"};
+        assertTrue(DomainValidator.isValidDomain("uoc.cat", extensions));
+        assertTrue(DomainValidator.isValidDomain("uoc.ES", extensions));
+        assertFalse(DomainValidator.isValidDomain("uoc.edu", extensions));
+    }
+
+    @Test
+    public void testMatchesLegacyRules() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            String candidate = randomCandidate(random);
+            assertEquals(legacyIsValidDomain(candidate), DomainValidator.isValidDomain(candidate), candidate);
+        }
+    }
+}
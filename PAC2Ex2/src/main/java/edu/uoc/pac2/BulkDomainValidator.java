@@ -0,0 +1,149 @@
+package edu.uoc.pac2;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Validates large batches of candidate domain names in parallel with the rules of {@link DomainValidator}.
+ * The work is split with fork/join down to tasks of 64 words of the result bitmap, that is 4096 candidates, so
+ * every task writes its own words and no synchronisation is needed between them. Bit {@code i} of the result is
+ * set when candidate {@code i} is a valid domain.
+ */
+public final class BulkDomainValidator {
+    private static final int WORDS_PER_TASK = 64;
+
+    private BulkDomainValidator() {
+    }
+
+    /**
+     * Validates all the candidates using the common fork/join pool.
+     *
+     * @param domains the candidate domain names
+     * @return a BitSet with the positions of the valid candidates set
+     */
+    public static BitSet validate(CharSequence[] domains) {
+        return validate(domains, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Validates all the candidates using the given fork/join pool.
+     *
+     * @param domains the candidate domain names
+     * @param pool the pool running the validation tasks
+     * @return a BitSet with the positions of the valid candidates set
+     */
+    public static BitSet validate(CharSequence[] domains, ForkJoinPool pool) {
+        return validate(new ArraySource(domains), pool);
+    }
+
+    /**
+     * Validates all the candidates using the common fork/join pool.
+     * Lists without random access are copied to an array first.
+     *
+     * @param domains the candidate domain names
+     * @return a BitSet with the positions of the valid candidates set
+     */
+    public static BitSet validate(List<? extends CharSequence> domains) {
+        return validate(domains, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Validates all the candidates using the given fork/join pool.
+     * Lists without random access are copied to an array first.
+     *
+     * @param domains the candidate domain names
+     * @param pool the pool running the validation tasks
+     * @return a BitSet with the positions of the valid candidates set
+     */
+    public static BitSet validate(List<? extends CharSequence> domains, ForkJoinPool pool) {
+        if (!(domains instanceof RandomAccess)) {
+            return validate(domains.toArray(new CharSequence[0]), pool);
+        }
+        return validate(new ListSource(domains), pool);
+    }
+
+    private static BitSet validate(Source source, ForkJoinPool pool) {
+        long[] words = new long[(source.size() + 63) >>> 6];
+        pool.invoke(new ValidationTask(source, words, 0, words.length));
+        return BitSet.valueOf(words);
+    }
+
+    private interface Source {
+        int size();
+
+        CharSequence get(int index);
+    }
+
+    private static final class ArraySource implements Source {
+        private final CharSequence[] domains;
+
+        ArraySource(CharSequence[] domains) {
+            this.domains = domains;
+        }
+
+        public int size() {
+            return domains.length;
+        }
+
+        public CharSequence get(int index) {
+            return domains[index];
+        }
+    }
+
+    private static final class ListSource implements Source {
+        private final List<? extends CharSequence> domains;
+
+        ListSource(List<? extends CharSequence> domains) {
+            this.domains = domains;
+        }
+
+        public int size() {
+            return domains.size();
+        }
+
+        public CharSequence get(int index) {
+            return domains.get(index);
+        }
+    }
+
+    private static final class ValidationTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Source source;
+        private final long[] words;
+        private final int fromWord;
+        private final int toWord;
+
+        ValidationTask(Source source, long[] words, int fromWord, int toWord) {
+            this.source = source;
+            this.words = words;
+            this.fromWord = fromWord;
+            this.toWord = toWord;
+        }
+
+        @Override
+        protected void compute() {
+            if (toWord - fromWord > WORDS_PER_TASK) {
+                int middle = (fromWord + toWord) >>> 1;
+                invokeAll(new ValidationTask(source, words, fromWord, middle),
+                        new ValidationTask(source, words, middle, toWord));
+                return;
+            }
+            int size = source.size();
+            for (int word = fromWord; word < toWord; word++) {
+                int base = word << 6;
+                int end = Math.min(size, base + 64);
+                long bits = 0L;
+                for (int i = base; i < end; i++) {
+                    if (DomainValidator.isValidDomain(source.get(i))) {
+                        bits |= 1L << (i - base);
+                    }
+                }
+                words[word] = bits;
+            }
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package edu.uoc.pac2;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Compact column-oriented storage for large portfolios of domains.
+ * Every field is kept in its own column instead of one object per domain:
+ * <ul>
+ *     <li>registration and expiration dates as epoch days in int arrays,</li>
+ *     <li>the maximum number of concurrent users in an int array,</li>
+ *     <li>WHOIS privacy and auto-renew as bits of long arrays,</li>
+ *     <li>the hosting provider and the domain of the owner email as int codes into {@link StringDictionary}s of
+ *     their distinct values, so domains can be grouped and filtered by comparing ints,</li>
+ *     <li>the domain name, owner name and owner email packed as UTF-8 bytes, one after the other and each preceded
+ *     by its length, in 1 MiB pages addressed by one long offset per domain. When the domain of the owner email is
+ *     in lowercase, only the part before its '@' is packed, and a bit tells to append the domain of its code.</li>
+ * </ul>
+ * The fixed columns take 28 bytes and 3 bits per domain, plus the bytes of the three strings, instead of the
+ * several hundred bytes of a WebDomain with its Strings and LocalDates.
+ * Domains are read through reusable {@link View}s, or copied back with {@link #toWebDomain(int)}. The store is
+ * append-only and not thread-safe: it has to be filled by one thread and published safely before being read by
+ * others.
+ */
+public final class ColumnarDomainStore {
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int PAGE_BITS = 20;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private int size;
+    private int[] registrationDays;
+    private int[] expirationDays;
+    private int[] maxConcurrentUsers;
+    private int[] providerCodes;
+    private int[] emailDomainCodes;
+    private long[] stringOffsets;
+    private long[] whoisPrivacy;
+    private long[] autoRenew;
+    private long[] splitEmails;
+
+    private final StringDictionary providers = new StringDictionary();
+    private final StringDictionary emailDomains = new StringDictionary();
+
+    private byte[][] pages = new byte[1][];
+    private long heapEnd;
+
+    /**
+     * Creates an empty store.
+     */
+    public ColumnarDomainStore() {
+        this(1024);
+    }
+
+    /**
+     * Creates an empty store with room for the expected number of domains.
+     *
+     * @param expectedSize the number of domains the store is expected to hold
+     */
+    public ColumnarDomainStore(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("[ERROR] The expected size cannot be negative.");
+        }
+        registrationDays = new int[expectedSize];
+        expirationDays = new int[expectedSize];
+        maxConcurrentUsers = new int[expectedSize];
+        providerCodes = new int[expectedSize];
+        emailDomainCodes = new int[expectedSize];
+        stringOffsets = new long[expectedSize];
+        whoisPrivacy = new long[(expectedSize + 63) >>> 6];
+        autoRenew = new long[(expectedSize + 63) >>> 6];
+        splitEmails = new long[(expectedSize + 63) >>> 6];
+    }
+
+    /**
+     * Appends a copy of a domain to the store.
+     *
+     * @param domain the domain to copy
+     * @return the index of the domain in the store
+     */
+    public int add(DomainRecord domain) {
+        if (size == registrationDays.length) {
+            grow();
+        }
+        int index = size;
+        registrationDays[index] = toEpochDay(domain.getRegistrationDate());
+        expirationDays[index] = toEpochDay(domain.getExpirationDate());
+        maxConcurrentUsers[index] = domain.getMaxConcurrentUsers();
+        providerCodes[index] = providers.encode(domain.getHostingProvider());
+        String ownerEmail = domain.getOwnerEmail();
+        String emailDomain = EmailValidator.getDomain(ownerEmail);
+        emailDomainCodes[index] = emailDomains.encode(emailDomain);
+        if (emailDomain != null && ownerEmail.endsWith(emailDomain)) {
+            ownerEmail = ownerEmail.substring(0, ownerEmail.length() - emailDomain.length() - 1);
+            splitEmails[index >>> 6] |= 1L << index;
+        }
+        if (domain.isWhoisPrivacy()) {
+            whoisPrivacy[index >>> 6] |= 1L << index;
+        }
+        if (domain.isAutoRenew()) {
+            autoRenew[index >>> 6] |= 1L << index;
+        }
+        stringOffsets[index] = appendStrings(domain.getDomain(), domain.getOwnerName(), ownerEmail);
+        size = index + 1;
+        return index;
+    }
+
+    /**
+     * Returns the number of domains in the store.
+     *
+     * @return the number of domains
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a new view positioned on a domain.
+     *
+     * @param index the index of the domain
+     * @return a view of the domain
+     */
+    public View view(int index) {
+        return new View(this).moveTo(index);
+    }
+
+    /**
+     * Creates a WebDomain with the data of a domain of the store.
+     *
+     * @param index the index of the domain
+     * @return a new WebDomain
+     */
+    public WebDomain toWebDomain(int index) {
+        View view = view(index);
+        return new WebDomain(view.getDomain(), view.getOwnerName(), view.getOwnerEmail(), view.getHostingProvider(),
+                view.getRegistrationDate(), view.getExpirationDate(), view.getMaxConcurrentUsers(),
+                view.isWhoisPrivacy(), view.isAutoRenew());
+    }
+
+    /**
+     * Returns the registration date of a domain as an epoch day, without creating a LocalDate.
+     *
+     * @param index the index of the domain
+     * @return the registration epoch day, or Long.MIN_VALUE if the domain has no registration date
+     */
+    public long getRegistrationEpochDay(int index) {
+        int day = registrationDays[checkIndex(index)];
+        return day == NO_DATE ? Long.MIN_VALUE : day;
+    }
+
+    /**
+     * Returns the expiration date of a domain as an epoch day, without creating a LocalDate.
+     *
+     * @param index the index of the domain
+     * @return the expiration epoch day, or Long.MIN_VALUE if the domain has no expiration date
+     */
+    public long getExpirationEpochDay(int index) {
+        int day = expirationDays[checkIndex(index)];
+        return day == NO_DATE ? Long.MIN_VALUE : day;
+    }
+
+    /**
+     * Returns the code of the hosting provider of a domain in the provider dictionary.
+     *
+     * @param index the index of the domain
+     * @return the provider code, or -1 if the domain has no hosting provider
+     */
+    public int getHostingProviderCode(int index) {
+        return providerCodes[checkIndex(index)];
+    }
+
+    /**
+     * Returns the code of a hosting provider, to filter the domains of the store without comparing Strings.
+     *
+     * @param provider the hosting provider
+     * @return the provider code, or -1 if no domain of the store has that provider
+     */
+    public int getHostingProviderCode(String provider) {
+        return providers.code(provider);
+    }
+
+    /**
+     * Returns the hosting provider with the given code.
+     *
+     * @param code the provider code
+     * @return the hosting provider, or null for -1
+     */
+    public String getHostingProvider(int code) {
+        return providers.decode(code);
+    }
+
+    /**
+     * Returns the number of distinct hosting providers.
+     *
+     * @return the number of providers in the dictionary
+     */
+    public int getHostingProviderCount() {
+        return providers.size();
+    }
+
+    /**
+     * Returns the code of the domain of the owner email of a domain in the email domain dictionary.
+     *
+     * @param index the index of the domain
+     * @return the email domain code, or -1 if the domain has no owner email
+     */
+    public int getEmailDomainCode(int index) {
+        return emailDomainCodes[checkIndex(index)];
+    }
+
+    /**
+     * Returns the email domain with the given code.
+     *
+     * @param code the email domain code
+     * @return the email domain, or null for -1
+     */
+    public String getEmailDomain(int code) {
+        return emailDomains.decode(code);
+    }
+
+    /**
+     * Returns the code of an email domain, to filter the domains of the store without comparing Strings.
+     *
+     * @param emailDomain the email domain, in lowercase
+     * @return the email domain code, or -1 if no owner email of the store has that domain
+     */
+    public int getEmailDomainCode(String emailDomain) {
+        return emailDomains.code(emailDomain);
+    }
+
+    /**
+     * Returns the number of distinct domains of the owner emails.
+     *
+     * @return the number of email domains in the dictionary
+     */
+    public int getEmailDomainCount() {
+        return emailDomains.size();
+    }
+
+    /**
+     * Returns the number of bytes allocated by the columns and the string pages, without the dictionaries.
+     *
+     * @return the memory used by the store in bytes
+     */
+    public long getMemoryUsage() {
+        long bytes = 4L * (registrationDays.length + expirationDays.length + maxConcurrentUsers.length
+                + providerCodes.length + emailDomainCodes.length)
+                + 8L * (stringOffsets.length + whoisPrivacy.length + autoRenew.length + splitEmails.length);
+        for (byte[] page : pages) {
+            if (page != null) {
+                bytes += page.length;
+            }
+        }
+        return bytes;
+    }
+
+    private void grow() {
+        int capacity = registrationDays.length;
+        int grown = capacity + Math.max(16, capacity >> 1);
+        if (grown < 0) {
+            grown = Integer.MAX_VALUE - 8;
+        }
+        registrationDays = Arrays.copyOf(registrationDays, grown);
+        expirationDays = Arrays.copyOf(expirationDays, grown);
+        maxConcurrentUsers = Arrays.copyOf(maxConcurrentUsers, grown);
+        providerCodes = Arrays.copyOf(providerCodes, grown);
+        emailDomainCodes = Arrays.copyOf(emailDomainCodes, grown);
+        stringOffsets = Arrays.copyOf(stringOffsets, grown);
+        whoisPrivacy = Arrays.copyOf(whoisPrivacy, (grown + 63) >>> 6);
+        autoRenew = Arrays.copyOf(autoRenew, (grown + 63) >>> 6);
+        splitEmails = Arrays.copyOf(splitEmails, (grown + 63) >>> 6);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("[ERROR] Invalid domain index " + index + ".");
+        }
+        return index;
+    }
+
+    private static int toEpochDay(LocalDate date) {
+        if (date == null) {
+            return NO_DATE;
+        }
+        return Math.toIntExact(date.toEpochDay());
+    }
+
+    private static LocalDate toDate(int epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Writes the three strings one after the other in the current page, or in a new one if they do not fit.
+     * Every string is preceded by its length plus one as a variable-length integer, with 0 standing for null.
+     */
+    private long appendStrings(String first, String second, String third) {
+        byte[] firstBytes = first == null ? null : first.getBytes(StandardCharsets.UTF_8);
+        byte[] secondBytes = second == null ? null : second.getBytes(StandardCharsets.UTF_8);
+        byte[] thirdBytes = third == null ? null : third.getBytes(StandardCharsets.UTF_8);
+        int length = encodedLength(firstBytes) + encodedLength(secondBytes) + encodedLength(thirdBytes);
+        if (length > PAGE_SIZE) {
+            throw new IllegalArgumentException("[ERROR] The domain strings do not fit in a page of the store.");
+        }
+        int page = (int) (heapEnd >>> PAGE_BITS);
+        int position = (int) (heapEnd & (PAGE_SIZE - 1));
+        if (position + length > PAGE_SIZE) {
+            page++;
+            position = 0;
+        }
+        if (page == pages.length) {
+            pages = Arrays.copyOf(pages, pages.length * 2);
+        }
+        if (pages[page] == null) {
+            pages[page] = new byte[PAGE_SIZE];
+        }
+        long offset = ((long) page << PAGE_BITS) | position;
+        byte[] bytes = pages[page];
+        position = write(bytes, position, firstBytes);
+        position = write(bytes, position, secondBytes);
+        position = write(bytes, position, thirdBytes);
+        heapEnd = ((long) page << PAGE_BITS) + position;
+        return offset;
+    }
+
+    private static int encodedLength(byte[] bytes) {
+        int length = bytes == null ? 0 : bytes.length;
+        int prefix = 1;
+        for (int value = (length + 1) >>> 7; value != 0; value >>>= 7) {
+            prefix++;
+        }
+        return prefix + length;
+    }
+
+    private static int write(byte[] page, int position, byte[] bytes) {
+        int value = bytes == null ? 0 : bytes.length + 1;
+        while ((value & ~0x7F) != 0) {
+            page[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        page[position++] = (byte) value;
+        if (bytes != null) {
+            System.arraycopy(bytes, 0, page, position, bytes.length);
+            position += bytes.length;
+        }
+        return position;
+    }
+
+    /**
+     * Decodes the string in the given position (0 for the domain name, 1 for the owner name and 2 for the email)
+     * of a domain.
+     */
+    private String readString(int index, int field) {
+        long offset = stringOffsets[index];
+        byte[] page = pages[(int) (offset >>> PAGE_BITS)];
+        int position = (int) (offset & (PAGE_SIZE - 1));
+        for (int i = 0; ; i++) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = page[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int length = value - 1;
+            if (i == field) {
+                return length < 0 ? null : new String(page, position, length, StandardCharsets.UTF_8);
+            }
+            position += Math.max(length, 0);
+        }
+    }
+
+    /**
+     * Flyweight view of one domain of a {@link ColumnarDomainStore}. A view can be moved to another domain, so a
+     * single one can scan the whole store; it only creates objects when a String or LocalDate is requested.
+     */
+    public static final class View implements DomainRecord {
+        private final ColumnarDomainStore store;
+        private int index;
+
+        private View(ColumnarDomainStore store) {
+            this.store = store;
+        }
+
+        /**
+         * Positions the view on another domain of the store.
+         *
+         * @param index the index of the domain
+         * @return this view
+         */
+        public View moveTo(int index) {
+            this.index = store.checkIndex(index);
+            return this;
+        }
+
+        /**
+         * Returns the index of the domain the view is positioned on.
+         *
+         * @return the index of the domain
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public String getDomain() {
+            return store.readString(index, 0);
+        }
+
+        public String getOwnerName() {
+            return store.readString(index, 1);
+        }
+
+        public String getOwnerEmail() {
+            String ownerEmail = store.readString(index, 2);
+            if ((store.splitEmails[index >>> 6] & (1L << index)) != 0) {
+                return ownerEmail + '@' + store.emailDomains.decode(store.emailDomainCodes[index]);
+            }
+            return ownerEmail;
+        }
+
+        public String getHostingProvider() {
+            return store.getHostingProvider(store.providerCodes[index]);
+        }
+
+        public LocalDate getRegistrationDate() {
+            return toDate(store.registrationDays[index]);
+        }
+
+        public LocalDate getExpirationDate() {
+            return toDate(store.expirationDays[index]);
+        }
+
+        public int getMaxConcurrentUsers() {
+            return store.maxConcurrentUsers[index];
+        }
+
+        public boolean isWhoisPrivacy() {
+            return (store.whoisPrivacy[index >>> 6] & (1L << index)) != 0;
+        }
+
+        public boolean isAutoRenew() {
+            return (store.autoRenew[index >>> 6] & (1L << index)) != 0;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package edu.uoc.pac2;
+
+/**
+ * Usage status of a domain, from the share of its maximum concurrent users that are connected.
+ * The thresholds are whole percentages compared in integer arithmetic, so computing a status never divides or
+ * allocates.
+ */
+public enum ConcurrencyStatus {
+    /** Less than 20% of the maximum concurrent users. */
+    LOW("Low", 20),
+    /** From 20% to less than 80% of the maximum concurrent users. */
+    AVERAGE("Average", 80),
+    /** 80% of the maximum concurrent users or more. */
+    HIGH("High", Integer.MAX_VALUE);
+
+    private final String label;
+    private final int upperPercentage;
+
+    ConcurrencyStatus(String label, int upperPercentage) {
+        this.label = label;
+        this.upperPercentage = upperPercentage;
+    }
+
+    /**
+     * Returns the status for a number of concurrent users. Numbers above the maximum are {@link #HIGH} and negative
+     * numbers are {@link #LOW}.
+     *
+     * @param currentUsers the number of concurrent users
+     * @param maxUsers the maximum number of concurrent users of the domain
+     * @return the usage status
+     */
+    public static ConcurrencyStatus of(long currentUsers, int maxUsers) {
+        // Clamped so that the product below cannot overflow
+        long users = Math.max(0, Math.min(currentUsers, Math.max(maxUsers, 0) + 1L)) * 100;
+        if (users < (long) LOW.upperPercentage * maxUsers) {
+            return LOW;
+        }
+        if (users < (long) AVERAGE.upperPercentage * maxUsers) {
+            return AVERAGE;
+        }
+        return HIGH;
+    }
+
+    /**
+     * Returns the label of the status, as returned by {@link WebDomain#domainConcurrenceStatus(int)}.
+     *
+     * @return "Low", "Average" or "High"
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Returns the percentage of the maximum concurrent users below which the status applies.
+     *
+     * @return the upper bound of the status, excluded, or {@link Integer#MAX_VALUE} for {@link #HIGH}
+     */
+    public int getUpperPercentage() {
+        return upperPercentage;
+    }
+}
@@ -0,0 +1,136 @@
+package edu.uoc.pac2;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe tracker of the users connected to each domain, which gives the live {@link ConcurrencyStatus} of a
+ * domain without the caller knowing its number of users.
+ * Every domain has a {@link Counter} backed by a {@link LongAdder}, which spreads concurrent updates over
+ * several cells instead of making every thread compete for one value, so sessions of the same domain opened and
+ * closed from many threads never contend or lock. Hot paths should keep the counter of their domain and call it
+ * directly, which also avoids looking it up. Reading the status adds the cells up without locking, so it may miss
+ * the updates made while it runs. Domains are compared by identity.
+ */
+public final class ConcurrentUserTracker {
+    private final ConcurrentHashMap<WebDomain, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the counter of a domain, creating it with no users if there is none.
+     *
+     * @param domain the domain
+     * @return the counter of the domain
+     */
+    public Counter counter(WebDomain domain) {
+        if (domain == null) {
+            throw new IllegalArgumentException("[ERROR] The domain cannot be null.");
+        }
+        Counter counter = counters.get(domain);
+        return counter != null ? counter : counters.computeIfAbsent(domain, Counter::new);
+    }
+
+    /**
+     * Records that a user has connected to a domain.
+     *
+     * @param domain the domain
+     */
+    public void enter(WebDomain domain) {
+        counter(domain).enter();
+    }
+
+    /**
+     * Records that a user has disconnected from a domain.
+     *
+     * @param domain the domain
+     */
+    public void exit(WebDomain domain) {
+        counter(domain).exit();
+    }
+
+    /**
+     * Returns the number of users connected to a domain.
+     *
+     * @param domain the domain
+     * @return the number of connected users, 0 if none has connected
+     */
+    public long getCurrentUsers(WebDomain domain) {
+        Counter counter = counters.get(domain);
+        return counter == null ? 0 : counter.getCurrentUsers();
+    }
+
+    /**
+     * Returns the usage status of a domain from its connected users and its maximum concurrent users.
+     *
+     * @param domain the domain
+     * @return the usage status of the domain
+     */
+    public ConcurrencyStatus getStatus(WebDomain domain) {
+        Counter counter = counters.get(domain);
+        return counter == null ? ConcurrencyStatus.of(0, domain.getMaxConcurrentUsers()) : counter.getStatus();
+    }
+
+    /**
+     * Stops tracking a domain, such as one that has been removed from its registry.
+     *
+     * @param domain the domain
+     * @return true if the domain was tracked, false otherwise
+     */
+    public boolean remove(WebDomain domain) {
+        return domain != null && counters.remove(domain) != null;
+    }
+
+    /**
+     * Live count of the users connected to one domain.
+     */
+    public static final class Counter {
+        private final WebDomain domain;
+        private final LongAdder users = new LongAdder();
+
+        private Counter(WebDomain domain) {
+            this.domain = domain;
+        }
+
+        /**
+         * Records that a user has connected.
+         */
+        public void enter() {
+            users.increment();
+        }
+
+        /**
+         * Records that a user has disconnected. Every call must follow a call to {@link #enter()}; the counter does
+         * not check it, as that would make every update read the total.
+         */
+        public void exit() {
+            users.decrement();
+        }
+
+        /**
+         * Returns the number of connected users.
+         *
+         * @return the number of users, never negative
+         */
+        public long getCurrentUsers() {
+            return Math.max(0, users.sum());
+        }
+
+        /**
+         * Returns the usage status from the connected users and the maximum concurrent users of the domain.
+         * More users than the maximum are {@link ConcurrencyStatus#HIGH}.
+         *
+         * @return the usage status
+         */
+        public ConcurrencyStatus getStatus() {
+            return ConcurrencyStatus.of(getCurrentUsers(), domain.getMaxConcurrentUsers());
+        }
+
+        /**
+         * Returns the domain whose users are counted.
+         *
+         * @return the domain
+         */
+        public WebDomain getDomain() {
+            return domain;
+        }
+    }
+}
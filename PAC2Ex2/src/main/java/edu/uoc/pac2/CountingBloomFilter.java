@@ -0,0 +1,170 @@
+package edu.uoc.pac2;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe counting Bloom filter of domain names, which tells in constant time that a name is definitely not in a
+ * set, or that it might be.
+ * Every name sets k of m counters, picked by double hashing of its characters, ignoring case as
+ * {@link DomainValidator#normalize(CharSequence)} does, so names are never lowercased or copied. The counters have 4
+ * bits and are packed 16 per long in an {@link AtomicLongArray}, so adding and removing names never locks, and they
+ * support removals as long as only names that were added are removed. A counter that reaches 15 sticks there, as
+ * its true count is lost, which can only raise the false positive rate; building a new filter resets it.
+ * The filter keeps its false positive rate up to the expected number of names and degrades beyond it, so it should
+ * be rebuilt when the set outgrows it.
+ */
+public final class CountingBloomFilter {
+    private static final int COUNTER_BITS = 4;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+    private static final int COUNTERS_PER_LONG = Long.SIZE / COUNTER_BITS;
+    private static final long MAX_COUNTERS = 1L << 34;
+
+    private final int expectedSize;
+    private final double falsePositiveRate;
+    private final int hashes;
+    private final long counterMask;
+    private final AtomicLongArray counters;
+
+    /**
+     * Creates an empty filter.
+     *
+     * @param expectedSize the number of names the filter is expected to hold
+     * @param falsePositiveRate the rate of names not added for which {@link #mightContain(CharSequence)} returns
+     *                          true, between 0 and 1 excluded, when the filter holds the expected number of names
+     */
+    public CountingBloomFilter(int expectedSize, double falsePositiveRate) {
+        if (expectedSize <= 0) {
+            throw new IllegalArgumentException("[ERROR] The expected size must be positive.");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("[ERROR] The false positive rate must be between 0 and 1.");
+        }
+        double ln2 = Math.log(2);
+        double bits = -expectedSize * Math.log(falsePositiveRate) / (ln2 * ln2);
+        long capacity = COUNTERS_PER_LONG;
+        while (capacity < bits) {
+            capacity <<= 1;
+        }
+        if (capacity > MAX_COUNTERS) {
+            throw new IllegalArgumentException("[ERROR] The filter would need more than " + MAX_COUNTERS
+                    + " counters.");
+        }
+        this.expectedSize = expectedSize;
+        this.falsePositiveRate = falsePositiveRate;
+        this.hashes = Math.max(1, (int) Math.round(capacity / (double) expectedSize * ln2));
+        this.counterMask = capacity - 1;
+        this.counters = new AtomicLongArray((int) (capacity / COUNTERS_PER_LONG));
+    }
+
+    /**
+     * Adds a name to the filter. A name added several times must be removed as many times.
+     *
+     * @param domain the domain name, in any case
+     */
+    public void add(CharSequence domain) {
+        long hash = hash(domain);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            increment((first + (long) i * second) & counterMask);
+        }
+    }
+
+    /**
+     * Removes a name from the filter. Only names that were added can be removed; removing any other name may
+     * make the filter forget names that were added.
+     *
+     * @param domain the domain name, in any case
+     */
+    public void remove(CharSequence domain) {
+        long hash = hash(domain);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            decrement((first + (long) i * second) & counterMask);
+        }
+    }
+
+    /**
+     * Checks whether a name might have been added to the filter.
+     *
+     * @param domain the domain name, in any case
+     * @return false if the name was definitely not added or is null, true if it might have been
+     */
+    public boolean mightContain(CharSequence domain) {
+        if (domain == null) {
+            return false;
+        }
+        long hash = hash(domain);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            if (counter((first + (long) i * second) & counterMask) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of names the filter was sized for.
+     *
+     * @return the expected number of names
+     */
+    public int getExpectedSize() {
+        return expectedSize;
+    }
+
+    /**
+     * Returns the false positive rate the filter was sized for.
+     *
+     * @return the false positive rate at the expected number of names
+     */
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    private long counter(long counter) {
+        int shift = (int) (counter % COUNTERS_PER_LONG) * COUNTER_BITS;
+        return (counters.get((int) (counter / COUNTERS_PER_LONG)) >>> shift) & COUNTER_MASK;
+    }
+
+    private void increment(long counter) {
+        int index = (int) (counter / COUNTERS_PER_LONG);
+        int shift = (int) (counter % COUNTERS_PER_LONG) * COUNTER_BITS;
+        long current;
+        do {
+            current = counters.get(index);
+            if (((current >>> shift) & COUNTER_MASK) == COUNTER_MASK) {
+                return;
+            }
+        } while (!counters.compareAndSet(index, current, current + (1L << shift)));
+    }
+
+    private void decrement(long counter) {
+        int index = (int) (counter / COUNTERS_PER_LONG);
+        int shift = (int) (counter % COUNTERS_PER_LONG) * COUNTER_BITS;
+        long current;
+        do {
+            current = counters.get(index);
+            long value = (current >>> shift) & COUNTER_MASK;
+            // A saturated counter has lost its count, and an empty one cannot hold the name
+            if (value == COUNTER_MASK || value == 0) {
+                return;
+            }
+        } while (!counters.compareAndSet(index, current, current - (1L << shift)));
+    }
+
+    /**
+     * Returns a 64-bit FNV-1a hash of the lowercase characters of the name, with its bits mixed.
+     */
+    private static long hash(CharSequence domain) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < domain.length(); i++) {
+            hash = (hash ^ DomainValidator.toLowerCase(domain.charAt(i))) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        return hash ^ (hash >>> 33);
+    }
+}
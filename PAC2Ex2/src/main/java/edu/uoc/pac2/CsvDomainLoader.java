@@ -0,0 +1,509 @@
+package edu.uoc.pac2;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Loads domains from CSV files with the columns domain, owner name, owner email, hosting provider, registration
+ * date, expiration date, maximum concurrent users, WHOIS privacy and auto-renew. Dates are written as yyyy-MM-dd
+ * and booleans as true or false. Fields may be quoted as in RFC 4180, and a first row whose first field is
+ * "domain" is taken as a header and skipped.
+ * The file is read through a {@link FileChannel} in chunks of 1 MiB and split into rows on the bytes, without
+ * decoding the chunk first. Batches of rows are validated in a {@link ForkJoinPool} through the setters of
+ * {@link WebDomain}, so the same rules apply as when domains are created by hand, and the results are delivered
+ * in the order of the file on the calling thread. At most two batches per worker are in flight, so the memory used
+ * does not depend on the size of the file, only on the length of its longest row.
+ */
+public final class CsvDomainLoader {
+    private static final int FIELDS = 9;
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int BATCH_ROWS = 1024;
+    private static final int BATCH_BYTES = 1 << 18;
+    // Days from 0000-01-01 to 1970-01-01, as in LocalDate
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+    private static final byte[] HEADER = "domain".getBytes(StandardCharsets.US_ASCII);
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a loader that validates the rows in the common pool.
+     */
+    public CsvDomainLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a loader that validates the rows in the given pool.
+     *
+     * @param pool the pool validating the rows
+     */
+    public CsvDomainLoader(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("[ERROR] The pool cannot be null.");
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Loads the domains of a file and passes the valid ones to a consumer, in the order of the file.
+     *
+     * @param file the CSV file
+     * @param consumer the consumer of the valid domains
+     * @param errors the handler of the rejected rows
+     * @return the number of domains passed to the consumer
+     * @throws IOException if the file cannot be read
+     */
+    public long load(Path file, Consumer<? super WebDomain> consumer, CsvErrorHandler errors) throws IOException {
+        return load(file, (line, domain) -> {
+            consumer.accept(domain);
+            return true;
+        }, errors);
+    }
+
+    /**
+     * Loads the domains of a file into a registry. A domain whose name is already registered is rejected.
+     *
+     * @param file the CSV file
+     * @param registry the registry receiving the domains
+     * @param errors the handler of the rejected rows
+     * @return the number of domains registered
+     * @throws IOException if the file cannot be read
+     */
+    public long load(Path file, DomainRegistry registry, CsvErrorHandler errors) throws IOException {
+        return load(file, (line, domain) -> {
+            try {
+                if (registry.register(domain) == null) {
+                    return true;
+                }
+                errors.rowRejected(line, new IllegalArgumentException(
+                        "[ERROR] The domain " + domain.getDomain() + " is already registered."));
+            } catch (DomainValidationException e) {
+                errors.rowRejected(line, e);
+            }
+            return false;
+        }, errors);
+    }
+
+    private long load(Path file, Sink sink, CsvErrorHandler errors) throws IOException {
+        if (errors == null) {
+            throw new IllegalArgumentException("[ERROR] The error handler cannot be null.");
+        }
+        Deque<Future<Result>> pending = new ArrayDeque<>();
+        int maxPending = 2 * pool.getParallelism();
+        long loaded = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Parser parser = new Parser(channel);
+            boolean first = true;
+            Batch batch = new Batch();
+            while (parser.next(batch)) {
+                if (first) {
+                    first = false;
+                    if (batch.isHeader(batch.rows - 1)) {
+                        batch.rows--;
+                        batch.length = 0;
+                        batch.fields = 0;
+                    }
+                }
+                if (batch.rows == BATCH_ROWS || batch.length >= BATCH_BYTES) {
+                    if (pending.size() == maxPending) {
+                        loaded += deliver(pending.poll(), sink, errors);
+                    }
+                    Batch submitted = batch;
+                    pending.add(pool.submit(() -> validate(submitted)));
+                    batch = new Batch();
+                }
+            }
+            if (batch.rows > 0) {
+                Batch submitted = batch;
+                pending.add(pool.submit(() -> validate(submitted)));
+            }
+            while (!pending.isEmpty()) {
+                loaded += deliver(pending.poll(), sink, errors);
+            }
+            return loaded;
+        } finally {
+            for (Future<Result> future : pending) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private static long deliver(Future<Result> future, Sink sink, CsvErrorHandler errors) throws IOException {
+        Result result;
+        try {
+            result = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("[ERROR] The load was interrupted.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+        long loaded = 0;
+        for (int i = 0; i < result.domains.length; i++) {
+            if (result.domains[i] != null) {
+                if (sink.accept(result.lines[i], result.domains[i])) {
+                    loaded++;
+                }
+            } else {
+                errors.rowRejected(result.lines[i], result.errors[i]);
+            }
+        }
+        return loaded;
+    }
+
+    private static Result validate(Batch batch) {
+        Result result = new Result(batch.rows);
+        for (int row = 0; row < batch.rows; row++) {
+            result.lines[row] = batch.lines[row];
+            try {
+                result.domains[row] = parse(batch, row);
+            } catch (Exception e) {
+                result.errors[row] = e;
+            }
+        }
+        return result;
+    }
+
+    private static WebDomain parse(Batch batch, int row) throws Exception {
+        int count = batch.fieldCounts[row];
+        if (count != FIELDS) {
+            throw new IllegalArgumentException("[ERROR] Expected " + FIELDS + " fields but found " + count + ".");
+        }
+        int field = batch.firstFields[row];
+        WebDomain domain = new WebDomain(null, null, null, null, null, null, 0, false, false);
+        domain.setDomain(batch.string(field));
+        domain.setOwnerName(batch.string(field + 1));
+        domain.setOwnerEmail(batch.string(field + 2));
+        domain.setHostingProvider(batch.string(field + 3));
+        domain.setRegistrationDate(batch.date(field + 4, ValidationRule.REGISTRATION_DATE));
+        domain.setExpirationDate(batch.date(field + 5, ValidationRule.EXPIRATION_DATE));
+        domain.setMaxConcurrentUsers(batch.integer(field + 6, ValidationRule.MAX_CONCURRENT_USERS));
+        domain.setWhoisPrivacy(batch.bool(field + 7));
+        domain.setAutoRenew(batch.bool(field + 8));
+        return domain;
+    }
+
+    @FunctionalInterface
+    private interface Sink {
+        boolean accept(long line, WebDomain domain);
+    }
+
+    /**
+     * Splits the bytes of the file into rows, copying the unquoted content of their fields into a batch.
+     */
+    private static final class Parser {
+        private final FileChannel channel;
+        private byte[] buffer = new byte[CHUNK_SIZE];
+        private int position;
+        private int limit;
+        private boolean eof;
+        private boolean started;
+        private long line = 1;
+
+        private Parser(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Adds the next row that is not blank to the batch.
+         *
+         * @return false if the end of the file has been reached
+         */
+        private boolean next(Batch batch) throws IOException {
+            while (true) {
+                if (position == limit && eof) {
+                    return false;
+                }
+                int length = batch.length;
+                int fields = batch.fields;
+                long rowLine = line;
+                int end = position < limit || eof ? parseRow(batch) : -1;
+                if (end < 0) {
+                    // The row goes on in the next chunk, so it is parsed again once it is read
+                    batch.length = length;
+                    batch.fields = fields;
+                    line = rowLine;
+                    fill();
+                    continue;
+                }
+                position = end;
+                int count = batch.fields - fields;
+                if (count == 1 && batch.length == length) {
+                    batch.fields = fields;
+                    continue;
+                }
+                batch.addRow(rowLine, fields, count);
+                return true;
+            }
+        }
+
+        private void fill() throws IOException {
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                limit -= position;
+                position = 0;
+            }
+            if (limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+            if (!started && (limit >= 3 || eof)) {
+                started = true;
+                if (limit >= 3 && buffer[0] == (byte) 0xEF && buffer[1] == (byte) 0xBB && buffer[2] == (byte) 0xBF) {
+                    position = 3;
+                }
+            }
+        }
+
+        /**
+         * Parses the row starting at the current position and returns the position after it, or -1 if the row
+         * is not complete in the buffer.
+         */
+        private int parseRow(Batch batch) {
+            if (!started) {
+                return -1;
+            }
+            int p = position;
+            while (true) {
+                int start = batch.length;
+                if (p < limit && buffer[p] == '"') {
+                    p++;
+                    while (true) {
+                        if (p == limit) {
+                            if (!eof) {
+                                return -1;
+                            }
+                            break;
+                        }
+                        byte b = buffer[p];
+                        if (b == '"') {
+                            if (p + 1 == limit && !eof) {
+                                return -1;
+                            }
+                            if (p + 1 < limit && buffer[p + 1] == '"') {
+                                batch.append(b);
+                                p += 2;
+                                continue;
+                            }
+                            p++;
+                            break;
+                        }
+                        if (b == '\n') {
+                            line++;
+                        }
+                        batch.append(b);
+                        p++;
+                    }
+                }
+                while (p < limit && buffer[p] != ',' && buffer[p] != '\n' && buffer[p] != '\r') {
+                    batch.append(buffer[p++]);
+                }
+                if (p == limit && !eof) {
+                    return -1;
+                }
+                batch.addField(start);
+                if (p == limit) {
+                    return p;
+                }
+                byte b = buffer[p++];
+                if (b == ',') {
+                    continue;
+                }
+                if (b == '\r') {
+                    if (p == limit && !eof) {
+                        return -1;
+                    }
+                    if (p < limit && buffer[p] == '\n') {
+                        p++;
+                    }
+                }
+                line++;
+                return p;
+            }
+        }
+    }
+
+    /**
+     * Rows copied from the file: the content of every field is stored in a shared byte array, delimited by the
+     * offsets of the fields.
+     */
+    private static final class Batch {
+        private byte[] bytes = new byte[BATCH_BYTES + (BATCH_BYTES >> 2)];
+        private int length;
+        private int[] fieldEnds = new int[BATCH_ROWS * FIELDS];
+        private int[] fieldStarts = new int[BATCH_ROWS * FIELDS];
+        private int fields;
+        private final long[] lines = new long[BATCH_ROWS];
+        private final int[] firstFields = new int[BATCH_ROWS];
+        private final int[] fieldCounts = new int[BATCH_ROWS];
+        private int rows;
+
+        private void append(byte b) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = b;
+        }
+
+        private void addField(int start) {
+            if (fields == fieldStarts.length) {
+                fieldStarts = Arrays.copyOf(fieldStarts, fields * 2);
+                fieldEnds = Arrays.copyOf(fieldEnds, fields * 2);
+            }
+            fieldStarts[fields] = start;
+            fieldEnds[fields] = length;
+            fields++;
+        }
+
+        private void addRow(long line, int firstField, int count) {
+            lines[rows] = line;
+            firstFields[rows] = firstField;
+            fieldCounts[rows] = count;
+            rows++;
+        }
+
+        private boolean isHeader(int row) {
+            int field = firstFields[row];
+            int start = fieldStarts[field];
+            if (fieldEnds[field] - start != HEADER.length) {
+                return false;
+            }
+            for (int i = 0; i < HEADER.length; i++) {
+                if ((bytes[start + i] | 0x20) != HEADER[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String string(int field) {
+            return new String(bytes, fieldStarts[field], fieldEnds[field] - fieldStarts[field],
+                    StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Parses a yyyy-MM-dd date straight to its epoch day, throwing the exception of the rule if it is invalid.
+         * An empty field is a null date.
+         */
+        private LocalDate date(int field, ValidationRule rule) throws DomainValidationException {
+            int start = fieldStarts[field];
+            int length = fieldEnds[field] - start;
+            if (length == 0) {
+                return null;
+            }
+            if (length != 10 || bytes[start + 4] != '-' || bytes[start + 7] != '-') {
+                throw rule.getException();
+            }
+            int year = digits(start, 4, rule);
+            int month = digits(start + 5, 2, rule);
+            int day = digits(start + 8, 2, rule);
+            boolean leap = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+            if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(month, leap)) {
+                throw rule.getException();
+            }
+            long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400
+                    + (367 * month - 362) / 12 + day - 1;
+            if (month > 2) {
+                total -= leap ? 1 : 2;
+            }
+            return LocalDate.ofEpochDay(total - DAYS_0000_TO_1970);
+        }
+
+        private int integer(int field, ValidationRule rule) throws DomainValidationException {
+            int start = fieldStarts[field];
+            int end = fieldEnds[field];
+            boolean negative = end > start && bytes[start] == '-';
+            int p = negative ? start + 1 : start;
+            if (p == end) {
+                throw rule.getException();
+            }
+            long value = 0;
+            for (; p < end; p++) {
+                int digit = bytes[p] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw rule.getException();
+                }
+                value = value * 10 + digit;
+                if (value > Integer.MAX_VALUE + 1L) {
+                    throw rule.getException();
+                }
+            }
+            value = negative ? -value : value;
+            if (value > Integer.MAX_VALUE) {
+                throw rule.getException();
+            }
+            return (int) value;
+        }
+
+        private boolean bool(int field) {
+            String value = string(field);
+            if (value.equalsIgnoreCase("true")) {
+                return true;
+            }
+            if (value.equalsIgnoreCase("false")) {
+                return false;
+            }
+            throw new IllegalArgumentException("[ERROR] Invalid boolean value " + value + ".");
+        }
+
+        private int digits(int start, int count, ValidationRule rule) throws DomainValidationException {
+            int value = 0;
+            for (int i = start; i < start + count; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw rule.getException();
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        private static int lengthOfMonth(int month, boolean leap) {
+            switch (month) {
+                case 2:
+                    return leap ? 29 : 28;
+                case 4:
+                case 6:
+                case 9:
+                case 11:
+                    return 30;
+                default:
+                    return 31;
+            }
+        }
+    }
+
+    private static final class Result {
+        private final WebDomain[] domains;
+        private final Exception[] errors;
+        private final long[] lines;
+
+        private Result(int rows) {
+            domains = new WebDomain[rows];
+            errors = new Exception[rows];
+            lines = new long[rows];
+        }
+    }
+}
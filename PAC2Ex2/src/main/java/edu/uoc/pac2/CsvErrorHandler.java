@@ -0,0 +1,18 @@
+package edu.uoc.pac2;
+
+/**
+ * Receives the rows rejected by a {@link CsvDomainLoader}.
+ * The handler is called on the thread that runs the load, in the order of the rows in the file.
+ */
+@FunctionalInterface
+public interface CsvErrorHandler {
+
+    /**
+     * Called when a row cannot be loaded.
+     *
+     * @param line the number of the line where the row starts, from 1
+     * @param error the reason why the row was rejected, a {@link DomainValidationException} when a value breaks a
+     *              validation rule of {@link WebDomain}
+     */
+    void rowRejected(long line, Exception error);
+}
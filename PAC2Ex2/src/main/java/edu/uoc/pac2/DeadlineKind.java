@@ -0,0 +1,11 @@
+package edu.uoc.pac2;
+
+/**
+ * Kinds of deadline scheduled in a {@link DomainTimingWheel}.
+ */
+public enum DeadlineKind {
+    /** The domain expires and is not renewed automatically. */
+    EXPIRY,
+    /** The domain reaches its expiration date and has to be renewed automatically. */
+    AUTO_RENEW
+}
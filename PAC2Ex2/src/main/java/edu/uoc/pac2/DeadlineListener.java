@@ -0,0 +1,20 @@
+package edu.uoc.pac2;
+
+import java.util.List;
+
+/**
+ * Receives the deadlines fired by a {@link DomainTimingWheel}, in one batch per day and kind.
+ */
+@FunctionalInterface
+public interface DeadlineListener {
+
+    /**
+     * Called with the deadlines of one kind that are due on a day. The deadlines of earlier days have already
+     * been delivered.
+     *
+     * @param epochDay the day of the deadlines, as a number of days since 1970-01-01
+     * @param kind the kind of the deadlines
+     * @param domains the domains whose deadlines are due
+     */
+    void fired(long epochDay, DeadlineKind kind, List<WebDomain> domains);
+}
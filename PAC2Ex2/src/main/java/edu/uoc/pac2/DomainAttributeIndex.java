@@ -0,0 +1,190 @@
+package edu.uoc.pac2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Index of domains by the value of one of their text fields, the owner email or the hosting provider, answering
+ * "all the domains of x" in time proportional to the number of domains returned.
+ * Every value has a posting list of its domains, and the lists are kept in a {@link ConcurrentHashMap}, so
+ * lookups only lock the list they read and changes only the lists of the old and the new value. Empty lists are
+ * removed. The index follows the changes of the setter of its field once it is attached to a
+ * {@link DomainRegistry} or registered in {@link WebDomainEvents}. Domains without value are kept in a list of
+ * their own, so that they are indexed when they get one, but never returned.
+ */
+public final class DomainAttributeIndex implements DomainIndex {
+    private final DomainField field;
+    private final Function<WebDomain, String> getter;
+    private final Function<String, String> normalizer;
+    private final ConcurrentHashMap<String, Posting> postings = new ConcurrentHashMap<>();
+    private final Posting withoutValue = new Posting();
+
+    private DomainAttributeIndex(DomainField field, Function<WebDomain, String> getter,
+                                 Function<String, String> normalizer) {
+        this.field = field;
+        this.getter = getter;
+        this.normalizer = normalizer;
+    }
+
+    /**
+     * Creates an index of domains by owner email, ignoring case.
+     *
+     * @return an empty index following {@link WebDomain#setOwnerEmail(String)}
+     */
+    public static DomainAttributeIndex byOwnerEmail() {
+        return new DomainAttributeIndex(DomainField.OWNER_EMAIL, WebDomain::getOwnerEmail,
+                email -> email.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Creates an index of domains by hosting provider, ignoring leading and trailing spaces as
+     * {@link WebDomain#setHostingProvider(String)} does.
+     *
+     * @return an empty index following {@link WebDomain#setHostingProvider(String)}
+     */
+    public static DomainAttributeIndex byHostingProvider() {
+        return new DomainAttributeIndex(DomainField.HOSTING_PROVIDER, WebDomain::getHostingProvider, String::trim);
+    }
+
+    /**
+     * Returns the field whose values are indexed.
+     *
+     * @return the indexed field
+     */
+    public DomainField getField() {
+        return field;
+    }
+
+    /**
+     * Adds a domain to the posting list of its current value.
+     *
+     * @param domain the domain to index
+     */
+    @Override
+    public void add(WebDomain domain) {
+        insert(getter.apply(domain), domain);
+    }
+
+    /**
+     * Removes a domain from the posting list of its current value.
+     *
+     * @param domain the domain to remove
+     */
+    @Override
+    public void remove(WebDomain domain) {
+        delete(getter.apply(domain), domain);
+    }
+
+    /**
+     * Moves an indexed domain when the value of the indexed field changes.
+     *
+     * @param domain the changed domain
+     * @param field the field that has been set
+     * @param previous the value of the field before the change
+     */
+    @Override
+    public void changed(WebDomain domain, DomainField field, Object previous) {
+        if (field == this.field && delete((String) previous, domain)) {
+            insert(getter.apply(domain), domain);
+        }
+    }
+
+    /**
+     * Returns the domains with the given value.
+     *
+     * @param value the owner email or hosting provider
+     * @return the domains with the value, in no particular order
+     */
+    public List<WebDomain> get(String value) {
+        Posting posting = posting(value);
+        if (posting == null) {
+            return new ArrayList<>();
+        }
+        synchronized (posting) {
+            return new ArrayList<>(posting.domains);
+        }
+    }
+
+    /**
+     * Returns the number of domains with the given value.
+     *
+     * @param value the owner email or hosting provider
+     * @return the number of domains with the value
+     */
+    public int count(String value) {
+        Posting posting = posting(value);
+        if (posting == null) {
+            return 0;
+        }
+        synchronized (posting) {
+            return posting.domains.size();
+        }
+    }
+
+    /**
+     * Returns the number of distinct values with at least one domain.
+     *
+     * @return the number of values
+     */
+    public int getValueCount() {
+        return postings.size();
+    }
+
+    private Posting posting(String value) {
+        return value == null ? null : postings.get(normalizer.apply(value));
+    }
+
+    private void insert(String value, WebDomain domain) {
+        if (value == null) {
+            synchronized (withoutValue) {
+                withoutValue.domains.add(domain);
+            }
+            return;
+        }
+        String key = normalizer.apply(value);
+        while (true) {
+            Posting posting = postings.computeIfAbsent(key, k -> new Posting());
+            synchronized (posting) {
+                if (!posting.dead) {
+                    posting.domains.add(domain);
+                    return;
+                }
+            }
+            // The list was emptied and removed meanwhile, so a new one is created on the next try
+        }
+    }
+
+    private boolean delete(String value, WebDomain domain) {
+        if (value == null) {
+            synchronized (withoutValue) {
+                return withoutValue.domains.remove(domain);
+            }
+        }
+        String key = normalizer.apply(value);
+        Posting posting = postings.get(key);
+        if (posting == null) {
+            return false;
+        }
+        synchronized (posting) {
+            if (!posting.domains.remove(domain)) {
+                return false;
+            }
+            if (posting.domains.isEmpty()) {
+                posting.dead = true;
+                postings.remove(key, posting);
+            }
+            return true;
+        }
+    }
+
+    private static final class Posting {
+        private final Set<WebDomain> domains = Collections.newSetFromMap(new IdentityHashMap<>());
+        private boolean dead;
+    }
+}
@@ -0,0 +1,16 @@
+package edu.uoc.pac2;
+
+/**
+ * Fields of {@link WebDomain} whose changes are notified to the {@link WebDomainListener}s.
+ */
+public enum DomainField {
+    DOMAIN,
+    OWNER_NAME,
+    OWNER_EMAIL,
+    HOSTING_PROVIDER,
+    REGISTRATION_DATE,
+    EXPIRATION_DATE,
+    MAX_CONCURRENT_USERS,
+    AUTO_RENEW,
+    WHOIS_PRIVACY
+}
@@ -0,0 +1,37 @@
+package edu.uoc.pac2;
+
+/**
+ * Secondary index over the domains of a {@link DomainRegistry}.
+ * Once added to a registry with {@link DomainRegistry#addIndex(DomainIndex)}, the index is told about every
+ * domain registered, replaced or removed, and about the changes made to the fields of the domains registered in
+ * that registry. Changes to other domains are not passed to it.
+ * The registry calls {@link #add(WebDomain)} and {@link #remove(WebDomain)} while it holds the lock of the domain,
+ * so those calls never run concurrently for the same domain, and {@link #flush()} once it has released it.
+ * {@link #changed(WebDomain, DomainField, Object)} is called by the setters, on the thread that sets the field, so
+ * it may run concurrently with any other call for the same domain when the domain is changed from several
+ * threads.
+ */
+public interface DomainIndex extends WebDomainListener {
+
+    /**
+     * Adds a domain to the index, or updates its entry if the domain is already indexed.
+     *
+     * @param domain the domain to index
+     */
+    void add(WebDomain domain);
+
+    /**
+     * Removes a domain from the index. Domains that are not indexed are ignored.
+     *
+     * @param domain the domain to remove
+     */
+    void remove(WebDomain domain);
+
+    /**
+     * Completes the changes passed to the index by the current thread. Indexes with work too slow to be done while
+     * the registry holds its locks, such as waiting for a disk, defer it to this method, which by default does
+     * nothing.
+     */
+    default void flush() {
+    }
+}
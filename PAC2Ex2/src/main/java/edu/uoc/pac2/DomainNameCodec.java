@@ -0,0 +1,250 @@
+package edu.uoc.pac2;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes domain names in primitive form, so that large lookup tables can key on longs instead of Strings.
+ * A domain name is a name of letters, digits and hyphens, a dot and an extension, as checked by
+ * {@link DomainValidator}, so every character fits in 6 bits: a-z are 1 to 26, 0-9 are 27 to 36, the hyphen is 37
+ * and the dot is 38, while 0 marks the end of the name.
+ * A packed name is a pair of longs. The 4 high bits of the low long hold the id of the extension when it is one of
+ * com, org, net, int, edu, gov or mil, and 0 otherwise. The characters follow, 10 per long from the most significant
+ * bits: only the name when the extension has an id, or the name, the dot and the extension when it has not. So
+ * names of up to 10 characters with a known extension fit in the low long, and the high long is 0, and names of up
+ * to 20 characters fit in both. The packed form is the same for every spelling of a name, ignoring case and
+ * trailing dots, and is never all zeros. Longer names fall back to their lowercase ASCII bytes.
+ * The codec only checks the format of the name; whether its extension is accepted is up to the caller.
+ */
+public final class DomainNameCodec {
+    /**
+     * Maximum number of characters packed in two longs.
+     */
+    public static final int MAX_PACKED_LENGTH = 20;
+
+    // The ids of the extensions are part of the packed form, so they must never change
+    private static final String[] EXTENSIONS = {"com", "org", "net", "int", "edu", "gov", "mil"};
+    private static final int CHARS_PER_LONG = 10;
+    private static final int BITS = 6;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int DOT = 38;
+    private static final char[] CHARS = "\0abcdefghijklmnopqrstuvwxyz0123456789-.".toCharArray();
+    private static final byte[] CODES = new byte[128];
+
+    static {
+        for (int code = 1; code < CHARS.length; code++) {
+            CODES[CHARS[code]] = (byte) code;
+            CODES[Character.toUpperCase(CHARS[code])] = (byte) code;
+        }
+    }
+
+    private DomainNameCodec() {
+    }
+
+    /**
+     * Packs a domain name in two longs.
+     *
+     * @param domain the domain name, in any case
+     * @param key the array receiving the low long at index 0 and the high long at index 1
+     * @return true if the name was packed, false if it has an invalid format or is too long to be packed, in which
+     * case the key is left unchanged
+     */
+    public static boolean pack(CharSequence domain, long[] key) {
+        if (domain == null) {
+            return false;
+        }
+        // Checks the format and packs the first characters in the same pass
+        int length = domain.length();
+        int dot = -1;
+        int extensionEnd = length;
+        long low = 0;
+        long high = 0;
+        for (int i = 0; i < length; i++) {
+            long code = code(domain.charAt(i));
+            if (code == DOT) {
+                if (dot >= 0) {
+                    extensionEnd = i;
+                    break;
+                }
+                dot = i;
+            } else if (code == 0) {
+                return false;
+            }
+            if (i < CHARS_PER_LONG) {
+                low |= code << (CHARS_PER_LONG - 1 - i) * BITS;
+            } else if (i < MAX_PACKED_LENGTH) {
+                high |= code << (MAX_PACKED_LENGTH - 1 - i) * BITS;
+            }
+        }
+        if (dot <= 0 || extensionEnd == dot + 1) {
+            return false;
+        }
+        for (int i = extensionEnd + 1; i < length; i++) {
+            if (domain.charAt(i) != '.') {
+                return false;
+            }
+        }
+        int extension = extensionId(domain, dot + 1, extensionEnd);
+        if (extension == 0) {
+            if (extensionEnd > MAX_PACKED_LENGTH) {
+                return false;
+            }
+        } else {
+            if (dot > MAX_PACKED_LENGTH) {
+                return false;
+            }
+            // Drops the dot and the extension, replaced by its id
+            if (dot < CHARS_PER_LONG) {
+                low &= -1L << (CHARS_PER_LONG - dot) * BITS;
+                high = 0;
+            } else if (dot < MAX_PACKED_LENGTH) {
+                high &= -1L << (MAX_PACKED_LENGTH - dot) * BITS;
+            }
+            low |= (long) extension << (CHARS_PER_LONG * BITS);
+        }
+        key[0] = low;
+        key[1] = high;
+        return true;
+    }
+
+    /**
+     * Returns the domain name of a packed key.
+     *
+     * @param low the low long of the key
+     * @param high the high long of the key
+     * @return the domain name, in lowercase
+     */
+    public static String unpack(long low, long high) {
+        int extension = (int) (low >>> (CHARS_PER_LONG * BITS));
+        if (extension > EXTENSIONS.length || (low == 0 && high == 0)) {
+            throw new IllegalArgumentException("[ERROR] Invalid packed domain name.");
+        }
+        StringBuilder domain = new StringBuilder(MAX_PACKED_LENGTH + 4);
+        for (int i = 0; i < MAX_PACKED_LENGTH; i++) {
+            int shift = (CHARS_PER_LONG - 1 - i % CHARS_PER_LONG) * BITS;
+            int code = (int) ((i < CHARS_PER_LONG ? low : high) >>> shift) & MASK;
+            if (code == 0) {
+                break;
+            }
+            domain.append(CHARS[code]);
+        }
+        if (extension != 0) {
+            domain.append('.').append(EXTENSIONS[extension - 1]);
+        }
+        return domain.toString();
+    }
+
+    /**
+     * Returns a domain name as its lowercase ASCII bytes, without trailing dots, whatever its length.
+     *
+     * @param domain the domain name, in any case
+     * @return the bytes of the name, or null if the name has an invalid format
+     */
+    public static byte[] toBytes(CharSequence domain) {
+        if (formatDot(domain) < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[end(domain)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) DomainValidator.toLowerCase(domain.charAt(i));
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the domain name of its bytes.
+     *
+     * @param bytes the bytes returned by {@link #toBytes(CharSequence)}
+     * @return the domain name, in lowercase
+     */
+    public static String fromBytes(byte[] bytes) {
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Mixes the two longs of a packed key into a well-distributed hash.
+     *
+     * @param low the low long of the key
+     * @param high the high long of the key
+     * @return the hash of the key
+     */
+    public static int hash(long low, long high) {
+        long hash = low * 0x9E3779B97F4A7C15L + high * 0xC2B2AE3D27D4EB4FL;
+        hash ^= hash >>> 29;
+        hash *= 0xBF58476D1CE4E5B9L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Checks the format of the name and returns the index of the dot before its extension, or -1 if the format is
+     * invalid.
+     */
+    private static int formatDot(CharSequence domain) {
+        if (domain == null) {
+            return -1;
+        }
+        int length = domain.length();
+        int dot = 0;
+        while (dot < length && domain.charAt(dot) != '.') {
+            if (!DomainValidator.isNameChar(DomainValidator.toLowerCase(domain.charAt(dot)))) {
+                return -1;
+            }
+            dot++;
+        }
+        if (dot == 0 || dot == length) {
+            return -1;
+        }
+        int i = dot + 1;
+        while (i < length && domain.charAt(i) != '.') {
+            if (!DomainValidator.isNameChar(DomainValidator.toLowerCase(domain.charAt(i)))) {
+                return -1;
+            }
+            i++;
+        }
+        if (i == dot + 1) {
+            return -1;
+        }
+        for (; i < length; i++) {
+            if (domain.charAt(i) != '.') {
+                return -1;
+            }
+        }
+        return dot;
+    }
+
+    /**
+     * Returns the index after the extension, ignoring trailing dots.
+     */
+    private static int end(CharSequence domain) {
+        int end = domain.length();
+        while (domain.charAt(end - 1) == '.') {
+            end--;
+        }
+        return end;
+    }
+
+    private static int extensionId(CharSequence domain, int start, int end) {
+        if (end - start != 3) {
+            return 0;
+        }
+        char first = DomainValidator.toLowerCase(domain.charAt(start));
+        char second = DomainValidator.toLowerCase(domain.charAt(start + 1));
+        char third = DomainValidator.toLowerCase(domain.charAt(start + 2));
+        for (int i = 0; i < EXTENSIONS.length; i++) {
+            String extension = EXTENSIONS[i];
+            if (extension.charAt(0) == first && extension.charAt(1) == second && extension.charAt(2) == third) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the code of a character, ignoring case, or 0 if it cannot be part of a domain name.
+     */
+    private static long code(char c) {
+        if (c < CODES.length) {
+            return CODES[c];
+        }
+        return DomainValidator.toLowerCase(c) == 'k' ? CODES['k'] : 0;
+    }
+}
@@ -0,0 +1,73 @@
+package edu.uoc.pac2;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only view of the data of a domain, implemented by {@link WebDomain} and by the flyweight views of
+ * {@link ColumnarDomainStore}, so that code reading portfolios does not depend on how the domains are stored.
+ */
+public interface DomainRecord {
+
+    /**
+     * Returns the domain name.
+     *
+     * @return the domain name as a String
+     */
+    String getDomain();
+
+    /**
+     * Returns the owner's name.
+     *
+     * @return the name of the domain owner as a String
+     */
+    String getOwnerName();
+
+    /**
+     * Returns the owner's email address.
+     *
+     * @return the email address of the domain owner as a String
+     */
+    String getOwnerEmail();
+
+    /**
+     * Returns the hosting provider of the domain.
+     *
+     * @return the hosting provider as a String
+     */
+    String getHostingProvider();
+
+    /**
+     * Returns the registration date of the domain.
+     *
+     * @return the registration date as a LocalDate
+     */
+    LocalDate getRegistrationDate();
+
+    /**
+     * Returns the expiration date of the domain.
+     *
+     * @return the expiration date as a LocalDate
+     */
+    LocalDate getExpirationDate();
+
+    /**
+     * Returns the maximum number of concurrent users allowed.
+     *
+     * @return the maximum number of concurrent users as an int
+     */
+    int getMaxConcurrentUsers();
+
+    /**
+     * Returns the WHOIS privacy status of the domain.
+     *
+     * @return true if WHOIS privacy is enabled, false otherwise
+     */
+    boolean isWhoisPrivacy();
+
+    /**
+     * Returns the auto-renewal status of the domain.
+     *
+     * @return true if auto-renewal is enabled, false otherwise
+     */
+    boolean isAutoRenew();
+}
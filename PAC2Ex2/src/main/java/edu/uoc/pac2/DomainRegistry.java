@@ -0,0 +1,452 @@
+package edu.uoc.pac2;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread-safe container of {@link WebDomain} objects, keyed by their domain name in lowercase as produced by
+ * {@link DomainValidator#normalize(CharSequence)}.
+ * The domains are kept in a {@link ConcurrentHashMap}: lookups never lock and writes only lock the bin of the
+ * domain they change, so registrations and lookups from many threads do not block each other. Domains are
+ * compared by identity in the conditional operations. The key of a domain is taken when it is registered; to
+ * rename a registered domain, remove it and register it again.
+ * Every change is made inside the bin lock of its key, together with the update of the attached
+ * {@link DomainIndex}es, so an index never sees the changes of one name out of order. The work the indexes defer to
+ * {@link DomainIndex#flush()}, such as forcing a log to disk, runs once the locks are released, so it never holds
+ * up the writers of other domains.
+ * While some index is attached, the registry keeps the registered domains in a set compared by identity and
+ * registers a single {@link WebDomainListener} in {@link WebDomainEvents}, which only passes the changes of those
+ * domains to its indexes. Changes to domains that are not registered, such as the rows read by
+ * {@link CsvDomainLoader}, do not reach the indexes. The listener only holds the registry weakly, so a registry
+ * dropped with its indexes attached can be garbage collected together with them; the listener unregisters itself
+ * on the next change made to any domain. Detaching the indexes with {@link #removeIndex(DomainIndex)} unregisters it
+ * at once.
+ * The names of the registered domains are also added to a {@link CountingBloomFilter}, so that
+ * {@link #isAvailable(CharSequence)} answers most queries for unregistered names without lowercasing them or probing
+ * the map. Registrations, replacements and removals share a read lock that is only taken exclusively while the
+ * filter is rebuilt, which happens when the registry outgrows it, and while an index is attached or detached.
+ */
+public final class DomainRegistry {
+    /**
+     * False positive rate of the availability filter when none is given.
+     */
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+    private static final int MIN_FILTER_SIZE = 1024;
+
+    private final ConcurrentHashMap<String, WebDomain> domains;
+    private final CopyOnWriteArrayList<DomainIndex> indexes = new CopyOnWriteArrayList<>();
+    private final Set<WebDomain> indexed = ConcurrentHashMap.newKeySet();
+    private final Dispatcher dispatcher = new Dispatcher(this);
+    private final ReentrantReadWriteLock filterLock = new ReentrantReadWriteLock();
+    private final double falsePositiveRate;
+    private volatile CountingBloomFilter filter;
+
+    /**
+     * Creates an empty registry.
+     */
+    public DomainRegistry() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty registry sized for the expected number of domains.
+     *
+     * @param expectedSize the number of domains the registry is expected to hold
+     */
+    public DomainRegistry(int expectedSize) {
+        this(expectedSize, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Creates an empty registry sized for the expected number of domains, whose availability filter has the given
+     * false positive rate.
+     *
+     * @param expectedSize the number of domains the registry is expected to hold
+     * @param falsePositiveRate the rate of unregistered names for which {@link #isAvailable(CharSequence)} has to
+     *                          probe the registry, between 0 and 1 excluded
+     */
+    public DomainRegistry(int expectedSize, double falsePositiveRate) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("[ERROR] The expected size cannot be negative.");
+        }
+        this.domains = new ConcurrentHashMap<>(expectedSize);
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new CountingBloomFilter(Math.max(expectedSize, MIN_FILTER_SIZE), falsePositiveRate);
+    }
+
+    /**
+     * Registers a domain unless another one with the same name is already registered.
+     *
+     * @param domain the domain to register
+     * @return the domain already registered with the same name, or null if the domain was registered
+     * @throws DomainValidationException if the name of the domain has an invalid format
+     */
+    public WebDomain register(WebDomain domain) throws DomainValidationException {
+        String name = key(domain);
+        WebDomain[] registered = new WebDomain[1];
+        Lock readLock = filterLock.readLock();
+        readLock.lock();
+        try {
+            domains.compute(name, (key, current) -> {
+                if (current != null) {
+                    registered[0] = current;
+                    return current;
+                }
+                filter.add(key);
+                if (!indexes.isEmpty()) {
+                    indexed.add(domain);
+                    indexAdd(domain);
+                }
+                return domain;
+            });
+        } finally {
+            readLock.unlock();
+        }
+        if (registered[0] == null) {
+            indexFlush();
+            if (domains.size() > filter.getExpectedSize()) {
+                rebuildFilter(true);
+            }
+        }
+        return registered[0];
+    }
+
+    /**
+     * Replaces the domain registered with the same name as the given one, if there is any.
+     *
+     * @param domain the new domain
+     * @return the domain that was replaced, or null if no domain with that name was registered
+     * @throws DomainValidationException if the name of the domain has an invalid format
+     */
+    public WebDomain replace(WebDomain domain) throws DomainValidationException {
+        String name = key(domain);
+        WebDomain[] replaced = new WebDomain[1];
+        Lock readLock = filterLock.readLock();
+        readLock.lock();
+        try {
+            domains.computeIfPresent(name, (key, current) -> {
+                replaced[0] = current;
+                swap(current, domain);
+                return domain;
+            });
+        } finally {
+            readLock.unlock();
+        }
+        if (replaced[0] != null) {
+            indexFlush();
+        }
+        return replaced[0];
+    }
+
+    /**
+     * Replaces a registered domain with another one with the same name, only if it is still registered.
+     *
+     * @param current the domain expected to be registered
+     * @param replacement the new domain
+     * @return true if the domain was replaced, false otherwise
+     * @throws DomainValidationException if the name of a domain has an invalid format
+     */
+    public boolean replace(WebDomain current, WebDomain replacement) throws DomainValidationException {
+        String key = key(replacement);
+        if (!key.equals(key(current))) {
+            throw new IllegalArgumentException("[ERROR] A domain can only be replaced by one with the same name.");
+        }
+        boolean[] replaced = new boolean[1];
+        Lock readLock = filterLock.readLock();
+        readLock.lock();
+        try {
+            domains.computeIfPresent(key, (name, registered) -> {
+                if (registered != current) {
+                    return registered;
+                }
+                replaced[0] = true;
+                swap(current, replacement);
+                return replacement;
+            });
+        } finally {
+            readLock.unlock();
+        }
+        if (replaced[0]) {
+            indexFlush();
+        }
+        return replaced[0];
+    }
+
+    /**
+     * Returns the domain registered with the given name, ignoring case.
+     *
+     * @param domain the domain name
+     * @return the registered domain, or null if there is none
+     */
+    public WebDomain get(CharSequence domain) {
+        if (domain == null) {
+            return null;
+        }
+        return domains.get(DomainValidator.normalize(domain));
+    }
+
+    /**
+     * Checks whether a domain with the given name is registered, ignoring case.
+     *
+     * @param domain the domain name
+     * @return true if the domain is registered, false otherwise
+     */
+    public boolean contains(CharSequence domain) {
+        return get(domain) != null;
+    }
+
+    /**
+     * Checks whether no domain with the given name is registered, ignoring case, as the negation of
+     * {@link #contains(CharSequence)}.
+     * The name is first looked up in the availability filter, which rules out most unregistered names without
+     * lowercasing the name or probing the registry.
+     *
+     * @param domain the domain name
+     * @return true if no domain is registered with the name, false otherwise
+     */
+    public boolean isAvailable(CharSequence domain) {
+        return !filter.mightContain(domain) || !contains(domain);
+    }
+
+    /**
+     * Replaces the availability filter with a new one sized for the domains registered, which resets the counters
+     * saturated by many registrations and removals and shrinks the filter after mass removals. Registrations and
+     * removals wait while the filter is rebuilt.
+     */
+    public void rebuildAvailabilityFilter() {
+        rebuildFilter(false);
+    }
+
+    /**
+     * Removes the domain registered with the given name, ignoring case.
+     *
+     * @param domain the domain name
+     * @return the removed domain, or null if there was none
+     */
+    public WebDomain remove(CharSequence domain) {
+        if (domain == null) {
+            return null;
+        }
+        WebDomain[] removed = new WebDomain[1];
+        Lock readLock = filterLock.readLock();
+        readLock.lock();
+        try {
+            domains.computeIfPresent(DomainValidator.normalize(domain), (key, current) -> {
+                removed[0] = current;
+                filter.remove(key);
+                indexed.remove(current);
+                indexRemove(current);
+                return null;
+            });
+        } finally {
+            readLock.unlock();
+        }
+        if (removed[0] != null) {
+            indexFlush();
+        }
+        return removed[0];
+    }
+
+    /**
+     * Removes a domain only if it is still registered.
+     *
+     * @param domain the domain to remove
+     * @return true if the domain was removed, false otherwise
+     */
+    public boolean remove(WebDomain domain) {
+        if (domain == null || domain.getDomain() == null) {
+            return false;
+        }
+        boolean[] removed = new boolean[1];
+        Lock readLock = filterLock.readLock();
+        readLock.lock();
+        try {
+            domains.computeIfPresent(DomainValidator.normalize(domain.getDomain()), (key, current) -> {
+                if (current != domain) {
+                    return current;
+                }
+                removed[0] = true;
+                filter.remove(key);
+                indexed.remove(current);
+                indexRemove(current);
+                return null;
+            });
+        } finally {
+            readLock.unlock();
+        }
+        if (removed[0]) {
+            indexFlush();
+        }
+        return removed[0];
+    }
+
+    /**
+     * Returns the number of registered domains.
+     *
+     * @return the number of domains
+     */
+    public int size() {
+        return domains.size();
+    }
+
+    /**
+     * Returns an unmodifiable view of the registered domains. The view reflects later changes and can be
+     * iterated while the registry is modified.
+     *
+     * @return the registered domains
+     */
+    public Collection<WebDomain> values() {
+        return Collections.unmodifiableCollection(domains.values());
+    }
+
+    /**
+     * Attaches an index to the registry. The domains already registered are added to it, and from then on it is
+     * passed the changes made to the fields of the registered domains. The index receives the registrations and
+     * changes as soon as it is attached, before the domains already registered are added, so a domain registered
+     * meanwhile may be passed twice to {@link DomainIndex#add(WebDomain)}.
+     * The index stays reachable from {@link WebDomainEvents} while it is attached, unless the registry itself is
+     * dropped; detach it with {@link #removeIndex(DomainIndex)} when it is no longer needed.
+     *
+     * @param index the index to attach
+     */
+    public void addIndex(DomainIndex index) {
+        if (index == null) {
+            throw new IllegalArgumentException("[ERROR] The domain index cannot be null.");
+        }
+        Lock writeLock = filterLock.writeLock();
+        writeLock.lock();
+        try {
+            if (indexes.isEmpty()) {
+                WebDomainEvents.addListener(dispatcher);
+            }
+            indexes.add(index);
+        } finally {
+            writeLock.unlock();
+        }
+        for (String key : domains.keySet()) {
+            domains.computeIfPresent(key, (name, current) -> {
+                indexed.add(current);
+                index.add(current);
+                return current;
+            });
+        }
+        index.flush();
+    }
+
+    /**
+     * Detaches an index from the registry, which stops updating it. Once the last index is detached, the registry
+     * no longer follows the changes made to its domains.
+     *
+     * @param index the index to detach
+     * @return true if the index was attached, false otherwise
+     */
+    public boolean removeIndex(DomainIndex index) {
+        Lock writeLock = filterLock.writeLock();
+        writeLock.lock();
+        try {
+            if (!indexes.remove(index)) {
+                return false;
+            }
+            if (indexes.isEmpty()) {
+                WebDomainEvents.removeListener(dispatcher);
+                indexed.clear();
+            }
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Fills a new filter with the registered names while registrations and removals wait, so that no name is
+     * missed, and publishes it. A filter grown for twice the registered names is only built if another thread has
+     * not grown it already.
+     */
+    private void rebuildFilter(boolean grow) {
+        Lock writeLock = filterLock.writeLock();
+        writeLock.lock();
+        try {
+            int size = domains.size();
+            if (grow && size <= filter.getExpectedSize()) {
+                return;
+            }
+            int expectedSize = grow ? (int) Math.min(size * 2L, Integer.MAX_VALUE) : size;
+            CountingBloomFilter rebuilt = new CountingBloomFilter(Math.max(expectedSize, MIN_FILTER_SIZE),
+                    falsePositiveRate);
+            for (String key : domains.keySet()) {
+                rebuilt.add(key);
+            }
+            filter = rebuilt;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void indexAdd(WebDomain domain) {
+        for (DomainIndex index : indexes) {
+            index.add(domain);
+        }
+    }
+
+    private void indexRemove(WebDomain domain) {
+        for (DomainIndex index : indexes) {
+            index.remove(domain);
+        }
+    }
+
+    private void indexFlush() {
+        for (DomainIndex index : indexes) {
+            index.flush();
+        }
+    }
+
+    private void swap(WebDomain current, WebDomain replacement) {
+        if (current != replacement && !indexes.isEmpty()) {
+            indexed.remove(current);
+            indexRemove(current);
+            indexed.add(replacement);
+            indexAdd(replacement);
+        }
+    }
+
+    private static String key(WebDomain domain) throws DomainValidationException {
+        String name = domain.getDomain();
+        if (!DomainValidator.isValidDomain(name)) {
+            throw ValidationRule.DOMAIN_FORMAT.getException();
+        }
+        return DomainValidator.normalize(name);
+    }
+
+    /**
+     * Passes the changes of the domains registered in a registry to its indexes. It is static and holds the registry
+     * weakly so that the reference kept by {@link WebDomainEvents} does not keep a dropped registry alive.
+     */
+    private static final class Dispatcher implements WebDomainListener {
+        private final WeakReference<DomainRegistry> registry;
+
+        Dispatcher(DomainRegistry registry) {
+            this.registry = new WeakReference<>(registry);
+        }
+
+        @Override
+        public void changed(WebDomain domain, DomainField field, Object previous) {
+            DomainRegistry target = registry.get();
+            if (target == null) {
+                WebDomainEvents.removeListener(this);
+                return;
+            }
+            if (target.indexed.contains(domain)) {
+                for (DomainIndex index : target.indexes) {
+                    index.changed(domain, field, previous);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package edu.uoc.pac2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Read-only snapshot of a {@link DomainRegistry} mapped in memory from a binary file, so that a restarted process
+ * can serve its domains without parsing nor validating them again: opening a snapshot only maps the file, and the
+ * pages are loaded by the operating system when they are first read. A {@link WebDomain} is only created the first
+ * time its record is read, and the same object is returned afterwards.
+ * The file is little-endian and made of the following sections:
+ * <ul>
+ *     <li>A header of 64 bytes: the magic "WDSN", the format version, the number of domains, the number of hosting
+ *     providers, the capacity of the index and the offsets of the sections.</li>
+ *     <li>One record of 32 bytes per domain, with the dates as epoch days, the maximum number of concurrent users,
+ *     the hosting provider code, the offset of its strings, the hash of its name and its flags.</li>
+ *     <li>An open-addressing index by domain name, with one int per slot holding the record number plus one.</li>
+ *     <li>The domain name, owner name and owner email of every domain as length-prefixed UTF-8, which never
+ *     cross a boundary of 1 GiB.</li>
+ *     <li>The hosting providers, as length-prefixed UTF-8.</li>
+ * </ul>
+ * The records, the index and the strings are mapped in windows of 1 GiB, as a single buffer cannot map more than
+ * 2 GiB. Neither a record nor a slot of the index crosses a window.
+ * Snapshots are written to a temporary file that is moved over the target once complete, so readers never see a
+ * partial snapshot.
+ */
+public final class DomainSnapshot {
+    /**
+     * Version of the format written by {@link #write(DomainRegistry, Path)}.
+     */
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 'W' | 'D' << 8 | 'S' << 16 | 'N' << 24;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 32;
+    private static final int REGISTRATION = 0;
+    private static final int EXPIRATION = 4;
+    private static final int MAX_CONCURRENT_USERS = 8;
+    private static final int PROVIDER = 12;
+    private static final int STRINGS = 16;
+    private static final int HASH = 24;
+    private static final int FLAGS = 28;
+    private static final byte WHOIS_PRIVACY = 1;
+    private static final byte AUTO_RENEW = 2;
+    private static final int WINDOW_BITS = 30;
+    private static final long WINDOW_SIZE = 1L << WINDOW_BITS;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int NO_PROVIDER = -1;
+    private static final int MAX_DOMAINS = 1 << 28;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final int size;
+    private final ByteBuffer[] records;
+    private final ByteBuffer[] index;
+    private final int indexMask;
+    private final ByteBuffer[] strings;
+    private final String[] providers;
+    private final AtomicReferenceArray<WebDomain> domains;
+
+    private DomainSnapshot(int size, ByteBuffer[] records, ByteBuffer[] index, int capacity, ByteBuffer[] strings,
+                           String[] providers) {
+        this.size = size;
+        this.records = records;
+        this.index = index;
+        this.indexMask = capacity - 1;
+        this.strings = strings;
+        this.providers = providers;
+        this.domains = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * Writes a snapshot of the domains of a registry. Every domain is read once, field by field, while the
+     * registry keeps accepting changes. The file is replaced atomically.
+     *
+     * @param registry the registry to write
+     * @param file the snapshot file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(DomainRegistry registry, Path file) throws IOException {
+        List<WebDomain> domains = new ArrayList<>(registry.values());
+        int count = domains.size();
+        if (count > MAX_DOMAINS) {
+            throw new IOException("[ERROR] Too many domains for a snapshot: " + count + ".");
+        }
+        int capacity = 16;
+        while (capacity < count * 2L) {
+            capacity <<= 1;
+        }
+        long recordsOffset = HEADER_SIZE;
+        long indexOffset = recordsOffset + (long) count * RECORD_SIZE;
+        long stringsOffset = indexOffset + (long) capacity * 4;
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                int[] slots = new int[capacity];
+                Map<String, Integer> providerCodes = new LinkedHashMap<>();
+                ByteBuffer recordBuffer = buffer();
+                ByteBuffer stringBuffer = buffer();
+                long recordPosition = recordsOffset;
+                long stringPosition = stringsOffset;
+                long stringEnd = 0;
+                for (int record = 0; record < count; record++) {
+                    WebDomain domain = domains.get(record);
+                    byte[] name = bytes(domain.getDomain());
+                    byte[] ownerName = bytes(domain.getOwnerName());
+                    byte[] ownerEmail = bytes(domain.getOwnerEmail());
+                    int length = encodedLength(name) + encodedLength(ownerName) + encodedLength(ownerEmail);
+                    if (length > WINDOW_SIZE) {
+                        throw new IOException("[ERROR] The strings of " + domain.getDomain() + " are too long.");
+                    }
+                    if ((stringEnd >>> WINDOW_BITS) != ((stringEnd + length - 1) >>> WINDOW_BITS)) {
+                        // Pad up to the next window
+                        long padding = WINDOW_SIZE - (stringEnd & (WINDOW_SIZE - 1));
+                        for (long i = 0; i < padding; i++) {
+                            stringPosition = put(channel, stringBuffer, stringPosition, (byte) 0);
+                        }
+                        stringEnd += padding;
+                    }
+                    stringPosition = put(channel, stringBuffer, stringPosition, name);
+                    stringPosition = put(channel, stringBuffer, stringPosition, ownerName);
+                    stringPosition = put(channel, stringBuffer, stringPosition, ownerEmail);
+
+                    String provider = domain.getHostingProvider();
+                    int providerCode = NO_PROVIDER;
+                    if (provider != null) {
+                        providerCode = providerCodes.computeIfAbsent(provider, key -> providerCodes.size());
+                    }
+                    int hash = hash(domain.getDomain() == null ? new byte[0]
+                            : DomainValidator.normalize(domain.getDomain()).getBytes(StandardCharsets.UTF_8));
+                    if (recordBuffer.remaining() < RECORD_SIZE) {
+                        recordPosition = flush(channel, recordBuffer, recordPosition);
+                    }
+                    recordBuffer.putInt(toEpochDay(domain.getRegistrationDate()));
+                    recordBuffer.putInt(toEpochDay(domain.getExpirationDate()));
+                    recordBuffer.putInt(domain.getMaxConcurrentUsers());
+                    recordBuffer.putInt(providerCode);
+                    recordBuffer.putLong(stringEnd);
+                    recordBuffer.putInt(hash);
+                    recordBuffer.put((byte) ((domain.isWhoisPrivacy() ? WHOIS_PRIVACY : 0)
+                            | (domain.isAutoRenew() ? AUTO_RENEW : 0)));
+                    recordBuffer.put(new byte[3]);
+                    stringEnd += length;
+
+                    // The keys of a registry are unique, so the first free slot is taken
+                    int slot = hash & (capacity - 1);
+                    while (slots[slot] != 0) {
+                        slot = (slot + 1) & (capacity - 1);
+                    }
+                    slots[slot] = record + 1;
+                }
+                flush(channel, recordBuffer, recordPosition);
+                long providersOffset = flush(channel, stringBuffer, stringPosition);
+
+                long position = providersOffset;
+                for (String provider : providerCodes.keySet()) {
+                    position = put(channel, stringBuffer, position, bytes(provider));
+                }
+                flush(channel, stringBuffer, position);
+
+                ByteBuffer indexBuffer = buffer();
+                position = indexOffset;
+                for (int slot : slots) {
+                    if (indexBuffer.remaining() < 4) {
+                        position = flush(channel, indexBuffer, position);
+                    }
+                    indexBuffer.putInt(slot);
+                }
+                flush(channel, indexBuffer, position);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(providerCodes.size())
+                        .putInt(capacity).putInt(0)
+                        .putLong(recordsOffset).putLong(indexOffset).putLong(stringsOffset)
+                        .putLong(providersOffset - stringsOffset).putLong(providersOffset);
+                flush(channel, header, 0);
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Opens a snapshot file by mapping it in memory. The file is not read beyond its header and its hosting
+     * providers until domains are looked up.
+     *
+     * @param file the snapshot file
+     * @return the snapshot
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static DomainSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("[ERROR] " + file + " is not a domain snapshot.");
+            }
+            ByteBuffer header = map(channel, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("[ERROR] " + file + " is not a domain snapshot.");
+            }
+            int version = header.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("[ERROR] Unsupported snapshot version " + version + ".");
+            }
+            int count = header.getInt(8);
+            int providerCount = header.getInt(12);
+            int capacity = header.getInt(16);
+            long recordsOffset = header.getLong(24);
+            long indexOffset = header.getLong(32);
+            long stringsOffset = header.getLong(40);
+            long stringsLength = header.getLong(48);
+            long providersOffset = header.getLong(56);
+            if (count < 0 || count > MAX_DOMAINS || providerCount < 0 || capacity < 16
+                    || Integer.bitCount(capacity) != 1 || capacity < count * 2L
+                    || recordsOffset != HEADER_SIZE
+                    || indexOffset != recordsOffset + (long) count * RECORD_SIZE
+                    || stringsOffset != indexOffset + (long) capacity * 4
+                    || stringsLength < 0 || providersOffset != stringsOffset + stringsLength
+                    || providersOffset > fileSize) {
+                throw new IOException("[ERROR] The snapshot " + file + " is corrupted.");
+            }
+            ByteBuffer[] records = mapWindows(channel, recordsOffset, indexOffset - recordsOffset);
+            ByteBuffer[] index = mapWindows(channel, indexOffset, stringsOffset - indexOffset);
+            ByteBuffer[] strings = mapWindows(channel, stringsOffset, stringsLength);
+            ByteBuffer providerBuffer = map(channel, providersOffset, fileSize - providersOffset);
+            String[] providers = new String[providerCount];
+            int position = 0;
+            try {
+                for (int i = 0; i < providerCount; i++) {
+                    int length = readLength(providerBuffer, position);
+                    position = skipLength(providerBuffer, position);
+                    providers[i] = StringDictionary.HOSTING_PROVIDERS.intern(decode(providerBuffer, position, length));
+                    position += length;
+                }
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException("[ERROR] The snapshot " + file + " is corrupted.");
+            }
+            return new DomainSnapshot(count, records, index, capacity, strings, providers);
+        }
+    }
+
+    /**
+     * Returns the number of domains in the snapshot.
+     *
+     * @return the number of domains
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the record of the domain with the given name, ignoring case.
+     *
+     * @param domain the domain name
+     * @return the number of the record, or -1 if the domain is not in the snapshot
+     */
+    public int find(CharSequence domain) {
+        if (domain == null) {
+            return -1;
+        }
+        String key = DomainValidator.normalize(domain);
+        int hash = hash(key.getBytes(StandardCharsets.UTF_8));
+        int slot = hash & indexMask;
+        int entry;
+        while ((entry = slot(slot)) != 0) {
+            int record = entry - 1;
+            if (recordInt(record, HASH) == hash) {
+                String name = readString(record, 0);
+                if (name != null && DomainValidator.normalize(name).equals(key)) {
+                    return record;
+                }
+            }
+            slot = (slot + 1) & indexMask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the domain with the given name, ignoring case, creating it the first time it is read.
+     *
+     * @param domain the domain name
+     * @return the domain, or null if it is not in the snapshot
+     */
+    public WebDomain get(CharSequence domain) {
+        int record = find(domain);
+        return record < 0 ? null : get(record);
+    }
+
+    /**
+     * Returns the domain of a record, creating it the first time it is read. The domain is created with the
+     * constructor of {@link WebDomain}, so it is not validated again.
+     *
+     * @param record the number of the record
+     * @return the domain
+     */
+    public WebDomain get(int record) {
+        if (record < 0 || record >= size) {
+            throw new IndexOutOfBoundsException("[ERROR] Invalid record " + record + ".");
+        }
+        WebDomain domain = domains.get(record);
+        if (domain == null) {
+            domain = materialize(record);
+            if (!domains.compareAndSet(record, null, domain)) {
+                domain = domains.get(record);
+            }
+        }
+        return domain;
+    }
+
+    /**
+     * Returns the expiration date of a record without creating its domain.
+     *
+     * @param record the number of the record
+     * @return the expiration date, as a number of days since 1970-01-01, or {@link Long#MIN_VALUE} if it has none
+     */
+    public long getExpirationEpochDay(int record) {
+        if (record < 0 || record >= size) {
+            throw new IndexOutOfBoundsException("[ERROR] Invalid record " + record + ".");
+        }
+        int day = recordInt(record, EXPIRATION);
+        return day == NO_DATE ? Long.MIN_VALUE : day;
+    }
+
+    private WebDomain materialize(int record) {
+        long offset = (long) record * RECORD_SIZE;
+        ByteBuffer window = records[(int) (offset >>> WINDOW_BITS)];
+        int base = (int) (offset & (WINDOW_SIZE - 1));
+        int providerCode = window.getInt(base + PROVIDER);
+        byte flags = window.get(base + FLAGS);
+        return new WebDomain(readString(record, 0), readString(record, 1), readString(record, 2),
+                providerCode == NO_PROVIDER ? null : providers[providerCode],
+                toDate(window.getInt(base + REGISTRATION)), toDate(window.getInt(base + EXPIRATION)),
+                window.getInt(base + MAX_CONCURRENT_USERS), (flags & WHOIS_PRIVACY) != 0,
+                (flags & AUTO_RENEW) != 0);
+    }
+
+    private int recordInt(int record, int field) {
+        long offset = (long) record * RECORD_SIZE;
+        return records[(int) (offset >>> WINDOW_BITS)].getInt((int) (offset & (WINDOW_SIZE - 1)) + field);
+    }
+
+    private int slot(int slot) {
+        long offset = (long) slot * 4;
+        return index[(int) (offset >>> WINDOW_BITS)].getInt((int) (offset & (WINDOW_SIZE - 1)));
+    }
+
+    private String readString(int record, int field) {
+        long recordOffset = (long) record * RECORD_SIZE;
+        long offset = records[(int) (recordOffset >>> WINDOW_BITS)]
+                .getLong((int) (recordOffset & (WINDOW_SIZE - 1)) + STRINGS);
+        ByteBuffer window = strings[(int) (offset >>> WINDOW_BITS)];
+        int position = (int) (offset & (WINDOW_SIZE - 1));
+        for (int i = 0; i < field; i++) {
+            int length = readLength(window, position);
+            position = skipLength(window, position) + Math.max(length, 0);
+        }
+        int length = readLength(window, position);
+        return length < 0 ? null : decode(window, skipLength(window, position), length);
+    }
+
+    /**
+     * Reads a length stored as a varint of the length plus one, where 0 stands for null, and returns -1 for null.
+     */
+    private static int readLength(ByteBuffer buffer, int position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(position++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value - 1;
+    }
+
+    private static int skipLength(ByteBuffer buffer, int position) {
+        while (buffer.get(position++) < 0) {
+            // Continuation bytes have the high bit set
+        }
+        return position;
+    }
+
+    private static String decode(ByteBuffer buffer, int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Maps a section of the file in consecutive windows of at most 1 GiB.
+     */
+    private static ByteBuffer[] mapWindows(FileChannel channel, long offset, long length) throws IOException {
+        ByteBuffer[] windows = new ByteBuffer[(int) ((length + WINDOW_SIZE - 1) >>> WINDOW_BITS)];
+        for (int i = 0; i < windows.length; i++) {
+            long start = (long) i << WINDOW_BITS;
+            windows[i] = map(channel, offset + start, Math.min(WINDOW_SIZE, length - start));
+        }
+        return windows;
+    }
+
+    private static ByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer buffer() {
+        return ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long put(FileChannel channel, ByteBuffer buffer, long position, byte value) throws IOException {
+        if (!buffer.hasRemaining()) {
+            position = flush(channel, buffer, position);
+        }
+        buffer.put(value);
+        return position;
+    }
+
+    private static long put(FileChannel channel, ByteBuffer buffer, long position, byte[] bytes) throws IOException {
+        int value = bytes == null ? 0 : bytes.length + 1;
+        while ((value & ~0x7F) != 0) {
+            position = put(channel, buffer, position, (byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        position = put(channel, buffer, position, (byte) value);
+        if (bytes != null) {
+            for (int offset = 0; offset < bytes.length; ) {
+                if (!buffer.hasRemaining()) {
+                    position = flush(channel, buffer, position);
+                }
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Writes the content of the buffer at the given position of the file and returns the position after it.
+     */
+    private static long flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+        return position;
+    }
+
+    private static int encodedLength(byte[] bytes) {
+        int length = bytes == null ? 0 : bytes.length;
+        int prefix = 1;
+        for (int value = (length + 1) >>> 7; value != 0; value >>>= 7) {
+            prefix++;
+        }
+        return prefix + length;
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int hash(byte[] key) {
+        int hash = 0x811c9dc5;
+        for (byte b : key) {
+            hash = (hash ^ (b & 0xFF)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int toEpochDay(LocalDate date) {
+        return date == null ? NO_DATE : Math.toIntExact(date.toEpochDay());
+    }
+
+    private static LocalDate toDate(int epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
@@ -0,0 +1,356 @@
+package edu.uoc.pac2;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hierarchical timing wheel firing the expiry and auto-renew deadlines of domains, with one tick per day.
+ * The wheel has 4 levels of 64 slots: level 0 holds the deadlines of the current block of 64 days, one slot per
+ * day, and every higher level covers 64 times the span of the level below. When the clock enters a new block, the
+ * deadlines of the matching slot of the level above are moved down, so every deadline is moved at most 4 times.
+ * Deadlines more than 64^4 days ahead wait in an overflow list.
+ * Scheduling and cancelling take constant time and never lock: they only push the deadline into a queue, which
+ * the thread advancing the wheel drains at the next tick, as in Netty's HashedWheelTimer. The clock is virtual
+ * and only moves with {@link #advanceTo(long)}, so tests can drive it in-process.
+ */
+public final class DomainTimingWheel {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+    private static final int OVERFLOW = LEVELS * SLOTS;
+    private static final DeadlineKind[] KINDS = DeadlineKind.values();
+
+    private final DeadlineListener listener;
+    // Doubly linked lists of deadlines, one per slot of every level plus the overflow list, only used by the
+    // thread advancing the wheel
+    private final Deadline[] slots = new Deadline[OVERFLOW + 1];
+    private final Queue<Deadline> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Deadline> cancelled = new ConcurrentLinkedQueue<>();
+    private final LongAdder pending = new LongAdder();
+    // Next day to be processed
+    private volatile long tick;
+
+    /**
+     * Creates a wheel whose clock starts at the current date of the {@link DomainClock}.
+     *
+     * @param listener the listener receiving the fired deadlines
+     */
+    public DomainTimingWheel(DeadlineListener listener) {
+        this(DomainClock.currentEpochDay(), listener);
+    }
+
+    /**
+     * Creates a wheel whose clock starts at the given day.
+     *
+     * @param startEpochDay the first day processed by the wheel
+     * @param listener the listener receiving the fired deadlines
+     */
+    public DomainTimingWheel(long startEpochDay, DeadlineListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("[ERROR] The deadline listener cannot be null.");
+        }
+        this.tick = startEpochDay;
+        this.listener = listener;
+    }
+
+    /**
+     * Schedules the deadline of a domain at its expiration date: {@link DeadlineKind#AUTO_RENEW} if the domain is
+     * set to auto-renew, {@link DeadlineKind#EXPIRY} otherwise.
+     *
+     * @param domain the domain
+     * @return the scheduled deadline
+     * @throws DomainValidationException if the domain has no expiration date
+     */
+    public Deadline schedule(WebDomain domain) throws DomainValidationException {
+        LocalDate expirationDate = domain.getExpirationDate();
+        if (expirationDate == null) {
+            throw ValidationRule.EXPIRATION_DATE.getException();
+        }
+        return schedule(domain, domain.isAutoRenew() ? DeadlineKind.AUTO_RENEW : DeadlineKind.EXPIRY,
+                expirationDate.toEpochDay());
+    }
+
+    /**
+     * Schedules a deadline for a domain. Deadlines on days already processed fire on the next tick.
+     *
+     * @param domain the domain
+     * @param kind the kind of the deadline
+     * @param epochDay the day of the deadline, as a number of days since 1970-01-01
+     * @return the scheduled deadline
+     */
+    public Deadline schedule(WebDomain domain, DeadlineKind kind, long epochDay) {
+        if (domain == null || kind == null) {
+            throw new IllegalArgumentException("[ERROR] The deadline needs a domain and a kind.");
+        }
+        Deadline deadline = new Deadline(this, domain, kind, epochDay);
+        pending.increment();
+        scheduled.add(deadline);
+        return deadline;
+    }
+
+    /**
+     * Processes all the days up to the current date of the {@link DomainClock}.
+     *
+     * @return the number of deadlines fired
+     */
+    public int advance() {
+        return advanceTo(DomainClock.currentEpochDay());
+    }
+
+    /**
+     * Processes all the days up to the given one, included, firing their deadlines in one batch per day and kind.
+     * Only one thread advances the wheel at a time. Deadlines scheduled by the listener are taken into account from
+     * the next day on. If the listener throws, the other batches of the same day are still delivered, and the first
+     * exception is then propagated with the later ones suppressed. Every batch of the day has been delivered by
+     * then, so the day is not processed again and its deadlines count as fired, including those of the batch that
+     * threw.
+     *
+     * @param epochDay the last day to process, as a number of days since 1970-01-01
+     * @return the number of deadlines fired
+     */
+    public synchronized int advanceTo(long epochDay) {
+        int fired = 0;
+        while (tick <= epochDay) {
+            long day = tick;
+            removeCancelled();
+            addScheduled(day);
+            cascade(day);
+            Deadline head = slots[(int) (day & (SLOTS - 1))];
+            slots[(int) (day & (SLOTS - 1))] = null;
+            tick = day + 1;
+            if (head != null) {
+                fired += fire(day, head);
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * Returns the next day the wheel will process.
+     *
+     * @return the next day, as a number of days since 1970-01-01
+     */
+    public long getNextEpochDay() {
+        return tick;
+    }
+
+    /**
+     * Returns the number of deadlines scheduled that have neither fired nor been cancelled.
+     *
+     * @return the number of pending deadlines
+     */
+    public long size() {
+        return pending.sum();
+    }
+
+    private void removeCancelled() {
+        Deadline deadline;
+        while ((deadline = cancelled.poll()) != null) {
+            if (deadline.slot >= 0) {
+                unlink(deadline);
+            }
+        }
+    }
+
+    private void addScheduled(long day) {
+        Deadline deadline;
+        while ((deadline = scheduled.poll()) != null) {
+            if (deadline.state == Deadline.WAITING) {
+                insert(deadline, day);
+            }
+        }
+    }
+
+    private void cascade(long day) {
+        if ((day & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0) {
+            reinsert(OVERFLOW, day);
+        }
+        for (int level = LEVELS - 1; level > 0; level--) {
+            int shift = SLOT_BITS * level;
+            if ((day & ((1L << shift) - 1)) == 0) {
+                reinsert(level * SLOTS + (int) ((day >> shift) & (SLOTS - 1)), day);
+            }
+        }
+    }
+
+    private void reinsert(int slot, long day) {
+        Deadline deadline = slots[slot];
+        slots[slot] = null;
+        while (deadline != null) {
+            Deadline next = deadline.next;
+            deadline.previous = null;
+            deadline.next = null;
+            deadline.slot = -1;
+            insert(deadline, day);
+            deadline = next;
+        }
+    }
+
+    /**
+     * Links the deadline in the lowest level whose current block contains its day. The day being processed has not
+     * fired yet, so overdue deadlines go to its slot.
+     */
+    private void insert(Deadline deadline, long day) {
+        long due = Math.max(deadline.epochDay, day);
+        int slot = OVERFLOW;
+        for (int level = 0; level < LEVELS; level++) {
+            int blockShift = SLOT_BITS * (level + 1);
+            if ((due >> blockShift) == (day >> blockShift)) {
+                slot = level * SLOTS + (int) ((due >> (SLOT_BITS * level)) & (SLOTS - 1));
+                break;
+            }
+        }
+        Deadline head = slots[slot];
+        deadline.next = head;
+        if (head != null) {
+            head.previous = deadline;
+        }
+        slots[slot] = deadline;
+        deadline.slot = slot;
+    }
+
+    private void unlink(Deadline deadline) {
+        if (deadline.previous != null) {
+            deadline.previous.next = deadline.next;
+        } else {
+            slots[deadline.slot] = deadline.next;
+        }
+        if (deadline.next != null) {
+            deadline.next.previous = deadline.previous;
+        }
+        deadline.previous = null;
+        deadline.next = null;
+        deadline.slot = -1;
+    }
+
+    private int fire(long day, Deadline head) {
+        List<List<WebDomain>> batches = new ArrayList<>(KINDS.length);
+        for (int i = 0; i < KINDS.length; i++) {
+            batches.add(new ArrayList<>());
+        }
+        int fired = 0;
+        for (Deadline deadline = head; deadline != null; ) {
+            Deadline next = deadline.next;
+            deadline.previous = null;
+            deadline.next = null;
+            deadline.slot = -1;
+            if (Deadline.STATE.compareAndSet(deadline, Deadline.WAITING, Deadline.FIRED)) {
+                pending.decrement();
+                batches.get(deadline.kind.ordinal()).add(deadline.domain);
+                fired++;
+            }
+            deadline = next;
+        }
+        RuntimeException failure = null;
+        for (int i = 0; i < KINDS.length; i++) {
+            if (!batches.get(i).isEmpty()) {
+                // A failing batch must not keep the others, already marked fired, from being delivered
+                try {
+                    listener.fired(day, KINDS[i], batches.get(i));
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return fired;
+    }
+
+    /**
+     * Deadline of a domain scheduled in a {@link DomainTimingWheel}.
+     */
+    public static final class Deadline {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int FIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Deadline> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Deadline.class, "state");
+
+        private final DomainTimingWheel wheel;
+        private final WebDomain domain;
+        private final DeadlineKind kind;
+        private final long epochDay;
+        private volatile int state;
+        // Position in the wheel, only used by the thread advancing it
+        private int slot = -1;
+        private Deadline previous;
+        private Deadline next;
+
+        private Deadline(DomainTimingWheel wheel, WebDomain domain, DeadlineKind kind, long epochDay) {
+            this.wheel = wheel;
+            this.domain = domain;
+            this.kind = kind;
+            this.epochDay = epochDay;
+        }
+
+        /**
+         * Returns the domain of the deadline.
+         *
+         * @return the domain
+         */
+        public WebDomain getDomain() {
+            return domain;
+        }
+
+        /**
+         * Returns the kind of the deadline.
+         *
+         * @return the kind
+         */
+        public DeadlineKind getKind() {
+            return kind;
+        }
+
+        /**
+         * Returns the day of the deadline.
+         *
+         * @return the day, as a number of days since 1970-01-01
+         */
+        public long getEpochDay() {
+            return epochDay;
+        }
+
+        /**
+         * Checks whether the deadline has been cancelled.
+         *
+         * @return true if the deadline has been cancelled, false otherwise
+         */
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        /**
+         * Checks whether the deadline has fired.
+         *
+         * @return true if the deadline has fired, false otherwise
+         */
+        public boolean isFired() {
+            return state == FIRED;
+        }
+
+        /**
+         * Cancels the deadline if it has not fired yet. The wheel releases it at its next tick.
+         *
+         * @return true if the deadline was cancelled, false if it had already fired or been cancelled
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, WAITING, CANCELLED)) {
+                return false;
+            }
+            wheel.pending.decrement();
+            wheel.cancelled.add(this);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,481 @@
+package edu.uoc.pac2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index of domains by the beginning and the end of their names, answering queries such as "all domains starting
+ * with shop" or "all .org domains" without scanning every domain.
+ * Names are kept in lowercase, as produced by {@link DomainValidator#normalize(CharSequence)}, in two compressed
+ * tries (radix trees): one over the names and one over the reversed names. Every edge holds the characters of a
+ * chain of nodes with a single child, and every node counts the domains below it, so a count is a walk down the
+ * prefix and a listing stops as soon as it reaches its limit, whatever the number of names.
+ * Each trie is split by the first character of the keys into stripes with their own read-write lock, so inserts
+ * and removals of names starting with different characters run concurrently with each other and with queries.
+ * The two tries are updated one after the other, so a query by prefix and a query by suffix may briefly disagree
+ * about a domain being changed.
+ * The index follows the changes of {@link WebDomain#setDomain(String)} once it is attached to a
+ * {@link DomainRegistry} or registered in {@link WebDomainEvents}.
+ */
+public final class DomainTrieIndex implements DomainIndex {
+    private static final int STRIPES = 64;
+
+    private final Trie prefixes = new Trie();
+    private final Trie suffixes = new Trie();
+
+    /**
+     * Adds a domain to the index. A domain already indexed under its name is ignored.
+     *
+     * @param domain the domain to index
+     */
+    @Override
+    public void add(WebDomain domain) {
+        String name = domain.getDomain();
+        if (name != null) {
+            char[] key = key(name, false);
+            if (prefixes.insert(key, domain)) {
+                suffixes.insert(reverse(key), domain);
+            }
+        }
+    }
+
+    /**
+     * Removes a domain from the index.
+     *
+     * @param domain the domain to remove
+     */
+    @Override
+    public void remove(WebDomain domain) {
+        String name = domain.getDomain();
+        if (name != null) {
+            delete(name, domain);
+        }
+    }
+
+    /**
+     * Moves an indexed domain when its name changes.
+     *
+     * @param domain the changed domain
+     * @param field the field that has been set
+     * @param previous the value of the field before the change
+     */
+    @Override
+    public void changed(WebDomain domain, DomainField field, Object previous) {
+        if (field == DomainField.DOMAIN && previous != null && delete((String) previous, domain)) {
+            add(domain);
+        }
+    }
+
+    /**
+     * Returns the domains whose name starts with the given prefix, ignoring case, in alphabetical order of their
+     * names.
+     *
+     * @param prefix the beginning of the names, empty for every domain
+     * @param limit the maximum number of domains to return
+     * @return at most limit domains starting with the prefix
+     */
+    public List<WebDomain> withPrefix(CharSequence prefix, int limit) {
+        return prefixes.collect(key(prefix, false), checkLimit(limit));
+    }
+
+    /**
+     * Returns the number of domains whose name starts with the given prefix, ignoring case.
+     *
+     * @param prefix the beginning of the names, empty for every domain
+     * @return the number of domains starting with the prefix
+     */
+    public int countWithPrefix(CharSequence prefix) {
+        return prefixes.count(key(prefix, false));
+    }
+
+    /**
+     * Returns the domains whose name ends with the given suffix, ignoring case, in alphabetical order of their
+     * reversed names, so that the domains with the same ending are listed together.
+     *
+     * @param suffix the end of the names, such as {@code .org}, empty for every domain
+     * @param limit the maximum number of domains to return
+     * @return at most limit domains ending with the suffix
+     */
+    public List<WebDomain> withSuffix(CharSequence suffix, int limit) {
+        return suffixes.collect(key(suffix, true), checkLimit(limit));
+    }
+
+    /**
+     * Returns the number of domains whose name ends with the given suffix, ignoring case.
+     *
+     * @param suffix the end of the names, such as {@code .org}, empty for every domain
+     * @return the number of domains ending with the suffix
+     */
+    public int countWithSuffix(CharSequence suffix) {
+        return suffixes.count(key(suffix, true));
+    }
+
+    /**
+     * Returns the number of indexed domains.
+     *
+     * @return the number of domains
+     */
+    public int size() {
+        return prefixes.count(new char[0]);
+    }
+
+    private boolean delete(String name, WebDomain domain) {
+        char[] key = key(name, false);
+        if (!prefixes.delete(key, domain)) {
+            return false;
+        }
+        suffixes.delete(reverse(key), domain);
+        return true;
+    }
+
+    private static int checkLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("[ERROR] The limit cannot be negative.");
+        }
+        return limit;
+    }
+
+    private static char[] key(CharSequence text, boolean reversed) {
+        if (text == null) {
+            throw new IllegalArgumentException("[ERROR] The prefix or suffix cannot be null.");
+        }
+        char[] key = new char[text.length()];
+        for (int i = 0; i < key.length; i++) {
+            key[reversed ? key.length - 1 - i : i] = DomainValidator.toLowerCase(text.charAt(i));
+        }
+        return key;
+    }
+
+    private static char[] reverse(char[] key) {
+        char[] reversed = new char[key.length];
+        for (int i = 0; i < key.length; i++) {
+            reversed[key.length - 1 - i] = key[i];
+        }
+        return reversed;
+    }
+
+    /**
+     * Compressed trie whose root is split in stripes by the first character of the keys.
+     */
+    private static final class Trie {
+        private final Node[] roots = new Node[STRIPES];
+        private final ReentrantReadWriteLock[] locks = new ReentrantReadWriteLock[STRIPES];
+
+        Trie() {
+            for (int i = 0; i < STRIPES; i++) {
+                roots[i] = new Node(new char[0]);
+                locks[i] = new ReentrantReadWriteLock();
+            }
+        }
+
+        boolean insert(char[] key, WebDomain domain) {
+            int stripe = stripe(key);
+            Lock writeLock = locks[stripe].writeLock();
+            writeLock.lock();
+            try {
+                return roots[stripe].insert(key, 0, domain);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        boolean delete(char[] key, WebDomain domain) {
+            int stripe = stripe(key);
+            Lock writeLock = locks[stripe].writeLock();
+            writeLock.lock();
+            try {
+                return roots[stripe].delete(key, 0, domain);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        int count(char[] key) {
+            if (key.length == 0) {
+                long count = 0;
+                for (int stripe = 0; stripe < STRIPES; stripe++) {
+                    Lock readLock = locks[stripe].readLock();
+                    readLock.lock();
+                    try {
+                        count += roots[stripe].count;
+                    } finally {
+                        readLock.unlock();
+                    }
+                }
+                return (int) Math.min(count, Integer.MAX_VALUE);
+            }
+            int stripe = stripe(key);
+            Lock readLock = locks[stripe].readLock();
+            readLock.lock();
+            try {
+                Node node = roots[stripe].find(key);
+                return node == null ? 0 : node.count;
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        List<WebDomain> collect(char[] key, int limit) {
+            List<WebDomain> result = new ArrayList<>(Math.min(limit, 64));
+            if (limit == 0) {
+                return result;
+            }
+            if (key.length > 0) {
+                int stripe = stripe(key);
+                Lock readLock = locks[stripe].readLock();
+                readLock.lock();
+                try {
+                    Node node = roots[stripe].find(key);
+                    if (node != null) {
+                        node.collect(result, limit);
+                    }
+                } finally {
+                    readLock.unlock();
+                }
+                return result;
+            }
+            // Every stripe, locked in order, with the first-level nodes merged in alphabetical order
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                locks[stripe].readLock().lock();
+            }
+            try {
+                List<Node> children = new ArrayList<>();
+                for (Node root : roots) {
+                    root.collectOwn(result, limit);
+                    children.addAll(Arrays.asList(root.children));
+                }
+                children.sort((first, second) -> Character.compare(first.label[0], second.label[0]));
+                for (Node child : children) {
+                    if (result.size() >= limit) {
+                        break;
+                    }
+                    child.collect(result, limit);
+                }
+            } finally {
+                for (int stripe = 0; stripe < STRIPES; stripe++) {
+                    locks[stripe].readLock().unlock();
+                }
+            }
+            return result;
+        }
+
+        private static int stripe(char[] key) {
+            return key.length == 0 ? 0 : key[0] & (STRIPES - 1);
+        }
+    }
+
+    /**
+     * Node of a compressed trie, reached through the characters of its label.
+     */
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] label;
+        // Children ordered by the first character of their labels, which are all different
+        private Node[] children = NO_CHILDREN;
+        // Domains whose key ends at this node: null, one WebDomain or a WebDomain[] for the rare duplicates
+        private Object domains;
+        // Domains at this node and below it
+        private int count;
+
+        Node(char[] label) {
+            this.label = label;
+        }
+
+        boolean insert(char[] key, int start, WebDomain domain) {
+            if (start == key.length) {
+                if (!addDomain(domain)) {
+                    return false;
+                }
+                count++;
+                return true;
+            }
+            int index = childIndex(key[start]);
+            if (index < 0) {
+                Node leaf = new Node(Arrays.copyOfRange(key, start, key.length));
+                leaf.domains = domain;
+                leaf.count = 1;
+                int position = -index - 1;
+                Node[] grown = new Node[children.length + 1];
+                System.arraycopy(children, 0, grown, 0, position);
+                grown[position] = leaf;
+                System.arraycopy(children, position, grown, position + 1, children.length - position);
+                children = grown;
+                count++;
+                return true;
+            }
+            Node child = children[index];
+            int common = commonLength(child.label, key, start);
+            if (common < child.label.length) {
+                // Split the edge where the key leaves it
+                Node middle = new Node(Arrays.copyOf(child.label, common));
+                child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                middle.children = new Node[]{child};
+                middle.count = child.count;
+                children[index] = middle;
+                child = middle;
+            }
+            if (!child.insert(key, start + common, domain)) {
+                return false;
+            }
+            count++;
+            return true;
+        }
+
+        boolean delete(char[] key, int start, WebDomain domain) {
+            if (start == key.length) {
+                if (!removeDomain(domain)) {
+                    return false;
+                }
+                count--;
+                return true;
+            }
+            int index = childIndex(key[start]);
+            if (index < 0) {
+                return false;
+            }
+            Node child = children[index];
+            if (commonLength(child.label, key, start) < child.label.length
+                    || !child.delete(key, start + child.label.length, domain)) {
+                return false;
+            }
+            count--;
+            if (child.count == 0) {
+                Node[] shrunk = new Node[children.length - 1];
+                System.arraycopy(children, 0, shrunk, 0, index);
+                System.arraycopy(children, index + 1, shrunk, index, shrunk.length - index);
+                children = shrunk.length == 0 ? NO_CHILDREN : shrunk;
+            } else if (child.domains == null && child.children.length == 1) {
+                // Merge the child with its only child, so every inner node keeps branching or holding domains
+                Node grandchild = child.children[0];
+                char[] merged = Arrays.copyOf(child.label, child.label.length + grandchild.label.length);
+                System.arraycopy(grandchild.label, 0, merged, child.label.length, grandchild.label.length);
+                grandchild.label = merged;
+                children[index] = grandchild;
+            }
+            return true;
+        }
+
+        /**
+         * Returns the node below which all the keys starting with the given key are, or null if there is none.
+         */
+        Node find(char[] key) {
+            Node node = this;
+            int start = 0;
+            while (start < key.length) {
+                int index = node.childIndex(key[start]);
+                if (index < 0) {
+                    return null;
+                }
+                Node child = node.children[index];
+                int common = commonLength(child.label, key, start);
+                if (start + common == key.length) {
+                    return child;
+                }
+                if (common < child.label.length) {
+                    return null;
+                }
+                node = child;
+                start += common;
+            }
+            return node;
+        }
+
+        void collect(List<WebDomain> result, int limit) {
+            collectOwn(result, limit);
+            for (Node child : children) {
+                if (result.size() >= limit) {
+                    return;
+                }
+                child.collect(result, limit);
+            }
+        }
+
+        void collectOwn(List<WebDomain> result, int limit) {
+            if (domains instanceof WebDomain) {
+                if (result.size() < limit) {
+                    result.add((WebDomain) domains);
+                }
+            } else if (domains != null) {
+                for (WebDomain domain : (WebDomain[]) domains) {
+                    if (result.size() >= limit) {
+                        return;
+                    }
+                    result.add(domain);
+                }
+            }
+        }
+
+        private int childIndex(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char first = children[middle].label[0];
+                if (first < c) {
+                    low = middle + 1;
+                } else if (first > c) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -low - 1;
+        }
+
+        private boolean addDomain(WebDomain domain) {
+            if (domains == null) {
+                domains = domain;
+                return true;
+            }
+            WebDomain[] current = domains instanceof WebDomain ? new WebDomain[]{(WebDomain) domains}
+                    : (WebDomain[]) domains;
+            for (WebDomain indexed : current) {
+                if (indexed == domain) {
+                    return false;
+                }
+            }
+            WebDomain[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = domain;
+            domains = grown;
+            return true;
+        }
+
+        private boolean removeDomain(WebDomain domain) {
+            if (domains == domain) {
+                domains = null;
+                return true;
+            }
+            if (!(domains instanceof WebDomain[])) {
+                return false;
+            }
+            WebDomain[] current = (WebDomain[]) domains;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == domain) {
+                    if (current.length == 2) {
+                        domains = current[1 - i];
+                    } else {
+                        WebDomain[] shrunk = new WebDomain[current.length - 1];
+                        System.arraycopy(current, 0, shrunk, 0, i);
+                        System.arraycopy(current, i + 1, shrunk, i, shrunk.length - i);
+                        domains = shrunk;
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static int commonLength(char[] label, char[] key, int start) {
+            int length = Math.min(label.length, key.length - start);
+            int i = 0;
+            while (i < length && label[i] == key[start + i]) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
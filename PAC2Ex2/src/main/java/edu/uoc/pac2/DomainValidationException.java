@@ -0,0 +1,26 @@
+package edu.uoc.pac2;
+
+/**
+ * Exception thrown by the {@link WebDomain} setters when a value breaks one of its validation rules.
+ * Instances are preallocated, one per {@link ValidationRule}, and never record a stack trace or suppressed
+ * exceptions, which keeps rejecting invalid rows as cheap as accepting valid ones.
+ */
+public final class DomainValidationException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final ValidationRule rule;
+
+    DomainValidationException(ValidationRule rule) {
+        super(rule.getMessage(), null, false, false);
+        this.rule = rule;
+    }
+
+    /**
+     * Returns the rule that was broken.
+     *
+     * @return the broken validation rule
+     */
+    public ValidationRule getRule() {
+        return rule;
+    }
+}
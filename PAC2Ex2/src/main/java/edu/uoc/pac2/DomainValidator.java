@@ -0,0 +1,238 @@
+package edu.uoc.pac2;
+
+/**
+ * Allocation-free validator for domain names.
+ * It applies the same rules as {@link WebDomain#setDomain(String)} (a name made of letters, digits and hyphens,
+ * followed by a dot and a valid extension, case-insensitive) in a single scan of the characters, without
+ * lowercasing, splitting or compiling any regular expression. It is meant to be called directly from bulk paths
+ * that do not need to build a {@link WebDomain}. It also validates full multi-label hostnames with
+ * {@link #isValidHostname(CharSequence)}.
+ */
+public final class DomainValidator {
+    private static final int MAX_HOSTNAME_LENGTH = 253;
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final int MAX_SUFFIX_LABELS = 3;
+
+    private DomainValidator() {
+    }
+
+    /**
+     * Checks whether the given candidate is a valid domain name using the extensions of the default
+     * {@link ExtensionRegistry}.
+     *
+     * @param domain the candidate domain name
+     * @return true if the domain name is valid, false otherwise
+     */
+    public static boolean isValidDomain(CharSequence domain) {
+        return isValidDomain(domain, ExtensionRegistry.getDefault());
+    }
+
+    /**
+     * Checks whether the given candidate is a valid domain name using the extensions of a registry.
+     *
+     * @param domain the candidate domain name
+     * @param extensions the registry with the accepted extensions
+     * @return true if the domain name is valid, false otherwise
+     */
+    public static boolean isValidDomain(CharSequence domain, ExtensionRegistry extensions) {
+        int extensionStart = extensionStart(domain);
+        if (extensionStart < 0) {
+            return false;
+        }
+        return extensions.contains(domain, extensionStart, extensionEnd(domain, extensionStart));
+    }
+
+    /**
+     * Checks whether the given candidate is a valid domain name for the given extensions.
+     * As with the former {@code split("\\.")} based check, trailing dots after the extension are ignored.
+     *
+     * @param domain the candidate domain name
+     * @param extensions the accepted extensions, in lowercase
+     * @return true if the domain name is valid, false otherwise
+     */
+    public static boolean isValidDomain(CharSequence domain, String[] extensions) {
+        int extensionStart = extensionStart(domain);
+        if (extensionStart < 0) {
+            return false;
+        }
+        return isExtension(domain, extensionStart, extensionEnd(domain, extensionStart), extensions);
+    }
+
+    /**
+     * Checks whether the given candidate is a valid multi-label hostname, such as {@code api.eu.shop.com}, using the
+     * extensions of the default {@link ExtensionRegistry}.
+     *
+     * @param hostname the candidate hostname
+     * @return true if the hostname is valid, false otherwise
+     * @see #isValidHostname(CharSequence, ExtensionRegistry)
+     */
+    public static boolean isValidHostname(CharSequence hostname) {
+        return isValidHostname(hostname, ExtensionRegistry.getDefault());
+    }
+
+    /**
+     * Checks whether the given candidate is a valid multi-label hostname.
+     * A hostname has at most 253 characters, ignoring an optional trailing dot, and is made of labels separated by
+     * dots. Every label has 1 to 63 letters, digits or hyphens and neither starts nor ends with a hyphen. The
+     * hostname must end with a registered extension, which may span up to three labels (as in {@code co.uk}), and
+     * have at least one label before it.
+     * The candidate is scanned once and the work per character is bounded: no regular expression, no backtracking
+     * and no per-label allocation. Candidates longer than the limit are rejected before scanning them.
+     *
+     * @param hostname the candidate hostname
+     * @param extensions the registry with the accepted extensions
+     * @return true if the hostname is valid, false otherwise
+     */
+    public static boolean isValidHostname(CharSequence hostname, ExtensionRegistry extensions) {
+        if (hostname == null) {
+            return false;
+        }
+        int length = hostname.length();
+        if (length > 0 && hostname.charAt(length - 1) == '.') {
+            length--;
+        }
+        if (length == 0 || length > MAX_HOSTNAME_LENGTH) {
+            return false;
+        }
+
+        // Start indexes of the last labels, the most recent first
+        int last = 0;
+        int secondLast = -1;
+        int thirdLast = -1;
+        int labels = 1;
+        int labelStart = 0;
+        for (int i = 0; i < length; i++) {
+            char c = toLowerCase(hostname.charAt(i));
+            if (c == '.') {
+                if (!isValidLabel(hostname, labelStart, i)) {
+                    return false;
+                }
+                labelStart = i + 1;
+                thirdLast = secondLast;
+                secondLast = last;
+                last = labelStart;
+                labels++;
+            } else if (!isNameChar(c) || i - labelStart >= MAX_LABEL_LENGTH) {
+                return false;
+            }
+        }
+        if (labels < 2 || !isValidLabel(hostname, labelStart, length)) {
+            return false;
+        }
+
+        for (int suffixLabels = 1; suffixLabels <= MAX_SUFFIX_LABELS && suffixLabels < labels; suffixLabels++) {
+            int suffixStart = suffixLabels == 1 ? last : suffixLabels == 2 ? secondLast : thirdLast;
+            if (extensions.contains(hostname, suffixStart, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the domain name in lowercase, the form in which {@link WebDomain#setDomain(String)} stores it.
+     * Only ASCII letters and the Kelvin sign are changed, so the result does not depend on the default locale, and
+     * the same String is returned when it is already in lowercase.
+     *
+     * @param domain the domain name
+     * @return the domain name in lowercase
+     */
+    public static String normalize(CharSequence domain) {
+        int length = domain.length();
+        int first = 0;
+        while (first < length && toLowerCase(domain.charAt(first)) == domain.charAt(first)) {
+            first++;
+        }
+        if (first == length) {
+            return domain.toString();
+        }
+        char[] normalized = new char[length];
+        for (int i = 0; i < length; i++) {
+            normalized[i] = toLowerCase(domain.charAt(i));
+        }
+        return new String(normalized);
+    }
+
+    private static boolean isValidLabel(CharSequence hostname, int start, int end) {
+        return end > start && hostname.charAt(start) != '-' && hostname.charAt(end - 1) != '-';
+    }
+
+    /**
+     * Checks the name part of the candidate and the characters after its extension.
+     *
+     * @param domain the candidate domain name
+     * @return the index of the first character of the extension, or -1 if the candidate is not a valid domain
+     * whatever its extension is
+     */
+    private static int extensionStart(CharSequence domain) {
+        if (domain == null) {
+            return -1;
+        }
+        int length = domain.length();
+
+        int dot = 0;
+        while (dot < length && domain.charAt(dot) != '.') {
+            if (!isNameChar(toLowerCase(domain.charAt(dot)))) {
+                return -1;
+            }
+            dot++;
+        }
+        if (dot == 0 || dot == length) {
+            return -1;
+        }
+
+        int extensionEnd = extensionEnd(domain, dot + 1);
+        for (int i = extensionEnd; i < length; i++) {
+            if (domain.charAt(i) != '.') {
+                return -1;
+            }
+        }
+        return dot + 1;
+    }
+
+    private static int extensionEnd(CharSequence domain, int extensionStart) {
+        int extensionEnd = extensionStart;
+        while (extensionEnd < domain.length() && domain.charAt(extensionEnd) != '.') {
+            extensionEnd++;
+        }
+        return extensionEnd;
+    }
+
+    /**
+     * Checks whether the characters between start and end match one of the extensions, ignoring case.
+     *
+     * @param domain the sequence holding the extension
+     * @param start the index of the first character of the extension
+     * @param end the index after the last character of the extension
+     * @param extensions the accepted extensions, in lowercase
+     * @return true if the extension is accepted, false otherwise
+     */
+    static boolean isExtension(CharSequence domain, int start, int end, String[] extensions) {
+        int length = end - start;
+        for (String extension : extensions) {
+            if (extension.length() != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && toLowerCase(domain.charAt(start + i)) == extension.charAt(i)) {
+                i++;
+            }
+            if (i == length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-';
+    }
+
+    static char toLowerCase(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        // KELVIN SIGN is the only non-ASCII character that String.toLowerCase() turns into [a-z0-9-]
+        return c == '\u212A' ? 'k' : c;
+    }
+}
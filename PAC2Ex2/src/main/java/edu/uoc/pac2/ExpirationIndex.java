@@ -0,0 +1,180 @@
+package edu.uoc.pac2;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Index of domains ordered by expiration date, answering range queries in O(log n + k) for k results.
+ * Domains are grouped in one bucket per epoch day, and the buckets are kept in a {@link ConcurrentSkipListMap},
+ * so queries only visit the days in the range and never lock the whole index. Empty buckets are removed. The
+ * index follows the changes of {@link WebDomain#setExpirationDate(LocalDate)} once it is attached to a
+ * {@link DomainRegistry} or registered in {@link WebDomainEvents}. Domains without expiration date are kept but
+ * never returned.
+ * Like the views of the skip list, queries are weakly consistent: a domain whose expiration date changes while a
+ * query runs may be returned at its old date, at its new date, at both or at neither.
+ */
+public final class ExpirationIndex implements DomainIndex {
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final ConcurrentSkipListMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+    // Epoch day under which every indexed domain is stored. WebDomain does not override equals, so the keys are
+    // compared by identity.
+    private final ConcurrentHashMap<WebDomain, Long> days = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a domain to the index, or moves it to its current expiration date if it is already indexed.
+     *
+     * @param domain the domain to index
+     */
+    @Override
+    public void add(WebDomain domain) {
+        days.compute(domain, (key, day) -> {
+            long expiration = epochDay(domain);
+            if (day != null) {
+                if (day == expiration) {
+                    return day;
+                }
+                delete(day, domain);
+            }
+            insert(expiration, domain);
+            return expiration;
+        });
+    }
+
+    /**
+     * Removes a domain from the index.
+     *
+     * @param domain the domain to remove
+     */
+    @Override
+    public void remove(WebDomain domain) {
+        days.computeIfPresent(domain, (key, day) -> {
+            delete(day, domain);
+            return null;
+        });
+    }
+
+    /**
+     * Moves an indexed domain when its expiration date changes.
+     *
+     * @param domain the changed domain
+     * @param field the field that has been set
+     * @param previous the value of the field before the change
+     */
+    @Override
+    public void changed(WebDomain domain, DomainField field, Object previous) {
+        if (field == DomainField.EXPIRATION_DATE && days.containsKey(domain)) {
+            days.computeIfPresent(domain, (key, day) -> {
+                long expiration = epochDay(domain);
+                if (day != expiration) {
+                    delete(day, domain);
+                    insert(expiration, domain);
+                }
+                return expiration;
+            });
+        }
+    }
+
+    /**
+     * Returns the domains expiring between two dates, both included, ordered by expiration date.
+     *
+     * @param from the first date of the range
+     * @param to the last date of the range
+     * @return the domains expiring in the range
+     */
+    public List<WebDomain> expiringBetween(LocalDate from, LocalDate to) {
+        return collect(from.toEpochDay(), true, to.toEpochDay(), true);
+    }
+
+    /**
+     * Returns the domains that have not expired and expire within the given number of days from the current date
+     * of the {@link DomainClock}, ordered by expiration date.
+     *
+     * @param days the number of days from today, 0 for the domains expiring today
+     * @return the domains expiring in the next days
+     */
+    public List<WebDomain> expiringWithin(int days) {
+        if (days < 0) {
+            throw new IllegalArgumentException("[ERROR] The number of days cannot be negative.");
+        }
+        long today = DomainClock.currentEpochDay();
+        return collect(today, true, today + days, true);
+    }
+
+    /**
+     * Returns the domains whose expiration date is before the current date of the {@link DomainClock}, ordered
+     * by expiration date. These are the domains for which {@link WebDomain#isExpired()} is true.
+     *
+     * @return the expired domains
+     */
+    public List<WebDomain> expired() {
+        return collect(NO_DATE, false, DomainClock.currentEpochDay(), false);
+    }
+
+    /**
+     * Returns the number of indexed domains.
+     *
+     * @return the number of domains
+     */
+    public int size() {
+        return days.size();
+    }
+
+    private List<WebDomain> collect(long from, boolean fromInclusive, long to, boolean toInclusive) {
+        List<WebDomain> result = new ArrayList<>();
+        if (from > to) {
+            return result;
+        }
+        for (Bucket bucket : buckets.subMap(from, fromInclusive, to, toInclusive).values()) {
+            synchronized (bucket) {
+                result.addAll(bucket.domains);
+            }
+        }
+        return result;
+    }
+
+    private void insert(long day, WebDomain domain) {
+        if (day == NO_DATE) {
+            return;
+        }
+        while (true) {
+            Bucket bucket = buckets.computeIfAbsent(day, key -> new Bucket());
+            synchronized (bucket) {
+                if (!bucket.dead) {
+                    bucket.domains.add(domain);
+                    return;
+                }
+            }
+            // The bucket was emptied and removed meanwhile, so a new one is created on the next try
+        }
+    }
+
+    private void delete(long day, WebDomain domain) {
+        Bucket bucket = buckets.get(day);
+        if (bucket == null) {
+            return;
+        }
+        synchronized (bucket) {
+            if (bucket.domains.remove(domain) && bucket.domains.isEmpty()) {
+                bucket.dead = true;
+                buckets.remove(day, bucket);
+            }
+        }
+    }
+
+    private static long epochDay(WebDomain domain) {
+        LocalDate expirationDate = domain.getExpirationDate();
+        return expirationDate == null ? NO_DATE : expirationDate.toEpochDay();
+    }
+
+    private static final class Bucket {
+        private final Set<WebDomain> domains = Collections.newSetFromMap(new IdentityHashMap<>());
+        private boolean dead;
+    }
+}
@@ -0,0 +1,212 @@
+package edu.uoc.pac2;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Set of domain extensions accepted by {@link DomainValidator}.
+ * The extensions are kept in an immutable open-addressing hash table that is looked up in constant time,
+ * ignoring case and without allocating. Loading a new list builds a fresh table and publishes it with a single
+ * volatile write, so concurrent validators never lock and always see either the old or the new list complete.
+ */
+public final class ExtensionRegistry {
+    private static final ExtensionRegistry DEFAULT = new ExtensionRegistry(WebDomain.getValidExtensions());
+
+    private volatile Table table;
+
+    /**
+     * Creates a registry holding the given extensions.
+     *
+     * @param extensions the accepted extensions
+     */
+    public ExtensionRegistry(String... extensions) {
+        this.table = Table.of(parse(List.of(extensions)));
+    }
+
+    /**
+     * Returns the registry used by {@link WebDomain} and {@link DomainValidator}, which initially holds the
+     * extensions accepted by {@link WebDomain}: com, org, net, int, edu, gov and mil.
+     *
+     * @return the default registry
+     */
+    public static ExtensionRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Replaces the extensions of the registry with the ones listed in a file.
+     * The file follows the public suffix list format: one extension per line, read up to the first whitespace,
+     * with lines starting with "//" or "#" ignored. Wildcard ("*.") and exception ("!") rules and entries with
+     * characters outside [a-z0-9-.] are skipped. The current extensions are kept if the file cannot be read or
+     * contains no usable extension.
+     *
+     * @param file the file with the extensions
+     * @return the number of distinct extensions loaded
+     * @throws IOException if the file cannot be read or contains no usable extension
+     */
+    public int load(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        List<String> extensions = parse(lines);
+        if (extensions.isEmpty()) {
+            throw new IOException("[ERROR] No valid extensions found in " + file + ".");
+        }
+        Table loaded = Table.of(extensions);
+        table = loaded;
+        return loaded.size;
+    }
+
+    /**
+     * Replaces the extensions of the registry.
+     *
+     * @param extensions the new accepted extensions
+     * @return the number of distinct extensions kept
+     */
+    public int replace(Collection<String> extensions) {
+        Table replaced = Table.of(parse(extensions));
+        table = replaced;
+        return replaced.size;
+    }
+
+    /**
+     * Checks whether an extension is accepted, ignoring case.
+     *
+     * @param extension the extension without the leading dot
+     * @return true if the extension is accepted, false otherwise
+     */
+    public boolean contains(CharSequence extension) {
+        return extension != null && contains(extension, 0, extension.length());
+    }
+
+    /**
+     * Checks whether the characters between start and end form an accepted extension, ignoring case.
+     *
+     * @param sequence the sequence holding the extension
+     * @param start the index of the first character of the extension
+     * @param end the index after the last character of the extension
+     * @return true if the extension is accepted, false otherwise
+     */
+    public boolean contains(CharSequence sequence, int start, int end) {
+        return table.contains(sequence, start, end);
+    }
+
+    /**
+     * Returns the number of accepted extensions.
+     *
+     * @return the number of extensions
+     */
+    public int size() {
+        return table.size;
+    }
+
+    private static List<String> parse(Collection<String> lines) {
+        List<String> extensions = new ArrayList<>();
+        for (String line : lines) {
+            String entry = line.strip();
+            int space = 0;
+            while (space < entry.length() && !Character.isWhitespace(entry.charAt(space))) {
+                space++;
+            }
+            entry = entry.substring(0, space);
+            if (entry.startsWith(".")) {
+                entry = entry.substring(1);
+            }
+            if (!entry.isEmpty() && !entry.startsWith("//") && !entry.startsWith("#") && isSupported(entry)) {
+                extensions.add(entry);
+            }
+        }
+        return extensions;
+    }
+
+    private static boolean isSupported(String entry) {
+        if (entry.charAt(entry.length() - 1) == '.') {
+            return false;
+        }
+        for (int i = 0; i < entry.length(); i++) {
+            char c = DomainValidator.toLowerCase(entry.charAt(i));
+            if (c == '.' ? i == 0 || entry.charAt(i - 1) == '.' : !DomainValidator.isNameChar(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence sequence, int start, int end) {
+        int hash = 0x811c9dc5;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ DomainValidator.toLowerCase(sequence.charAt(i))) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Table {
+        private final char[][] keys;
+        private final int mask;
+        private final int size;
+
+        private Table(char[][] keys, int size) {
+            this.keys = keys;
+            this.mask = keys.length - 1;
+            this.size = size;
+        }
+
+        static Table of(List<String> extensions) {
+            int capacity = 4;
+            while (capacity < extensions.size() * 4) {
+                capacity <<= 1;
+            }
+            char[][] keys = new char[capacity][];
+            int size = 0;
+            for (String extension : extensions) {
+                int slot = hash(extension, 0, extension.length()) & (capacity - 1);
+                while (keys[slot] != null && !matches(keys[slot], extension, 0, extension.length())) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                if (keys[slot] == null) {
+                    char[] key = new char[extension.length()];
+                    for (int i = 0; i < key.length; i++) {
+                        key[i] = DomainValidator.toLowerCase(extension.charAt(i));
+                    }
+                    keys[slot] = key;
+                    size++;
+                }
+            }
+            return new Table(keys, size);
+        }
+
+        boolean contains(CharSequence sequence, int start, int end) {
+            int slot = hash(sequence, start, end) & mask;
+            char[] key;
+            while ((key = keys[slot]) != null) {
+                if (matches(key, sequence, start, end)) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        private static boolean matches(char[] key, CharSequence sequence, int start, int end) {
+            if (key.length != end - start) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != DomainValidator.toLowerCase(sequence.charAt(start + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,553 @@
+package edu.uoc.pac2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only redo log of the changes made to the domains of a {@link DomainRegistry}.
+ * The log is attached to the registry as a {@link DomainIndex}: every domain registered or removed, and every
+ * field set on a registered domain, is appended as a record, and the call returns once the record is on disk.
+ * Records are appended after the change has been applied in memory, not before, so a change is visible to other
+ * threads before it is durable.
+ * The registry appends the records of registrations and removals while it holds the lock of the domain, which
+ * only copies them to memory, and waits for the disk in {@link #flush()} once it has released the lock.
+ * Records are written with group commit: the first thread that needs a record on disk writes every record
+ * appended so far and calls {@link FileChannel#force(boolean)} once, while the threads arriving meanwhile wait
+ * and share the next write, so the cost of a force is spread over all the changes made while it runs.
+ * If the records cannot be written, the changes stay applied, in the registry and in the domains, and the calls
+ * waiting for them, setters included, throw {@link UncheckedIOException}, as does every later change.
+ * Each record is framed by its length and its CRC32. When the log is opened, its records are replayed into the
+ * registry, and the log is truncated after the last complete record, dropping a record torn by a crash.
+ */
+public final class MutationLog implements DomainIndex, Closeable {
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte SET = 3;
+    private static final int MAX_RECORD_SIZE = 1 << 24;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final DomainField[] FIELDS = DomainField.values();
+
+    private final FileChannel channel;
+    private final DomainRegistry registry;
+    // Registered domains, compared by identity as WebDomain does not override equals
+    private final Set<WebDomain> tracked = ConcurrentHashMap.newKeySet();
+    // Domains already in the file, which the registry passes again to add when the log is attached
+    private final Set<WebDomain> logged = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Position after the last record appended by each thread and not yet known to be on disk, or 0
+    private final ThreadLocal<long[]> pending = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition synced = lock.newCondition();
+    private Batch batch = new Batch();
+    private Batch spare = new Batch();
+    private long appended;
+    private long durable;
+    private long syncs;
+    private boolean syncing;
+    private boolean closed;
+    private IOException failure;
+
+    private MutationLog(FileChannel channel, DomainRegistry registry) {
+        this.channel = channel;
+        this.registry = registry;
+    }
+
+    /**
+     * Opens a log, creating the file if it does not exist, replays its records into a registry and attaches the
+     * log to the registry. Domains already in the registry that are not rebuilt by the replay are appended, all
+     * with a single force. The registry must not be changed by other threads until the log is open.
+     *
+     * @param file the log file
+     * @param registry the registry to rebuild and to log
+     * @return the open log
+     * @throws IOException if the file cannot be read or written
+     */
+    public static MutationLog open(Path file, DomainRegistry registry) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            MutationLog log = new MutationLog(channel, registry);
+            long end = log.replay(file);
+            channel.truncate(end);
+            channel.position(end);
+            log.appendExisting();
+            channel.force(true);
+            registry.addIndex(log);
+            synchronized (log.logged) {
+                log.logged.clear();
+            }
+            return log;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of times the log has been forced to disk.
+     *
+     * @return the number of forces
+     */
+    public long getSyncCount() {
+        lock.lock();
+        try {
+            return syncs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Detaches the log from its registry and closes the file. Records that have been appended are written before
+     * the file is closed.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        registry.removeIndex(this);
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            while (syncing || (durable < appended && failure == null)) {
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                } else {
+                    sync();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        channel.close();
+    }
+
+    /**
+     * Appends the registration of a domain. The record is on disk once {@link #flush()} returns.
+     *
+     * @param domain the registered domain
+     */
+    @Override
+    public void add(WebDomain domain) {
+        // A domain registered while the log is attached is passed twice, by the registration and by the backfill
+        if (!tracked.add(domain)) {
+            return;
+        }
+        synchronized (logged) {
+            if (logged.remove(domain)) {
+                return;
+            }
+        }
+        append(addRecord(domain));
+    }
+
+    /**
+     * Appends the removal of a domain. The record is on disk once {@link #flush()} returns.
+     *
+     * @param domain the removed domain
+     */
+    @Override
+    public void remove(WebDomain domain) {
+        if (tracked.remove(domain)) {
+            append(record(out -> {
+                out.writeByte(REMOVE);
+                writeString(out, domain.getDomain());
+            }));
+        }
+    }
+
+    /**
+     * Waits until the records appended by the current thread are on disk.
+     *
+     * @throws UncheckedIOException if the records cannot be written
+     * @throws IllegalStateException if a record was appended after the log was closed
+     */
+    @Override
+    public void flush() {
+        long[] position = pending.get();
+        if (position[0] == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durable < position[0]) {
+                if (position[0] > appended) {
+                    position[0] = 0;
+                    throw new IllegalStateException("[ERROR] The mutation log is closed.");
+                }
+                if (failure != null) {
+                    position[0] = 0;
+                    throw new UncheckedIOException("[ERROR] The mutation log cannot be written.", failure);
+                }
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                } else {
+                    sync();
+                }
+            }
+            position[0] = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends the change of a field of a registered domain and waits until it is on disk. Changes to other domains
+     * are ignored.
+     *
+     * @param domain the changed domain
+     * @param field the field that has been set
+     * @param previous the value of the field before the change
+     * @throws UncheckedIOException if the record cannot be written
+     */
+    @Override
+    public void changed(WebDomain domain, DomainField field, Object previous) {
+        if (!tracked.contains(domain)) {
+            return;
+        }
+        // The value is read under the lock that orders the appends, so when several threads set the same field the
+        // last record holds the value set last
+        lock.lock();
+        try {
+            append(record(out -> {
+                out.writeByte(SET);
+                // Renamed domains are found by the name they had
+                writeString(out, field == DomainField.DOMAIN ? (String) previous : domain.getDomain());
+                out.writeByte(field.ordinal());
+                writeValue(out, field, value(domain, field));
+            }));
+        } finally {
+            lock.unlock();
+        }
+        flush();
+    }
+
+    /**
+     * Copies a record to the batch being filled, without waiting for the disk and without throwing, so that it can
+     * be called while the registry holds its locks. The wait and the errors are left to {@link #flush()}.
+     */
+    private void append(byte[] record) {
+        long[] position = pending.get();
+        lock.lock();
+        try {
+            if (closed) {
+                // Beyond anything appended, so that flush reports it
+                position[0] = Long.MAX_VALUE;
+                return;
+            }
+            batch.write(record);
+            appended += record.length;
+            position[0] = appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the registration of every domain of the registry not rebuilt by the replay, before the log is
+     * attached, and marks them as logged so that attaching the log does not append them again.
+     */
+    private void appendExisting() throws IOException {
+        // The stream is not closed, as that would close the channel
+        OutputStream output = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+        boolean written = false;
+        for (WebDomain domain : registry.values()) {
+            if (!logged.contains(domain)) {
+                output.write(addRecord(domain));
+                logged.add(domain);
+                written = true;
+            }
+        }
+        output.flush();
+        if (written) {
+            syncs++;
+        }
+    }
+
+    /**
+     * Writes and forces every record appended so far, releasing the lock meanwhile so that other threads can
+     * append the records of the next batch.
+     */
+    private void sync() {
+        syncing = true;
+        Batch written = batch;
+        batch = spare;
+        long target = appended;
+        lock.unlock();
+        IOException error = null;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(written.bytes, 0, written.length);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            lock.lock();
+        }
+        written.length = 0;
+        spare = written;
+        syncing = false;
+        if (error != null) {
+            failure = error;
+        } else {
+            durable = target;
+            syncs++;
+        }
+        synced.signalAll();
+    }
+
+    /**
+     * Applies the records of the file to the registry and returns the position after the last complete record.
+     */
+    private long replay(Path file) throws IOException {
+        Map<String, WebDomain> domains = new HashMap<>();
+        for (WebDomain domain : registry.values()) {
+            domains.put(DomainValidator.normalize(domain.getDomain()), domain);
+        }
+        long position = 0;
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(file))) {
+            DataInputStream frames = new DataInputStream(input);
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = frames.readInt();
+                    int checksum = frames.readInt();
+                    if (length <= 0 || length > MAX_RECORD_SIZE) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    frames.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                apply(new DataInputStream(new ByteArrayInputStream(payload)), domains);
+                position += 8 + payload.length;
+            }
+        }
+        return position;
+    }
+
+    private void apply(DataInputStream in, Map<String, WebDomain> domains) throws IOException {
+        byte operation = in.readByte();
+        if (operation == ADD) {
+            WebDomain domain = new WebDomain(readString(in), readString(in), readString(in),
+                    StringDictionary.HOSTING_PROVIDERS.intern(readString(in)),
+                    readDate(in), readDate(in), in.readInt(), in.readBoolean(), in.readBoolean());
+            WebDomain previous = domains.put(DomainValidator.normalize(domain.getDomain()), domain);
+            if (previous != null) {
+                registry.remove(previous);
+            }
+            try {
+                WebDomain registered = registry.register(domain);
+                if (registered != null) {
+                    registry.replace(registered, domain);
+                }
+            } catch (DomainValidationException e) {
+                throw new IOException("[ERROR] The mutation log holds an invalid domain.", e);
+            }
+            logged.add(domain);
+        } else if (operation == REMOVE) {
+            WebDomain domain = domains.remove(DomainValidator.normalize(readString(in)));
+            if (domain != null) {
+                registry.remove(domain);
+                logged.remove(domain);
+            }
+        } else if (operation == SET) {
+            String name = DomainValidator.normalize(readString(in));
+            DomainField field = FIELDS[in.readByte()];
+            WebDomain domain = domains.get(name);
+            if (domain == null) {
+                return;
+            }
+            Object previous = value(domain, field);
+            Object value = readValue(in, field);
+            domain.restore(field, field == DomainField.HOSTING_PROVIDER
+                    ? StringDictionary.HOSTING_PROVIDERS.intern((String) value) : value);
+            WebDomainEvents.fire(domain, field, previous);
+            if (field == DomainField.DOMAIN) {
+                domains.remove(name);
+                domains.put(DomainValidator.normalize(domain.getDomain()), domain);
+            }
+        } else {
+            throw new IOException("[ERROR] Unknown mutation log record " + operation + ".");
+        }
+    }
+
+    private static byte[] addRecord(WebDomain domain) {
+        return record(out -> {
+            out.writeByte(ADD);
+            writeString(out, domain.getDomain());
+            writeString(out, domain.getOwnerName());
+            writeString(out, domain.getOwnerEmail());
+            writeString(out, domain.getHostingProvider());
+            writeDate(out, domain.getRegistrationDate());
+            writeDate(out, domain.getExpirationDate());
+            out.writeInt(domain.getMaxConcurrentUsers());
+            out.writeBoolean(domain.isWhoisPrivacy());
+            out.writeBoolean(domain.isAutoRenew());
+        });
+    }
+
+    private static byte[] record(RecordWriter writer) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(0);
+            writer.write(out);
+            byte[] record = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(record, 8, record.length - 8);
+            ByteBuffer.wrap(record).putInt(record.length - 8).putInt((int) crc.getValue());
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Object value(WebDomain domain, DomainField field) {
+        switch (field) {
+            case DOMAIN:
+                return domain.getDomain();
+            case OWNER_NAME:
+                return domain.getOwnerName();
+            case OWNER_EMAIL:
+                return domain.getOwnerEmail();
+            case HOSTING_PROVIDER:
+                return domain.getHostingProvider();
+            case REGISTRATION_DATE:
+                return domain.getRegistrationDate();
+            case EXPIRATION_DATE:
+                return domain.getExpirationDate();
+            case MAX_CONCURRENT_USERS:
+                return domain.getMaxConcurrentUsers();
+            case AUTO_RENEW:
+                return domain.isAutoRenew();
+            default:
+                return domain.isWhoisPrivacy();
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, DomainField field, Object value) throws IOException {
+        switch (field) {
+            case REGISTRATION_DATE:
+            case EXPIRATION_DATE:
+                writeDate(out, (LocalDate) value);
+                break;
+            case MAX_CONCURRENT_USERS:
+                out.writeInt((Integer) value);
+                break;
+            case AUTO_RENEW:
+            case WHOIS_PRIVACY:
+                out.writeBoolean((Boolean) value);
+                break;
+            default:
+                writeString(out, (String) value);
+                break;
+        }
+    }
+
+    private static Object readValue(DataInputStream in, DomainField field) throws IOException {
+        switch (field) {
+            case REGISTRATION_DATE:
+            case EXPIRATION_DATE:
+                return readDate(in);
+            case MAX_CONCURRENT_USERS:
+                return in.readInt();
+            case AUTO_RENEW:
+            case WHOIS_PRIVACY:
+                return in.readBoolean();
+            default:
+                return readString(in);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? NO_DATE : date.toEpochDay());
+    }
+
+    private static LocalDate readDate(DataInputStream in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Growable buffer of the records appended since the last write.
+     */
+    private static final class Batch {
+        private byte[] bytes = new byte[1 << 16];
+        private int length;
+
+        private void write(byte[] record) {
+            if (length + record.length > bytes.length) {
+                byte[] grown = new byte[Math.max(bytes.length * 2, length + record.length)];
+                System.arraycopy(bytes, 0, grown, 0, length);
+                bytes = grown;
+            }
+            System.arraycopy(record, 0, bytes, length, record.length);
+            length += record.length;
+        }
+    }
+}
@@ -0,0 +1,557 @@
+package edu.uoc.pac2;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Store of domains kept outside the Java heap, in direct ByteBuffers, so that the heap and the garbage collection
+ * time do not grow with the portfolio.
+ * <ul>
+ *     <li>Every domain has a fixed-width record of 32 bytes with the dates as epoch days, the maximum number of
+ *     concurrent users, the hosting provider code, the offset of its strings, the hash of its name and its
+ *     flags. Records are allocated in chunks of 65536.</li>
+ *     <li>The domain name, owner name and owner email are written one after the other as length-prefixed UTF-8
+ *     in a string area of 4 MiB chunks.</li>
+ *     <li>Domains are found by name through an open-addressing hash table with linear probing, also off-heap,
+ *     holding one int per slot. Removals shift the following entries back instead of leaving tombstones.</li>
+ * </ul>
+ * The only objects on the heap are the chunk buffers and the small {@link StringDictionary} of hosting providers.
+ * Domain names are stored in lowercase, as {@link WebDomain#setDomain(String)} does. Replacing or removing a domain
+ * does not reclaim the space of its strings. Reads take a shared lock and writes an exclusive one.
+ */
+public final class OffHeapDomainStore {
+    private static final int RECORD_SIZE = 32;
+    private static final int REGISTRATION = 0;
+    private static final int EXPIRATION = 4;
+    private static final int MAX_CONCURRENT_USERS = 8;
+    private static final int PROVIDER = 12;
+    private static final int STRINGS = 16;
+    private static final int HASH = 24;
+    private static final int FLAGS = 28;
+
+    private static final byte WHOIS_PRIVACY = 1;
+    private static final byte AUTO_RENEW = 2;
+    private static final byte REMOVED = 4;
+
+    private static final int RECORD_CHUNK_BITS = 16;
+    private static final int STRING_CHUNK_BITS = 22;
+    private static final int STRING_CHUNK_SIZE = 1 << STRING_CHUNK_BITS;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    // Largest index whose int slots fit in a single ByteBuffer
+    private static final int MAX_INDEX_CAPACITY = 1 << 28;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ByteBuffer> recordChunks = new ArrayList<>();
+    private final List<ByteBuffer> stringChunks = new ArrayList<>();
+    private final StringDictionary providers = new StringDictionary();
+
+    // Slots hold the record number plus one, or 0 when they are free
+    private ByteBuffer index;
+    private int indexMask;
+    private int records;
+    private int size;
+    private long stringEnd;
+
+    /**
+     * Creates an empty store.
+     */
+    public OffHeapDomainStore() {
+        this(1024);
+    }
+
+    /**
+     * Creates an empty store whose index has room for the expected number of domains.
+     *
+     * @param expectedSize the number of domains the store is expected to hold
+     */
+    public OffHeapDomainStore(int expectedSize) {
+        if (expectedSize < 0 || expectedSize > MAX_INDEX_CAPACITY / 2) {
+            throw new IllegalArgumentException("[ERROR] Invalid expected size " + expectedSize + ".");
+        }
+        long capacity = 16;
+        while (capacity < expectedSize * 2L) {
+            capacity <<= 1;
+        }
+        index = allocate(indexBytes(capacity));
+        indexMask = (int) capacity - 1;
+    }
+
+    /**
+     * Stores a copy of a domain, replacing the domain stored with the same name, ignoring case, if there is any.
+     *
+     * @param domain the domain to store
+     * @return the number of the record of the domain
+     * @throws DomainValidationException if the name of the domain has an invalid format
+     */
+    public int put(DomainRecord domain) throws DomainValidationException {
+        String name = domain.getDomain();
+        if (!DomainValidator.isValidDomain(name)) {
+            throw ValidationRule.DOMAIN_FORMAT.getException();
+        }
+        byte[] key = DomainValidator.normalize(name).getBytes(StandardCharsets.UTF_8);
+        byte[] ownerName = bytes(domain.getOwnerName());
+        byte[] ownerEmail = bytes(domain.getOwnerEmail());
+        int hash = hash(key);
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            int slot = findSlot(key, hash);
+            int record = index.getInt(slot * 4) - 1;
+            boolean added = record < 0;
+            // A domain is only added if the index can grow to hold it
+            if (added && (records == Integer.MAX_VALUE
+                    || ((size + 1) * 2L > indexMask + 1L && indexMask + 1 == MAX_INDEX_CAPACITY))) {
+                throw new IllegalStateException("[ERROR] The store is full.");
+            }
+            long strings = appendStrings(key, ownerName, ownerEmail);
+            if (added) {
+                record = records;
+                if ((record >>> RECORD_CHUNK_BITS) == recordChunks.size()) {
+                    recordChunks.add(allocate(RECORD_SIZE << RECORD_CHUNK_BITS));
+                }
+                records++;
+            }
+            ByteBuffer chunk = recordChunk(record);
+            int base = recordOffset(record);
+            chunk.putInt(base + REGISTRATION, toEpochDay(domain.getRegistrationDate()));
+            chunk.putInt(base + EXPIRATION, toEpochDay(domain.getExpirationDate()));
+            chunk.putInt(base + MAX_CONCURRENT_USERS, domain.getMaxConcurrentUsers());
+            chunk.putInt(base + PROVIDER, providers.encode(domain.getHostingProvider()));
+            chunk.putLong(base + STRINGS, strings);
+            chunk.putInt(base + HASH, hash);
+            chunk.put(base + FLAGS, (byte) ((domain.isWhoisPrivacy() ? WHOIS_PRIVACY : 0)
+                    | (domain.isAutoRenew() ? AUTO_RENEW : 0)));
+            if (added) {
+                // The record is linked once its hash is written, as resizing reads it
+                index.putInt(slot * 4, record + 1);
+                size++;
+                if (size * 2L > indexMask + 1L) {
+                    resize();
+                }
+            }
+            return record;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the record of the domain with the given name, ignoring case.
+     *
+     * @param domain the domain name
+     * @return the number of the record, or -1 if the domain is not stored
+     */
+    public int find(CharSequence domain) {
+        if (domain == null) {
+            return -1;
+        }
+        byte[] key = DomainValidator.normalize(domain).getBytes(StandardCharsets.UTF_8);
+        int hash = hash(key);
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return index.getInt(findSlot(key, hash) * 4) - 1;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a view of the domain with the given name, ignoring case.
+     *
+     * @param domain the domain name
+     * @return a view of the domain, or null if it is not stored
+     */
+    public View get(CharSequence domain) {
+        int record = find(domain);
+        return record < 0 ? null : new View(this, record);
+    }
+
+    /**
+     * Returns a view of a record.
+     *
+     * @param record the number of the record
+     * @return a view of the record
+     */
+    public View view(int record) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            checkRecord(record);
+        } finally {
+            readLock.unlock();
+        }
+        return new View(this, record);
+    }
+
+    /**
+     * Removes the domain with the given name, ignoring case.
+     *
+     * @param domain the domain name
+     * @return true if the domain was removed, false if it was not stored
+     */
+    public boolean remove(CharSequence domain) {
+        if (domain == null) {
+            return false;
+        }
+        byte[] key = DomainValidator.normalize(domain).getBytes(StandardCharsets.UTF_8);
+        int hash = hash(key);
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            int hole = findSlot(key, hash);
+            int record = index.getInt(hole * 4) - 1;
+            if (record < 0) {
+                return false;
+            }
+            ByteBuffer chunk = recordChunk(record);
+            int base = recordOffset(record);
+            chunk.put(base + FLAGS, (byte) (chunk.get(base + FLAGS) | REMOVED));
+            // Move back the entries whose probe sequence goes through the freed slot
+            int next = (hole + 1) & indexMask;
+            int entry;
+            while ((entry = index.getInt(next * 4)) != 0) {
+                int home = recordHash(entry - 1) & indexMask;
+                if (((next - home) & indexMask) >= ((next - hole) & indexMask)) {
+                    index.putInt(hole * 4, entry);
+                    hole = next;
+                }
+                next = (next + 1) & indexMask;
+            }
+            index.putInt(hole * 4, 0);
+            size--;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of domains stored.
+     *
+     * @return the number of domains
+     */
+    public int size() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return size;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of bytes allocated outside the heap by the records, the strings and the index.
+     *
+     * @return the off-heap memory used by the store in bytes
+     */
+    public long getOffHeapBytes() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return (long) recordChunks.size() * (RECORD_SIZE << RECORD_CHUNK_BITS)
+                    + (long) stringChunks.size() * STRING_CHUNK_SIZE + index.capacity();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private int findSlot(byte[] key, int hash) {
+        int slot = hash & indexMask;
+        int entry;
+        while ((entry = index.getInt(slot * 4)) != 0) {
+            int record = entry - 1;
+            if (recordHash(record) == hash && nameEquals(record, key)) {
+                return slot;
+            }
+            slot = (slot + 1) & indexMask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long capacity = (indexMask + 1L) * 2;
+        ByteBuffer resized = allocate(indexBytes(capacity));
+        int mask = (int) capacity - 1;
+        for (int slot = 0; slot <= indexMask; slot++) {
+            int entry = index.getInt(slot * 4);
+            if (entry != 0) {
+                int target = recordHash(entry - 1) & mask;
+                while (resized.getInt(target * 4) != 0) {
+                    target = (target + 1) & mask;
+                }
+                resized.putInt(target * 4, entry);
+            }
+        }
+        index = resized;
+        indexMask = mask;
+    }
+
+    private boolean nameEquals(int record, byte[] key) {
+        long offset = recordChunk(record).getLong(recordOffset(record) + STRINGS);
+        ByteBuffer chunk = stringChunks.get((int) (offset >>> STRING_CHUNK_BITS));
+        int position = (int) (offset & (STRING_CHUNK_SIZE - 1));
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = chunk.get(position++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        if (value - 1 != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (chunk.get(position + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int recordHash(int record) {
+        return recordChunk(record).getInt(recordOffset(record) + HASH);
+    }
+
+    private ByteBuffer recordChunk(int record) {
+        return recordChunks.get(record >>> RECORD_CHUNK_BITS);
+    }
+
+    private static int recordOffset(int record) {
+        return (record & ((1 << RECORD_CHUNK_BITS) - 1)) * RECORD_SIZE;
+    }
+
+    private void checkRecord(int record) {
+        if (record < 0 || record >= records) {
+            throw new IndexOutOfBoundsException("[ERROR] Invalid record " + record + ".");
+        }
+    }
+
+    private long appendStrings(byte[] first, byte[] second, byte[] third) {
+        int length = encodedLength(first) + encodedLength(second) + encodedLength(third);
+        if (length > STRING_CHUNK_SIZE) {
+            throw new IllegalArgumentException("[ERROR] The domain strings do not fit in a chunk of the store.");
+        }
+        int chunkNumber = (int) (stringEnd >>> STRING_CHUNK_BITS);
+        int position = (int) (stringEnd & (STRING_CHUNK_SIZE - 1));
+        if (position + length > STRING_CHUNK_SIZE) {
+            chunkNumber++;
+            position = 0;
+        }
+        if (chunkNumber == stringChunks.size()) {
+            stringChunks.add(allocate(STRING_CHUNK_SIZE));
+        }
+        ByteBuffer chunk = stringChunks.get(chunkNumber);
+        long offset = ((long) chunkNumber << STRING_CHUNK_BITS) | position;
+        position = write(chunk, position, first);
+        position = write(chunk, position, second);
+        position = write(chunk, position, third);
+        stringEnd = ((long) chunkNumber << STRING_CHUNK_BITS) + position;
+        return offset;
+    }
+
+    private String readString(int record, int field) {
+        long offset = recordChunk(record).getLong(recordOffset(record) + STRINGS);
+        ByteBuffer chunk = stringChunks.get((int) (offset >>> STRING_CHUNK_BITS));
+        int position = (int) (offset & (STRING_CHUNK_SIZE - 1));
+        for (int i = 0; ; i++) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = chunk.get(position++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int length = value - 1;
+            if (i == field) {
+                if (length < 0) {
+                    return null;
+                }
+                byte[] bytes = new byte[length];
+                chunk.get(position, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            position += Math.max(length, 0);
+        }
+    }
+
+    private static int encodedLength(byte[] bytes) {
+        int length = bytes == null ? 0 : bytes.length;
+        int prefix = 1;
+        for (int value = (length + 1) >>> 7; value != 0; value >>>= 7) {
+            prefix++;
+        }
+        return prefix + length;
+    }
+
+    private static int write(ByteBuffer chunk, int position, byte[] bytes) {
+        int value = bytes == null ? 0 : bytes.length + 1;
+        while ((value & ~0x7F) != 0) {
+            chunk.put(position++, (byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        chunk.put(position++, (byte) value);
+        if (bytes != null) {
+            chunk.put(position, bytes);
+            position += bytes.length;
+        }
+        return position;
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int hash(byte[] key) {
+        int hash = 0x811c9dc5;
+        for (byte b : key) {
+            hash = (hash ^ (b & 0xFF)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int toEpochDay(LocalDate date) {
+        return date == null ? NO_DATE : Math.toIntExact(date.toEpochDay());
+    }
+
+    /**
+     * Returns the size in bytes of an index with the given number of slots, computed without overflowing.
+     */
+    static int indexBytes(long capacity) {
+        long bytes = capacity * 4;
+        if (capacity > MAX_INDEX_CAPACITY || bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("[ERROR] The store is full.");
+        }
+        return (int) bytes;
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * View of one record of an {@link OffHeapDomainStore}. Every read takes the shared lock of the store, so a
+     * single field is never seen half written.
+     */
+    public static final class View implements DomainRecord {
+        private final OffHeapDomainStore store;
+        private final int record;
+
+        private View(OffHeapDomainStore store, int record) {
+            this.store = store;
+            this.record = record;
+        }
+
+        /**
+         * Returns the number of the record of the view.
+         *
+         * @return the number of the record
+         */
+        public int getRecord() {
+            return record;
+        }
+
+        /**
+         * Checks whether the domain of the record has been removed from the store.
+         *
+         * @return true if the domain has been removed, false otherwise
+         */
+        public boolean isRemoved() {
+            return (flags() & REMOVED) != 0;
+        }
+
+        public String getDomain() {
+            return string(0);
+        }
+
+        public String getOwnerName() {
+            return string(1);
+        }
+
+        public String getOwnerEmail() {
+            return string(2);
+        }
+
+        public String getHostingProvider() {
+            return store.providers.decode(readInt(PROVIDER));
+        }
+
+        public LocalDate getRegistrationDate() {
+            int day = readInt(REGISTRATION);
+            return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+        }
+
+        public LocalDate getExpirationDate() {
+            int day = readInt(EXPIRATION);
+            return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+        }
+
+        public int getMaxConcurrentUsers() {
+            return readInt(MAX_CONCURRENT_USERS);
+        }
+
+        public boolean isWhoisPrivacy() {
+            return (flags() & WHOIS_PRIVACY) != 0;
+        }
+
+        public boolean isAutoRenew() {
+            return (flags() & AUTO_RENEW) != 0;
+        }
+
+        /**
+         * Creates a WebDomain with the data of the record.
+         *
+         * @return a new WebDomain
+         */
+        public WebDomain toWebDomain() {
+            Lock readLock = store.lock.readLock();
+            readLock.lock();
+            try {
+                return new WebDomain(getDomain(), getOwnerName(), getOwnerEmail(), getHostingProvider(),
+                        getRegistrationDate(), getExpirationDate(), getMaxConcurrentUsers(), isWhoisPrivacy(),
+                        isAutoRenew());
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        private int readInt(int field) {
+            Lock readLock = store.lock.readLock();
+            readLock.lock();
+            try {
+                return store.recordChunk(record).getInt(recordOffset(record) + field);
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        private byte flags() {
+            Lock readLock = store.lock.readLock();
+            readLock.lock();
+            try {
+                return store.recordChunk(record).get(recordOffset(record) + FLAGS);
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        private String string(int field) {
+            Lock readLock = store.lock.readLock();
+            readLock.lock();
+            try {
+                return store.readString(record, field);
+            } finally {
+                readLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package edu.uoc.pac2;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Set of domain names keyed on their packed form, as encoded by {@link DomainNameCodec}.
+ * Names of up to 20 characters, the bulk of any portfolio, are held as two longs in an open-addressing hash table
+ * with linear probing, with no object per name and no String hashing or comparison on lookups. Longer names fall
+ * back to a second table of their bytes. Removals shift the following entries back instead of leaving tombstones.
+ * Names are compared ignoring case and trailing dots, as {@link WebDomain#setDomain(String)} stores them. The set
+ * only checks the format of the names; whether their extensions are accepted is up to the caller.
+ * The set is not thread-safe, not even for lookups, which reuse the array of the packed key: it must be confined to
+ * one thread or guarded by the caller.
+ */
+public final class PackedDomainSet {
+    private static final int MAX_CAPACITY = 1 << 29;
+
+    // Two longs per slot, the low and the high long of the packed name, both 0 when the slot is free
+    private long[] packed;
+    private int packedMask;
+    private int packedSize;
+
+    // Packed form of the name being looked up
+    private final long[] key = new long[2];
+
+    private byte[][] overflow;
+    private int[] overflowHashes;
+    private int overflowMask;
+    private int overflowSize;
+
+    /**
+     * Creates an empty set.
+     */
+    public PackedDomainSet() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty set with room for the expected number of domain names.
+     *
+     * @param expectedSize the number of names the set is expected to hold
+     */
+    public PackedDomainSet(int expectedSize) {
+        if (expectedSize < 0 || expectedSize > MAX_CAPACITY / 2) {
+            throw new IllegalArgumentException("[ERROR] Invalid expected size " + expectedSize + ".");
+        }
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        packed = new long[capacity * 2];
+        packedMask = capacity - 1;
+        overflow = new byte[16][];
+        overflowHashes = new int[16];
+        overflowMask = 15;
+    }
+
+    /**
+     * Adds a domain name to the set.
+     *
+     * @param domain the domain name, in any case
+     * @return true if the name was added, false if it was already in the set
+     * @throws DomainValidationException if the name has an invalid format
+     */
+    public boolean add(CharSequence domain) throws DomainValidationException {
+        if (DomainNameCodec.pack(domain, key)) {
+            int slot = findPacked(key[0], key[1]);
+            if (packed[slot * 2] != 0 || packed[slot * 2 + 1] != 0) {
+                return false;
+            }
+            packed[slot * 2] = key[0];
+            packed[slot * 2 + 1] = key[1];
+            if (++packedSize * 2 > packedMask + 1) {
+                resizePacked();
+            }
+            return true;
+        }
+        byte[] bytes = DomainNameCodec.toBytes(domain);
+        if (bytes == null) {
+            throw ValidationRule.DOMAIN_FORMAT.getException();
+        }
+        int hash = hash(bytes);
+        int slot = findOverflow(bytes, hash);
+        if (overflow[slot] != null) {
+            return false;
+        }
+        overflow[slot] = bytes;
+        overflowHashes[slot] = hash;
+        if (++overflowSize * 2 > overflowMask + 1) {
+            resizeOverflow();
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a domain name is in the set.
+     *
+     * @param domain the domain name, in any case
+     * @return true if the name is in the set, false otherwise or if it has an invalid format
+     */
+    public boolean contains(CharSequence domain) {
+        if (DomainNameCodec.pack(domain, key)) {
+            int slot = findPacked(key[0], key[1]);
+            return packed[slot * 2] != 0 || packed[slot * 2 + 1] != 0;
+        }
+        byte[] bytes = DomainNameCodec.toBytes(domain);
+        return bytes != null && overflow[findOverflow(bytes, hash(bytes))] != null;
+    }
+
+    /**
+     * Removes a domain name from the set.
+     *
+     * @param domain the domain name, in any case
+     * @return true if the name was removed, false if it was not in the set or has an invalid format
+     */
+    public boolean remove(CharSequence domain) {
+        if (DomainNameCodec.pack(domain, key)) {
+            int hole = findPacked(key[0], key[1]);
+            if (packed[hole * 2] == 0 && packed[hole * 2 + 1] == 0) {
+                return false;
+            }
+            // Move back the entries whose probe sequence goes through the freed slot
+            int next = (hole + 1) & packedMask;
+            while (packed[next * 2] != 0 || packed[next * 2 + 1] != 0) {
+                int home = DomainNameCodec.hash(packed[next * 2], packed[next * 2 + 1]) & packedMask;
+                if (((next - home) & packedMask) >= ((next - hole) & packedMask)) {
+                    packed[hole * 2] = packed[next * 2];
+                    packed[hole * 2 + 1] = packed[next * 2 + 1];
+                    hole = next;
+                }
+                next = (next + 1) & packedMask;
+            }
+            packed[hole * 2] = 0;
+            packed[hole * 2 + 1] = 0;
+            packedSize--;
+            return true;
+        }
+        byte[] bytes = DomainNameCodec.toBytes(domain);
+        if (bytes == null) {
+            return false;
+        }
+        int hole = findOverflow(bytes, hash(bytes));
+        if (overflow[hole] == null) {
+            return false;
+        }
+        int next = (hole + 1) & overflowMask;
+        while (overflow[next] != null) {
+            int home = overflowHashes[next] & overflowMask;
+            if (((next - home) & overflowMask) >= ((next - hole) & overflowMask)) {
+                overflow[hole] = overflow[next];
+                overflowHashes[hole] = overflowHashes[next];
+                hole = next;
+            }
+            next = (next + 1) & overflowMask;
+        }
+        overflow[hole] = null;
+        overflowSize--;
+        return true;
+    }
+
+    /**
+     * Returns the number of domain names in the set.
+     *
+     * @return the number of names
+     */
+    public int size() {
+        return packedSize + overflowSize;
+    }
+
+    /**
+     * Performs an action on every domain name of the set, in no particular order.
+     *
+     * @param action the action receiving the names, in lowercase and without trailing dots
+     */
+    public void forEach(Consumer<? super String> action) {
+        for (int slot = 0; slot <= packedMask; slot++) {
+            if (packed[slot * 2] != 0 || packed[slot * 2 + 1] != 0) {
+                action.accept(DomainNameCodec.unpack(packed[slot * 2], packed[slot * 2 + 1]));
+            }
+        }
+        for (byte[] bytes : overflow) {
+            if (bytes != null) {
+                action.accept(DomainNameCodec.fromBytes(bytes));
+            }
+        }
+    }
+
+    /**
+     * Returns the slot holding the packed name, or the free slot where it would be added.
+     */
+    private int findPacked(long low, long high) {
+        int slot = DomainNameCodec.hash(low, high) & packedMask;
+        while (true) {
+            long slotLow = packed[slot * 2];
+            long slotHigh = packed[slot * 2 + 1];
+            if ((slotLow == low && slotHigh == high) || (slotLow == 0 && slotHigh == 0)) {
+                return slot;
+            }
+            slot = (slot + 1) & packedMask;
+        }
+    }
+
+    private int findOverflow(byte[] bytes, int hash) {
+        int slot = hash & overflowMask;
+        while (overflow[slot] != null && (overflowHashes[slot] != hash || !Arrays.equals(overflow[slot], bytes))) {
+            slot = (slot + 1) & overflowMask;
+        }
+        return slot;
+    }
+
+    private void resizePacked() {
+        int capacity = (packedMask + 1) * 2;
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("[ERROR] The set is full.");
+        }
+        long[] old = packed;
+        packed = new long[capacity * 2];
+        packedMask = capacity - 1;
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != 0 || old[i + 1] != 0) {
+                int slot = findPacked(old[i], old[i + 1]);
+                packed[slot * 2] = old[i];
+                packed[slot * 2 + 1] = old[i + 1];
+            }
+        }
+    }
+
+    private void resizeOverflow() {
+        int capacity = (overflowMask + 1) * 2;
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("[ERROR] The set is full.");
+        }
+        byte[][] old = overflow;
+        int[] oldHashes = overflowHashes;
+        overflow = new byte[capacity][];
+        overflowHashes = new int[capacity];
+        overflowMask = capacity - 1;
+        for (int i = 0; i < old.length; i++) {
+            if (old[i] != null) {
+                int slot = oldHashes[i] & overflowMask;
+                while (overflow[slot] != null) {
+                    slot = (slot + 1) & overflowMask;
+                }
+                overflow[slot] = old[i];
+                overflowHashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private static int hash(byte[] bytes) {
+        int hash = 0x811c9dc5;
+        for (byte b : bytes) {
+            hash = (hash ^ b) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
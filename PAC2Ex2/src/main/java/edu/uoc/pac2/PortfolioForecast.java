@@ -0,0 +1,151 @@
+package edu.uoc.pac2;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+
+/**
+ * Result of a renewal forecast over a portfolio of domains, built by {@link PortfolioForecaster}.
+ * The renewal costs are grouped by hosting provider, renewal month and auto-renew status. Costs are kept in
+ * cents, so the totals do not depend on how the domains were split between threads.
+ */
+public final class PortfolioForecast {
+    private final LocalDate targetDate;
+    private final List<Group> groups;
+    private final long domains;
+    private final long autoRenewCents;
+    private final long manualRenewCents;
+
+    PortfolioForecast(LocalDate targetDate, List<Group> groups) {
+        this.targetDate = targetDate;
+        this.groups = List.copyOf(groups);
+        long domains = 0;
+        long autoRenewCents = 0;
+        long manualRenewCents = 0;
+        for (Group group : groups) {
+            domains += group.domains;
+            if (group.autoRenew) {
+                autoRenewCents += group.cents;
+            } else {
+                manualRenewCents += group.cents;
+            }
+        }
+        this.domains = domains;
+        this.autoRenewCents = autoRenewCents;
+        this.manualRenewCents = manualRenewCents;
+    }
+
+    /**
+     * Returns the date by which the renewal costs were calculated.
+     *
+     * @return the target date of the forecast
+     */
+    public LocalDate getTargetDate() {
+        return targetDate;
+    }
+
+    /**
+     * Returns the groups of the forecast, ordered by hosting provider, renewal month and auto-renew status.
+     * Only groups with at least one domain are included.
+     *
+     * @return an unmodifiable list with the groups
+     */
+    public List<Group> getGroups() {
+        return groups;
+    }
+
+    /**
+     * Returns the number of domains included in the forecast.
+     *
+     * @return the number of domains
+     */
+    public long getDomains() {
+        return domains;
+    }
+
+    /**
+     * Returns the renewal cost of all the domains, whether auto-renew is enabled or not.
+     *
+     * @return the total renewal cost as a double
+     */
+    public double getTotalCost() {
+        return (autoRenewCents + manualRenewCents) / 100.0;
+    }
+
+    /**
+     * Returns the renewal cost of the domains with the given auto-renew status. The cost of the domains with
+     * auto-renew enabled is the sum of their {@link WebDomain#predictedRenewalCostByDate(LocalDate)}; the cost of
+     * the other domains is what they would pay if they were renewed manually.
+     *
+     * @param autoRenew the auto-renew status of the domains
+     * @return the renewal cost as a double
+     */
+    public double getTotalCost(boolean autoRenew) {
+        return (autoRenew ? autoRenewCents : manualRenewCents) / 100.0;
+    }
+
+    /**
+     * Renewal cost of the domains sharing a hosting provider, renewal month and auto-renew status.
+     * The renewal month is the month of the expiration date, as every later renewal falls in the same month.
+     */
+    public static final class Group {
+        private final String hostingProvider;
+        private final Month month;
+        private final boolean autoRenew;
+        private final long domains;
+        private final long cents;
+
+        Group(String hostingProvider, Month month, boolean autoRenew, long domains, long cents) {
+            this.hostingProvider = hostingProvider;
+            this.month = month;
+            this.autoRenew = autoRenew;
+            this.domains = domains;
+            this.cents = cents;
+        }
+
+        /**
+         * Returns the hosting provider of the domains of the group.
+         *
+         * @return the hosting provider
+         */
+        public String getHostingProvider() {
+            return hostingProvider;
+        }
+
+        /**
+         * Returns the month in which the domains of the group are renewed.
+         *
+         * @return the renewal month
+         */
+        public Month getMonth() {
+            return month;
+        }
+
+        /**
+         * Returns the auto-renew status of the domains of the group.
+         *
+         * @return true if the domains are set to auto-renew, false otherwise
+         */
+        public boolean isAutoRenew() {
+            return autoRenew;
+        }
+
+        /**
+         * Returns the number of domains in the group.
+         *
+         * @return the number of domains
+         */
+        public long getDomains() {
+            return domains;
+        }
+
+        /**
+         * Returns the renewal cost of the domains in the group.
+         *
+         * @return the renewal cost as a double
+         */
+        public double getCost() {
+            return cents / 100.0;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package edu.uoc.pac2;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Forecasts the renewal cost of large portfolios of domains in parallel.
+ * The domains are split with fork/join into blocks of 4096; every task accumulates the cost in cents and the
+ * number of domains of each group in its own table, and the tables are merged when the tasks join, so no
+ * synchronisation is needed while the costs are calculated.
+ */
+public final class PortfolioForecaster {
+    private static final int DOMAINS_PER_TASK = 4096;
+    private static final Month[] MONTHS = Month.values();
+    // Per provider, two longs (cents and domains) for each renewal month and auto-renew status
+    private static final int TOTALS_LENGTH = MONTHS.length * 2 * 2;
+
+    private static final Comparator<PortfolioForecast.Group> GROUP_ORDER = Comparator
+            .comparing(PortfolioForecast.Group::getHostingProvider, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(PortfolioForecast.Group::getMonth)
+            .thenComparing(PortfolioForecast.Group::isAutoRenew);
+
+    private PortfolioForecaster() {
+    }
+
+    /**
+     * Forecasts the renewal cost of the domains by a target date using the common fork/join pool.
+     *
+     * @param domains the domains of the portfolio
+     * @param targetDate the date by which the renewal cost is calculated
+     * @return the forecast grouped by hosting provider, renewal month and auto-renew status
+     * @throws DomainValidationException if the target date is before the current date
+     */
+    public static PortfolioForecast forecast(WebDomain[] domains, LocalDate targetDate)
+            throws DomainValidationException {
+        return forecast(domains, targetDate, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Forecasts the renewal cost of the domains by a target date using the given fork/join pool.
+     *
+     * @param domains the domains of the portfolio
+     * @param targetDate the date by which the renewal cost is calculated
+     * @param pool the pool running the forecast tasks
+     * @return the forecast grouped by hosting provider, renewal month and auto-renew status
+     * @throws DomainValidationException if the target date is before the current date
+     */
+    public static PortfolioForecast forecast(WebDomain[] domains, LocalDate targetDate, ForkJoinPool pool)
+            throws DomainValidationException {
+        return forecast(new ArraySource(domains), targetDate, pool);
+    }
+
+    /**
+     * Forecasts the renewal cost of the domains by a target date using the common fork/join pool.
+     * Lists without random access are copied to an array first.
+     *
+     * @param domains the domains of the portfolio
+     * @param targetDate the date by which the renewal cost is calculated
+     * @return the forecast grouped by hosting provider, renewal month and auto-renew status
+     * @throws DomainValidationException if the target date is before the current date
+     */
+    public static PortfolioForecast forecast(List<? extends WebDomain> domains, LocalDate targetDate)
+            throws DomainValidationException {
+        return forecast(domains, targetDate, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Forecasts the renewal cost of the domains by a target date using the given fork/join pool.
+     * Lists without random access are copied to an array first.
+     *
+     * @param domains the domains of the portfolio
+     * @param targetDate the date by which the renewal cost is calculated
+     * @param pool the pool running the forecast tasks
+     * @return the forecast grouped by hosting provider, renewal month and auto-renew status
+     * @throws DomainValidationException if the target date is before the current date
+     */
+    public static PortfolioForecast forecast(List<? extends WebDomain> domains, LocalDate targetDate,
+                                             ForkJoinPool pool) throws DomainValidationException {
+        if (!(domains instanceof RandomAccess)) {
+            return forecast(domains.toArray(new WebDomain[0]), targetDate, pool);
+        }
+        return forecast(new ListSource(domains), targetDate, pool);
+    }
+
+    private static PortfolioForecast forecast(Source source, LocalDate targetDate, ForkJoinPool pool)
+            throws DomainValidationException {
+        if (targetDate.toEpochDay() < DomainClock.currentEpochDay()) {
+            throw ValidationRule.TARGET_DATE.getException();
+        }
+        Map<String, long[]> totals = pool.invoke(new ForecastTask(source, targetDate, 0, source.size()));
+
+        List<PortfolioForecast.Group> groups = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : totals.entrySet()) {
+            long[] providerTotals = entry.getValue();
+            for (int slot = 0; slot < TOTALS_LENGTH; slot += 2) {
+                long domains = providerTotals[slot + 1];
+                if (domains > 0) {
+                    groups.add(new PortfolioForecast.Group(entry.getKey(), MONTHS[slot >>> 2], (slot & 2) != 0,
+                            domains, providerTotals[slot]));
+                }
+            }
+        }
+        groups.sort(GROUP_ORDER);
+        return new PortfolioForecast(targetDate, groups);
+    }
+
+    private interface Source {
+        int size();
+
+        WebDomain get(int index);
+    }
+
+    private static final class ArraySource implements Source {
+        private final WebDomain[] domains;
+
+        ArraySource(WebDomain[] domains) {
+            this.domains = domains;
+        }
+
+        public int size() {
+            return domains.length;
+        }
+
+        public WebDomain get(int index) {
+            return domains[index];
+        }
+    }
+
+    private static final class ListSource implements Source {
+        private final List<? extends WebDomain> domains;
+
+        ListSource(List<? extends WebDomain> domains) {
+            this.domains = domains;
+        }
+
+        public int size() {
+            return domains.size();
+        }
+
+        public WebDomain get(int index) {
+            return domains.get(index);
+        }
+    }
+
+    private static final class ForecastTask extends RecursiveTask<Map<String, long[]>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Source source;
+        private final LocalDate targetDate;
+        private final int from;
+        private final int to;
+
+        ForecastTask(Source source, LocalDate targetDate, int from, int to) {
+            this.source = source;
+            this.targetDate = targetDate;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<String, long[]> compute() {
+            if (to - from > DOMAINS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                ForecastTask left = new ForecastTask(source, targetDate, from, middle);
+                left.fork();
+                Map<String, long[]> right = new ForecastTask(source, targetDate, middle, to).compute();
+                return merge(left.join(), right);
+            }
+            Map<String, long[]> totals = new HashMap<>();
+            String provider = null;
+            long[] providerTotals = null;
+            for (int i = from; i < to; i++) {
+                WebDomain domain = source.get(i);
+                if (providerTotals == null || !Objects.equals(provider, domain.getHostingProvider())) {
+                    provider = domain.getHostingProvider();
+                    providerTotals = totals.computeIfAbsent(provider, key -> new long[TOTALS_LENGTH]);
+                }
+                int slot = ((domain.getExpirationDate().getMonthValue() - 1) << 2) | (domain.isAutoRenew() ? 2 : 0);
+                providerTotals[slot] += Math.round(domain.renewalCostUntil(targetDate) * 100.0);
+                providerTotals[slot + 1]++;
+            }
+            return totals;
+        }
+
+        private static Map<String, long[]> merge(Map<String, long[]> first, Map<String, long[]> second) {
+            Map<String, long[]> into = first.size() >= second.size() ? first : second;
+            Map<String, long[]> from = into == first ? second : first;
+            for (Map.Entry<String, long[]> entry : from.entrySet()) {
+                long[] totals = into.putIfAbsent(entry.getKey(), entry.getValue());
+                if (totals != null) {
+                    long[] added = entry.getValue();
+                    for (int i = 0; i < TOTALS_LENGTH; i++) {
+                        totals[i] += added[i];
+                    }
+                }
+            }
+            return into;
+        }
+    }
+}
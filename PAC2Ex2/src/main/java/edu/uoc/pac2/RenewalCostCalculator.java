@@ -0,0 +1,133 @@
+package edu.uoc.pac2;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+
+/**
+ * Computes the predicted renewal cost of a domain without walking the renewals year by year.
+ * Renewals happen at the expiration date and then every year after it, and each one is discounted according to
+ * the years of antiquity of the domain at that moment: no discount up to 1 year, 5% for 2-3 years, 10% for 4-5
+ * years and 15% from 6 years on. The years of antiquity never decrease from one renewal to the next, so the
+ * renewals split into four consecutive tiers whose boundaries are found with integer date arithmetic, without
+ * creating any LocalDate or Period.
+ * The tiers are then added up in the same order as the former loop, so the result is bit-identical to it.
+ */
+public final class RenewalCostCalculator {
+    private static final double[] DISCOUNTS = new double[]{1.0, 0.95, 0.90, 0.85};
+    private static final int[] TIER_START_YEARS = new int[]{2, 4, 6};
+
+    private RenewalCostCalculator() {
+    }
+
+    /**
+     * Returns the cost of all the renewals before the target date, rounded to two decimals.
+     *
+     * @param registrationDate the date the domain was registered
+     * @param expirationDate the date of the first renewal
+     * @param targetDate the date by which the renewal cost is calculated (exclusive)
+     * @param renewalCost the cost of one renewal without discount
+     * @return the estimated renewal cost as a double
+     */
+    public static double predictedRenewalCost(LocalDate registrationDate, LocalDate expirationDate,
+                                              LocalDate targetDate, double renewalCost) {
+        int ry = registrationDate.getYear();
+        int rm = registrationDate.getMonthValue();
+        int rd = registrationDate.getDayOfMonth();
+        int ey = expirationDate.getYear();
+        int em = expirationDate.getMonthValue();
+        int ed = expirationDate.getDayOfMonth();
+
+        int renewals = countRenewals(ey, em, ed, targetDate.getYear(), targetDate.getMonthValue(),
+                targetDate.getDayOfMonth());
+
+        double totalCost = 0.0;
+        int renewal = 0;
+        for (int tier = 0; tier < DISCOUNTS.length; tier++) {
+            int tierEnd = tier < TIER_START_YEARS.length
+                    ? firstRenewalWithYears(TIER_START_YEARS[tier], renewals, ry, rm, rd, ey, em, ed)
+                    : renewals;
+            double tierCost = renewalCost * DISCOUNTS[tier];
+            // Repeated additions instead of a product keep the rounding of the former loop
+            for (; renewal < tierEnd; renewal++) {
+                totalCost += tierCost;
+            }
+        }
+        return Math.round(totalCost * 100.0) / 100.0;
+    }
+
+    /**
+     * Counts the renewals strictly before the target date. After the first one, renewals fall on the same month and
+     * day every year, except that an expiration on February 29 moves to February 28 from the second renewal on.
+     */
+    private static int countRenewals(int ey, int em, int ed, int ty, int tm, int td) {
+        if (compare(ey, em, ed, ty, tm, td) >= 0) {
+            return 0;
+        }
+        int laterDay = laterRenewalDay(em, ed);
+        int lastLaterRenewal = ty - ey - (compare(0, em, laterDay, 0, tm, td) >= 0 ? 1 : 0);
+        return 1 + Math.max(0, lastLaterRenewal);
+    }
+
+    /**
+     * Finds the first renewal whose years of antiquity reach the given value, or the number of renewals if none
+     * does. The years of antiquity grow monotonically with the renewals, so a binary search over them suffices.
+     */
+    private static int firstRenewalWithYears(int years, int renewals,
+                                             int ry, int rm, int rd, int ey, int em, int ed) {
+        int low = 0;
+        int high = renewals;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (yearsOfAntiquity(middle, ry, rm, rd, ey, em, ed) >= years) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns {@code Period.between(registrationDate, renewalDate.plusDays(1)).getYears()} for the given renewal.
+     */
+    static int yearsOfAntiquity(int renewal, int ry, int rm, int rd, int ey, int em, int ed) {
+        int y = ey + renewal;
+        int m = em;
+        int d = renewal == 0 ? ed : laterRenewalDay(em, ed);
+        // Day after the renewal date
+        if (d < Month.of(m).length(Year.isLeap(y))) {
+            d++;
+        } else if (m < 12) {
+            m++;
+            d = 1;
+        } else {
+            y++;
+            m = 1;
+            d = 1;
+        }
+        // Same arithmetic as LocalDate.until(ChronoLocalDate), which backs Period.between
+        long totalMonths = (y * 12L + m) - (ry * 12L + rm);
+        int days = d - rd;
+        if (totalMonths > 0 && days < 0) {
+            totalMonths--;
+        } else if (totalMonths < 0 && days > 0) {
+            totalMonths++;
+        }
+        return (int) (totalMonths / 12);
+    }
+
+    private static int laterRenewalDay(int em, int ed) {
+        return em == 2 && ed == 29 ? 28 : ed;
+    }
+
+    private static int compare(int y1, int m1, int d1, int y2, int m2, int d2) {
+        if (y1 != y2) {
+            return Integer.compare(y1, y2);
+        }
+        if (m1 != m2) {
+            return Integer.compare(m1, m2);
+        }
+        return Integer.compare(d1, d2);
+    }
+}
@@ -0,0 +1,153 @@
+package edu.uoc.pac2;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe dictionary that gives every distinct String a dense int code, from 0 in order of arrival, and keeps
+ * one canonical instance of it.
+ * Values that repeat across many domains, such as hosting providers or the domains of the owner emails, can be
+ * stored once and compared as ints. Codes are looked up in a {@link ConcurrentHashMap}, so encoding a known value
+ * never locks, and decoded from an array. Values are never removed, so a dictionary should only hold values with
+ * few distinct instances. A dictionary may be given a maximum size, beyond which it takes no new values: encoding
+ * them fails, and interning them returns the value itself.
+ */
+public final class StringDictionary {
+    /**
+     * Maximum number of hosting providers interned in {@link #HOSTING_PROVIDERS}.
+     */
+    public static final int MAX_HOSTING_PROVIDERS = 1 << 16;
+
+    /**
+     * Dictionary of the hosting providers, used by {@link WebDomain#setHostingProvider(String)} and the loaders.
+     * It is filled with the values of every domain built, including the ones that are never registered, so it is
+     * bounded to {@link #MAX_HOSTING_PROVIDERS} values.
+     */
+    public static final StringDictionary HOSTING_PROVIDERS = new StringDictionary(MAX_HOSTING_PROVIDERS);
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private final int maxSize;
+    // Values by code, written before their code is published in the map
+    private volatile String[] values = new String[16];
+    private int size;
+
+    /**
+     * Creates an empty dictionary without maximum size.
+     */
+    public StringDictionary() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates an empty dictionary that holds at most the given number of values.
+     *
+     * @param maxSize the maximum number of values
+     */
+    public StringDictionary(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("[ERROR] The dictionary must be able to hold one value.");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the code of a value, adding the value to the dictionary if it is not there yet.
+     *
+     * @param value the value to encode
+     * @return the code of the value, or -1 for null
+     * @throws IllegalStateException if the value is not in the dictionary and the dictionary is full
+     */
+    public int encode(String value) {
+        if (value == null) {
+            return -1;
+        }
+        int code = add(value);
+        if (code == -1) {
+            throw new IllegalStateException("[ERROR] The dictionary cannot hold more than " + maxSize + " values.");
+        }
+        return code;
+    }
+
+    /**
+     * Returns the code of a value without adding it to the dictionary.
+     *
+     * @param value the value to look up
+     * @return the code of the value, or -1 if it is null or not in the dictionary
+     */
+    public int code(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Returns the value with the given code.
+     *
+     * @param code the code of the value
+     * @return the value, or null for -1
+     */
+    public String decode(int code) {
+        if (code == -1) {
+            return null;
+        }
+        String[] current = values;
+        if (code < 0 || code >= current.length || current[code] == null) {
+            throw new IndexOutOfBoundsException("[ERROR] Unknown dictionary code " + code + ".");
+        }
+        return current[code];
+    }
+
+    /**
+     * Returns the canonical instance of a value, adding the value to the dictionary if it is not there yet.
+     *
+     * @param value the value to intern
+     * @return the instance of the value held by the dictionary, the value itself if it is not there and the
+     *         dictionary is full, or null for null
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int code = add(value);
+        return code == -1 ? value : decode(code);
+    }
+
+    /**
+     * Returns the number of values in the dictionary.
+     *
+     * @return the number of distinct values
+     */
+    public int size() {
+        return codes.size();
+    }
+
+    /**
+     * Returns the code of a value, adding the value unless the dictionary is full.
+     */
+    private int add(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(value);
+            if (code == null) {
+                if (size == maxSize) {
+                    return -1;
+                }
+                code = size;
+                String[] current = values;
+                if (size == current.length) {
+                    current = Arrays.copyOf(current, size * 2);
+                }
+                current[size] = value;
+                values = current;
+                size++;
+                codes.put(value, code);
+            }
+            return code;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package edu.uoc.pac2;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index of domains by the similarity of their names, which finds the domains within a small edit distance of a
+ * name, such as the typosquats of a newly registered domain, without comparing it with every domain.
+ * Names are kept in lowercase, as produced by {@link DomainValidator#normalize(CharSequence)}, in a BK-tree over
+ * the Levenshtein distance: every child of a node is filed under its distance to the node, and the triangle
+ * inequality lets a query with maximum distance k skip every child whose distance to the node differs by more than
+ * k from the distance between the node and the query. Distances are computed row by row and abandoned as soon as
+ * they exceed the largest distance that can still matter. A transposition of two characters counts as two edits.
+ * Removed names stay in the tree as empty nodes, needed to reach the nodes below them, until more than half of the
+ * nodes are empty and the tree is rebuilt. Queries take a shared lock and changes an exclusive one. The index
+ * follows the changes of {@link WebDomain#setDomain(String)} once it is attached to a {@link DomainRegistry} or
+ * registered in {@link WebDomainEvents}.
+ */
+public final class TyposquatIndex implements DomainIndex {
+    private static final int MIN_REBUILD_NODES = 1024;
+    private static final WebDomain[] NO_DOMAINS = new WebDomain[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+    private int size;
+    private int nodes;
+    private int emptyNodes;
+
+    /**
+     * Adds a domain to the index. A domain already indexed under its name is ignored.
+     *
+     * @param domain the domain to index
+     */
+    @Override
+    public void add(WebDomain domain) {
+        String name = domain.getDomain();
+        if (name == null) {
+            return;
+        }
+        char[] key = DomainValidator.normalize(name).toCharArray();
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            insert(key, domain);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a domain from the index.
+     *
+     * @param domain the domain to remove
+     */
+    @Override
+    public void remove(WebDomain domain) {
+        String name = domain.getDomain();
+        if (name != null) {
+            delete(name, domain);
+        }
+    }
+
+    /**
+     * Moves an indexed domain when its name changes.
+     *
+     * @param domain the changed domain
+     * @param field the field that has been set
+     * @param previous the value of the field before the change
+     */
+    @Override
+    public void changed(WebDomain domain, DomainField field, Object previous) {
+        if (field == DomainField.DOMAIN && previous != null && delete((String) previous, domain)) {
+            add(domain);
+        }
+    }
+
+    /**
+     * Returns the domains whose name is within the given edit distance of a name, ignoring case.
+     * The domains with the same name, at distance 0, are included. The cost of a query grows quickly with the
+     * distance, so it is meant for distances of 1 or 2.
+     *
+     * @param domain the domain name to compare
+     * @param maxDistance the maximum number of inserted, deleted or replaced characters
+     * @return the domains within the distance, ordered by distance
+     */
+    public List<WebDomain> similarTo(CharSequence domain, int maxDistance) {
+        if (domain == null) {
+            throw new IllegalArgumentException("[ERROR] The domain name cannot be null.");
+        }
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("[ERROR] The maximum distance cannot be negative.");
+        }
+        char[] key = DomainValidator.normalize(domain).toCharArray();
+        int[] previous = new int[key.length + 1];
+        int[] current = new int[key.length + 1];
+        List<List<WebDomain>> byDistance = new ArrayList<>();
+        for (int d = 0; d <= maxDistance; d++) {
+            byDistance.add(new ArrayList<>());
+        }
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            if (root != null) {
+                ArrayDeque<Node> pending = new ArrayDeque<>();
+                pending.push(root);
+                while (!pending.isEmpty()) {
+                    Node node = pending.pop();
+                    // Children are at most maxChildDistance from the node, so beyond this bound none can match
+                    int bound = maxDistance + node.maxChildDistance;
+                    int distance = distance(key, node.name, bound, previous, current);
+                    if (distance <= maxDistance) {
+                        byDistance.get(distance).addAll(Arrays.asList(node.domains));
+                    }
+                    for (int i = 0; i < node.children.length; i++) {
+                        if (Math.abs(node.distances[i] - distance) <= maxDistance) {
+                            pending.push(node.children[i]);
+                        }
+                    }
+                }
+            }
+        } finally {
+            readLock.unlock();
+        }
+        List<WebDomain> result = new ArrayList<>();
+        for (List<WebDomain> domains : byDistance) {
+            result.addAll(domains);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of indexed domains.
+     *
+     * @return the number of domains
+     */
+    public int size() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return size;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void insert(char[] key, WebDomain domain) {
+        if (root == null) {
+            root = new Node(key, domain);
+            nodes++;
+            size++;
+            return;
+        }
+        int[] previous = new int[key.length + 1];
+        int[] current = new int[key.length + 1];
+        Node node = root;
+        while (true) {
+            int distance = distance(key, node.name, Math.max(key.length, node.name.length), previous, current);
+            if (distance == 0) {
+                boolean empty = node.domains.length == 0;
+                if (node.add(domain)) {
+                    size++;
+                    if (empty) {
+                        emptyNodes--;
+                    }
+                }
+                return;
+            }
+            Node child = node.child(distance);
+            if (child == null) {
+                node.addChild(distance, new Node(key, domain));
+                nodes++;
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    private boolean delete(String name, WebDomain domain) {
+        char[] key = DomainValidator.normalize(name).toCharArray();
+        int[] previous = new int[key.length + 1];
+        int[] current = new int[key.length + 1];
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            Node node = root;
+            while (node != null) {
+                int distance = distance(key, node.name, Math.max(key.length, node.name.length), previous, current);
+                if (distance == 0) {
+                    if (!node.remove(domain)) {
+                        return false;
+                    }
+                    size--;
+                    if (node.domains.length == 0 && ++emptyNodes * 2 > nodes && nodes >= MIN_REBUILD_NODES) {
+                        rebuild();
+                    }
+                    return true;
+                }
+                node = node.child(distance);
+            }
+            return false;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Builds the tree again with the names that still have domains, in breadth-first order so that the names near
+     * the root stay there.
+     */
+    private void rebuild() {
+        List<Node> live = new ArrayList<>(nodes - emptyNodes);
+        ArrayDeque<Node> pending = new ArrayDeque<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.poll();
+            if (node.domains.length > 0) {
+                live.add(node);
+            }
+            pending.addAll(Arrays.asList(node.children));
+        }
+        root = null;
+        size = 0;
+        nodes = 0;
+        emptyNodes = 0;
+        for (Node node : live) {
+            for (WebDomain domain : node.domains) {
+                insert(node.name, domain);
+            }
+        }
+    }
+
+    /**
+     * Returns the Levenshtein distance between two names if it is at most the bound, or the bound plus one
+     * otherwise. The rows must have room for the shorter name plus one.
+     */
+    private static int distance(char[] first, char[] second, int bound, int[] previous, int[] current) {
+        char[] a = first.length <= second.length ? first : second;
+        char[] b = first.length <= second.length ? second : first;
+        if (b.length - a.length > bound) {
+            return bound + 1;
+        }
+        for (int j = 0; j <= a.length; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= b.length; i++) {
+            current[0] = i;
+            int rowMin = i;
+            char c = b[i - 1];
+            for (int j = 1; j <= a.length; j++) {
+                int cost = a[j - 1] == c ? previous[j - 1] : previous[j - 1] + 1;
+                int value = Math.min(cost, Math.min(previous[j], current[j - 1]) + 1);
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            // Every later row is at least the minimum of this one
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[a.length], bound + 1);
+    }
+
+    /**
+     * Node of the BK-tree, holding the domains indexed under one name.
+     */
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final int[] NO_DISTANCES = new int[0];
+
+        private final char[] name;
+        private WebDomain[] domains;
+        // Children and their distances to this node, all different, in order of insertion
+        private Node[] children = NO_CHILDREN;
+        private int[] distances = NO_DISTANCES;
+        private int maxChildDistance;
+
+        Node(char[] name, WebDomain domain) {
+            this.name = name;
+            this.domains = new WebDomain[]{domain};
+        }
+
+        Node child(int distance) {
+            for (int i = 0; i < distances.length; i++) {
+                if (distances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        void addChild(int distance, Node child) {
+            children = Arrays.copyOf(children, children.length + 1);
+            distances = Arrays.copyOf(distances, distances.length + 1);
+            children[children.length - 1] = child;
+            distances[distances.length - 1] = distance;
+            maxChildDistance = Math.max(maxChildDistance, distance);
+        }
+
+        boolean add(WebDomain domain) {
+            for (WebDomain indexed : domains) {
+                if (indexed == domain) {
+                    return false;
+                }
+            }
+            domains = Arrays.copyOf(domains, domains.length + 1);
+            domains[domains.length - 1] = domain;
+            return true;
+        }
+
+        boolean remove(WebDomain domain) {
+            for (int i = 0; i < domains.length; i++) {
+                if (domains[i] == domain) {
+                    if (domains.length == 1) {
+                        domains = NO_DOMAINS;
+                    } else {
+                        WebDomain[] shrunk = new WebDomain[domains.length - 1];
+                        System.arraycopy(domains, 0, shrunk, 0, i);
+                        System.arraycopy(domains, i + 1, shrunk, i, shrunk.length - i);
+                        domains = shrunk;
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
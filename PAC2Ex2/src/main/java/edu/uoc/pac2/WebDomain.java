@@ -1,16 +1,17 @@
 package edu.uoc.pac2;
 
 import java.time.LocalDate;
-import java.time.Period;
-import java.time.temporal.ChronoUnit;
 
 /**
  * Represents a web domain, including details such as domain name, owner information,
  * registration and expiration dates, concurrent user limits, privacy settings, and auto-renewal status.
  * It also provides functionality to validate domain and email formats, check domain expiration status,
  * calculate concurrent user status, and estimate future renewal costs with possible discounts.
+ * Invalid values are rejected with the preallocated {@link DomainValidationException} of the broken
+ * {@link ValidationRule}. Successful changes made through the setters are notified to the listeners registered
+ * in {@link WebDomainEvents}. Its data can also be read through the {@link DomainRecord} interface.
  */
-public class WebDomain {
+public class WebDomain implements DomainRecord {
     private String domain;
     private String ownerName;
     private String ownerEmail;
@@ -68,42 +69,33 @@ public class WebDomain {
      */
     public void setDomain(String domain) throws Exception {
         if (!isValidDomain(domain)) {
-           throw new Exception ("[ERROR] Invalid domain format.");
+           throw ValidationRule.DOMAIN_FORMAT.getException();
         }
-        domain = domain.toLowerCase();
-        this.domain = domain;
+        String previous = this.domain;
+        this.domain = DomainValidator.normalize(domain);
+        WebDomainEvents.fire(this, DomainField.DOMAIN, previous);
     }
 
     /**
      * Validates the format of the domain name.
      * A valid domain name must consist of a name and a valid extension, separated by a dot. The name can only contain
-     * lowercase letters, digits, and hyphens.
+     * lowercase letters, digits, and hyphens. The check itself is done by {@link DomainValidator} in a single pass,
+     * against the extensions of the default {@link ExtensionRegistry}, which starts with the ones in validExtensions.
      *
      * @param domain the domain name to validate
      * @return true if the domain name is valid, false otherwise
      */
     private boolean isValidDomain(String domain) {
-        if (domain == null) {
-            return false;
-        }
-        domain = domain.toLowerCase();
-
-        String[] parts = domain.split("\\.");
-        if (parts.length != 2) {
-            return false;
-        }
-
-        if (!parts[0].matches("^[a-z0-9-]+$")) {
-            return false;
-        }
+        return DomainValidator.isValidDomain(domain);
+    }
 
-        String domainExtension = parts[1];
-        for (String ext : validExtensions) {
-            if (ext.equals(domainExtension)) {
-                return true;
-            }
-        }
-        return false;
+    /**
+     * Returns a copy of the extensions accepted by default, which seed the default {@link ExtensionRegistry}.
+     *
+     * @return the default extensions
+     */
+    static String[] getValidExtensions() {
+        return validExtensions.clone();
     }
 
     /**
@@ -123,9 +115,11 @@ public class WebDomain {
      */
     public void setOwnerName(String ownerName) throws Exception {
         if (ownerName != null && !ownerName.trim().isEmpty()) {
+            String previous = this.ownerName;
             this.ownerName = ownerName.trim();
+            WebDomainEvents.fire(this, DomainField.OWNER_NAME, previous);
         } else {
-            throw new Exception("[ERROR] Owner name cannot be empty.");
+            throw ValidationRule.OWNER_NAME.getException();
         }
         }
 
@@ -140,18 +134,18 @@ public class WebDomain {
 
     /**
      * Sets the owner's email address after validating its format.
-     * The email must follow a standard email format.
+     * The email must follow a standard email format, as checked by {@link EmailValidator}.
      *
      * @param ownerEmail the email address of the domain owner to be set
      * @throws Exception if the email format is invalid
      */
     public void setOwnerEmail(String ownerEmail) throws Exception {
-
-        String emailRegex = "^[A-Za-z0-9._-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$";
-        if (ownerEmail != null && ownerEmail.matches(emailRegex)) {
+        if (EmailValidator.isValidEmail(ownerEmail)) {
+            String previous = this.ownerEmail;
             this.ownerEmail = ownerEmail;
+            WebDomainEvents.fire(this, DomainField.OWNER_EMAIL, previous);
         } else {
-            throw new Exception("[ERROR] Invalid owner email format.");
+            throw ValidationRule.OWNER_EMAIL.getException();
         }
     }
 
@@ -166,7 +160,9 @@ public class WebDomain {
 
     /**
      * Sets the hosting provider's name after validating that it is not null or empty.
-     * Leading and trailing whitespace is trimmed.
+     * Leading and trailing whitespace is trimmed, and the name is interned in
+     * {@link StringDictionary#HOSTING_PROVIDERS} so that all the domains of a provider share one String. Once that
+     * dictionary is full, new names are kept as they are.
      *
      * @param hostingProvider the name of the hosting provider to be set
      * @throws Exception if the hosting provider name is null or empty
@@ -174,9 +170,11 @@ public class WebDomain {
     public void setHostingProvider(String hostingProvider) throws Exception {
 
         if (hostingProvider == null || hostingProvider.trim().isEmpty()) {
-            throw new Exception("[ERROR] Hosting provider cannot be empty.");
+            throw ValidationRule.HOSTING_PROVIDER.getException();
         } else {
-            this.hostingProvider = hostingProvider.trim();
+            String previous = this.hostingProvider;
+            this.hostingProvider = StringDictionary.HOSTING_PROVIDERS.intern(hostingProvider.trim());
+            WebDomainEvents.fire(this, DomainField.HOSTING_PROVIDER, previous);
         }
     }
 
@@ -198,14 +196,14 @@ public class WebDomain {
     public void setRegistrationDate(LocalDate registrationDate) throws Exception {
         // Método que comprueba si la fecha de registro es valida (si fue creada antes de la fecha actual)
 
-        // Establecemos la fecha actual
-        LocalDate currentDate = LocalDate.now();
-        // Comprobamos si registrationDate es null o posterior a la fecha actual
-        if (registrationDate == null || registrationDate.isAfter(currentDate)) {
-            throw new Exception("[ERROR] The registration date must be prior or equal to the current date.");
+        // Comprobamos si registrationDate es null o posterior a la fecha actual del DomainClock
+        if (registrationDate == null || registrationDate.toEpochDay() > DomainClock.currentEpochDay()) {
+            throw ValidationRule.REGISTRATION_DATE.getException();
         } else {
             // Solo actualizamos la fecha de registro si pasa las validaciones
+            LocalDate previous = this.registrationDate;
             this.registrationDate = registrationDate;
+            WebDomainEvents.fire(this, DomainField.REGISTRATION_DATE, previous);
         }
     }
 
@@ -230,9 +228,11 @@ public class WebDomain {
 
         // Comprobamos si expirationDate no es null y es posterior a registrationDate.
         if (expirationDate != null && expirationDate.isAfter(registrationDate)) {
+            LocalDate previous = this.expirationDate;
             this.expirationDate = expirationDate;
+            WebDomainEvents.fire(this, DomainField.EXPIRATION_DATE, previous);
         } else {
-            throw new Exception("[ERROR] The expiration date must be later than the registration date.");
+            throw ValidationRule.EXPIRATION_DATE.getException();
         }
     }
 
@@ -254,9 +254,11 @@ public class WebDomain {
     public void setMaxConcurrentUsers(int maxConcurrentUsers) throws Exception {
         // Método que comprueba si el número máximo de usuarios es válido (mayor que 0)
         if (maxConcurrentUsers > 0) {
+            int previous = this.maxConcurrentUsers;
             this.maxConcurrentUsers = maxConcurrentUsers;
+            WebDomainEvents.fire(this, DomainField.MAX_CONCURRENT_USERS, previous);
         } else {
-            throw new Exception("[ERROR] Maximum concurrent users must be greater than 0.");
+            throw ValidationRule.MAX_CONCURRENT_USERS.getException();
         }
     }
 
@@ -276,7 +278,9 @@ public class WebDomain {
      * @return the updated auto-renewal status
      */
     public boolean setAutoRenew(boolean autoRenew) {
+        boolean previous = this.autoRenew;
         this.autoRenew = autoRenew;
+        WebDomainEvents.fire(this, DomainField.AUTO_RENEW, previous);
         return autoRenew;
     }
 
@@ -288,8 +292,7 @@ public class WebDomain {
     public boolean isExpired() {
         // Método que comprueba si ha expiriado el dominio
 
-        LocalDate currentDate = LocalDate.now();
-        return currentDate.isAfter(expirationDate);
+        return DomainClock.currentEpochDay() > expirationDate.toEpochDay();
     }
 
     /**
@@ -300,9 +303,8 @@ public class WebDomain {
     public boolean isAboutToExpire() {
         // Método que comprueba si queda poco para que caduque (menos de un mes)
 
-        LocalDate currentDate = LocalDate.now();
         // Establecemos la diferencia de dias entre expirationDate y la fecha actual
-        long diff = Math.abs(ChronoUnit.DAYS.between(currentDate, expirationDate));
+        long diff = Math.abs(expirationDate.toEpochDay() - DomainClock.currentEpochDay());
         return diff < 30;
     }
 
@@ -311,21 +313,16 @@ public class WebDomain {
      * The status is categorized as "Low", "Average", or "High" based on usage thresholds.
      *
      * @param currentConcurrentUser the current number of concurrent users
-     * @return a String indicating the usage status
+     * @return a String indicating the usage status, the label of a {@link ConcurrencyStatus}
      * @throws Exception if the number of concurrent users exceeds the maximum allowed
+     * @see ConcurrentUserTracker
      */
     public String domainConcurrenceStatus(int currentConcurrentUser) throws Exception {
         if (currentConcurrentUser < 0 || currentConcurrentUser > maxConcurrentUsers) {
-            throw new Exception("[ERROR] The number of concurrent users exceeds the maximum allowed.");
-        }
-        double percentage = (double) currentConcurrentUser / maxConcurrentUsers * 100;
-        if (percentage < 20) {
-            return "Low";
-        } else if (percentage < 80) {
-            return "Average";
-        } else {
-            return "High";
+            throw ValidationRule.CONCURRENT_USERS.getException();
         }
+        // Umbrales enteros: sin división ni comparación de Strings
+        return ConcurrencyStatus.of(currentConcurrentUser, maxConcurrentUsers).getLabel();
     }
 
     /**
@@ -336,29 +333,62 @@ public class WebDomain {
      * @throws Exception if the target date is before the current date or if auto-renew is disabled
      */
     public double predictedRenewalCostByDate(LocalDate targetDate) throws Exception{
-        LocalDate currentDate = LocalDate.now();
-        if (targetDate.isBefore(currentDate)) {
-            throw new Exception( "[ERROR] The date must be later than the current date.");
+        if (targetDate.toEpochDay() < DomainClock.currentEpochDay()) {
+            throw ValidationRule.TARGET_DATE.getException();
         }
         if (!autoRenew) {
             return 0.0;
         }
-        double totalCost = 0.0;
-        LocalDate nextRenewalDate = expirationDate;
-        while (nextRenewalDate.isBefore(targetDate)) {
-            long yearsOfAntiquity = Period.between(registrationDate, nextRenewalDate.plusDays(1)).getYears();
-            double discount = 1.0;
-            if (yearsOfAntiquity >= 2 && yearsOfAntiquity <= 3) {
-                discount = 0.95;
-            } else if (yearsOfAntiquity >= 4 && yearsOfAntiquity <= 5) {
-                discount = 0.90;
-            } else if (yearsOfAntiquity >= 6) {
-                discount = 0.85;
-            }
-            totalCost += renewalCost * discount;
-            nextRenewalDate = nextRenewalDate.plusYears(1);
+        return renewalCostUntil(targetDate);
+    }
+
+    /**
+     * Returns the cost of the renewals before a target date, whether auto-renew is enabled or not.
+     *
+     * @param targetDate the date by which the renewal cost is calculated
+     * @return the renewal cost as a double
+     */
+    double renewalCostUntil(LocalDate targetDate) {
+        return RenewalCostCalculator.predictedRenewalCost(registrationDate, expirationDate, targetDate, renewalCost);
+    }
+
+    /**
+     * Sets a field to a value that was already validated, without validating it again nor notifying the
+     * listeners. Used to rebuild domains from a {@link MutationLog}.
+     *
+     * @param field the field to set
+     * @param value the value of the field, boxed for primitive fields
+     */
+    void restore(DomainField field, Object value) {
+        switch (field) {
+            case DOMAIN:
+                domain = (String) value;
+                break;
+            case OWNER_NAME:
+                ownerName = (String) value;
+                break;
+            case OWNER_EMAIL:
+                ownerEmail = (String) value;
+                break;
+            case HOSTING_PROVIDER:
+                hostingProvider = (String) value;
+                break;
+            case REGISTRATION_DATE:
+                registrationDate = (LocalDate) value;
+                break;
+            case EXPIRATION_DATE:
+                expirationDate = (LocalDate) value;
+                break;
+            case MAX_CONCURRENT_USERS:
+                maxConcurrentUsers = (Integer) value;
+                break;
+            case AUTO_RENEW:
+                autoRenew = (Boolean) value;
+                break;
+            case WHOIS_PRIVACY:
+                whoisPrivacy = (Boolean) value;
+                break;
         }
-        return Math.round(totalCost * 100.0) / 100.0;
     }
 
     /**
@@ -376,7 +406,9 @@ public class WebDomain {
      * @param whoisPrivacy the WHOIS privacy status to be set
      */
     public void setWhoisPrivacy(boolean whoisPrivacy) {
+        boolean previous = this.whoisPrivacy;
         this.whoisPrivacy = whoisPrivacy;
+        WebDomainEvents.fire(this, DomainField.WHOIS_PRIVACY, previous);
     }
 
 }
\ No newline at end of file
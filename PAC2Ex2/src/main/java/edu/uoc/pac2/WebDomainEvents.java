@@ -0,0 +1,70 @@
+package edu.uoc.pac2;
+
+/**
+ * Holds the {@link WebDomainListener}s notified by the setters of {@link WebDomain}.
+ * The listeners are kept in a copy-on-write array, so notifying them takes no lock, and a setter only reads one
+ * volatile field when there are no listeners. Primitive values are only boxed when some listener is registered.
+ * An exception thrown by a listener is propagated to the caller of the setter, after the value has been set.
+ */
+public final class WebDomainEvents {
+    private static final WebDomainListener[] NONE = new WebDomainListener[0];
+
+    private static volatile WebDomainListener[] listeners = NONE;
+
+    private WebDomainEvents() {
+    }
+
+    /**
+     * Registers a listener. A listener registered twice is notified twice.
+     *
+     * @param listener the listener to register
+     */
+    public static synchronized void addListener(WebDomainListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("[ERROR] The domain listener cannot be null.");
+        }
+        WebDomainListener[] current = listeners;
+        WebDomainListener[] updated = new WebDomainListener[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = listener;
+        listeners = updated;
+    }
+
+    /**
+     * Unregisters a listener once.
+     *
+     * @param listener the listener to unregister
+     * @return true if the listener was registered, false otherwise
+     */
+    public static synchronized boolean removeListener(WebDomainListener listener) {
+        WebDomainListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                WebDomainListener[] updated = current.length == 1 ? NONE : new WebDomainListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static void fire(WebDomain domain, DomainField field, Object previous) {
+        for (WebDomainListener listener : listeners) {
+            listener.changed(domain, field, previous);
+        }
+    }
+
+    static void fire(WebDomain domain, DomainField field, int previous) {
+        if (listeners.length != 0) {
+            fire(domain, field, Integer.valueOf(previous));
+        }
+    }
+
+    static void fire(WebDomain domain, DomainField field, boolean previous) {
+        if (listeners.length != 0) {
+            fire(domain, field, Boolean.valueOf(previous));
+        }
+    }
+}
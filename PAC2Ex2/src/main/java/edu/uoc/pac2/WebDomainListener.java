@@ -0,0 +1,19 @@
+package edu.uoc.pac2;
+
+/**
+ * Receives the changes made to {@link WebDomain} objects through their setters.
+ * Listeners are registered with {@link WebDomainEvents#addListener(WebDomainListener)} and are called on the
+ * thread that calls the setter, after the new value has been stored.
+ */
+@FunctionalInterface
+public interface WebDomainListener {
+
+    /**
+     * Called after a field of a domain has been set.
+     *
+     * @param domain the changed domain, which already holds the new value
+     * @param field the field that has been set
+     * @param previous the value of the field before the change, boxed for primitive fields
+     */
+    void changed(WebDomain domain, DomainField field, Object previous);
+}
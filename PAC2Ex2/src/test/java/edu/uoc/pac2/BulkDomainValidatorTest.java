@@ -0,0 +1,44 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkDomainValidatorTest {
+
+    @Test
+    public void testValidate() {
+        BitSet result = BulkDomainValidator.validate(new String[]{"uoc.edu", "uoc.es", null, "UOC.COM", "cv.uoc.edu"});
+        assertEquals(BitSet.valueOf(new long[]{0b01001L}), result);
+        assertTrue(BulkDomainValidator.validate(new String[0]).isEmpty());
+    }
+
+    @Test
+    public void testValidateMatchesSequentialCheck() {
+        Random random = new Random(3);
+        String[] candidates = new String[100_003];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = DomainValidatorTest.randomCandidate(random);
+        }
+        BitSet expected = new BitSet(candidates.length);
+        for (int i = 0; i < candidates.length; i++) {
+            expected.set(i, DomainValidator.isValidDomain(candidates[i]));
+        }
+
+        assertEquals(expected, BulkDomainValidator.validate(candidates));
+        ForkJoinPool pool = new ForkJoinPool(3);
+        assertEquals(expected, BulkDomainValidator.validate(candidates, pool));
+        pool.shutdown();
+        assertEquals(expected, BulkDomainValidator.validate(Arrays.asList(candidates)));
+
+        List<String> linked = new LinkedList<>(Arrays.asList(candidates).subList(0, 1000));
+        assertEquals(expected.get(0, 1000), BulkDomainValidator.validate(linked));
+    }
+}
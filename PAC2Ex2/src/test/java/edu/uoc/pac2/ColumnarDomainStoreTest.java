@@ -0,0 +1,93 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarDomainStoreTest {
+
+    static WebDomain randomDomain(Random random, int i) {
+        String[] providers = {"Hosting UOC", "Provider A", "Provider B", "Proveïdor Ç", null};
+        LocalDate registration = LocalDate.of(2000, 1, 1).plusDays(random.nextInt(9000));
+        return new WebDomain(random.nextInt(50) == 0 ? null : "shop" + i + ".com",
+                random.nextInt(50) == 0 ? "" : "Owner " + (char) ('A' + random.nextInt(26)) + " Ñúñez",
+                random.nextInt(50) == 0 ? null : "o" + random.nextInt(1000) + "@uoc.edu",
+                providers[random.nextInt(providers.length)],
+                random.nextInt(50) == 0 ? null : registration,
+                registration.plusDays(1 + random.nextInt(4000)),
+                1 + random.nextInt(100_000), random.nextBoolean(), random.nextBoolean());
+    }
+
+    static void assertSameRecord(DomainRecord expected, DomainRecord actual) {
+        assertEquals(expected.getDomain(), actual.getDomain());
+        assertEquals(expected.getOwnerName(), actual.getOwnerName());
+        assertEquals(expected.getOwnerEmail(), actual.getOwnerEmail());
+        assertEquals(expected.getHostingProvider(), actual.getHostingProvider());
+        assertEquals(expected.getRegistrationDate(), actual.getRegistrationDate());
+        assertEquals(expected.getExpirationDate(), actual.getExpirationDate());
+        assertEquals(expected.getMaxConcurrentUsers(), actual.getMaxConcurrentUsers());
+        assertEquals(expected.isWhoisPrivacy(), actual.isWhoisPrivacy());
+        assertEquals(expected.isAutoRenew(), actual.isAutoRenew());
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Random random = new Random(19);
+        List<WebDomain> domains = new ArrayList<>();
+        ColumnarDomainStore store = new ColumnarDomainStore(3);
+        for (int i = 0; i < 20_000; i++) {
+            WebDomain domain = randomDomain(random, i);
+            domains.add(domain);
+            assertEquals(i, store.add(domain));
+        }
+        WebDomain longNames = new WebDomain("x".repeat(300) + ".com", "n".repeat(20_000), null, "Hosting UOC",
+                null, null, 1, true, true);
+        domains.add(longNames);
+        store.add(longNames);
+        WebDomain upperCaseEmail = new WebDomain("uoc.edu", "Ana", "ana@UOC.edu", "Hosting UOC", null, null, 1,
+                false, false);
+        domains.add(upperCaseEmail);
+        store.add(upperCaseEmail);
+        assertEquals(domains.size(), store.size());
+        assertEquals(4, store.getHostingProviderCount());
+        assertEquals(1, store.getEmailDomainCount());
+        assertEquals(store.getEmailDomainCode(0) == -1 ? store.getEmailDomainCode(1) : store.getEmailDomainCode(0),
+                store.getEmailDomainCode("uoc.edu"));
+        assertEquals(-1, store.getHostingProviderCode("Unknown"));
+
+        ColumnarDomainStore.View view = store.view(0);
+        for (int i = 0; i < domains.size(); i++) {
+            assertSameRecord(domains.get(i), view.moveTo(i));
+            assertEquals(i, view.getIndex());
+            LocalDate expiration = domains.get(i).getExpirationDate();
+            assertEquals(expiration == null ? Long.MIN_VALUE : expiration.toEpochDay(), store.getExpirationEpochDay(i));
+            assertEquals(domains.get(i).getHostingProvider(),
+                    store.getHostingProvider(store.getHostingProviderCode(i)));
+            assertEquals(EmailValidator.getDomain(domains.get(i).getOwnerEmail()),
+                    store.getEmailDomain(store.getEmailDomainCode(i)));
+        }
+        assertSameRecord(domains.get(7), store.toWebDomain(7));
+        assertNull(store.getHostingProvider(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.view(domains.size()));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.getRegistrationEpochDay(-1));
+    }
+
+    @Test
+    public void testMemoryPerDomain() {
+        int count = 500_000;
+        ColumnarDomainStore store = new ColumnarDomainStore(count);
+        LocalDate today = LocalDate.of(2030, 1, 1);
+        for (int i = 0; i < count; i++) {
+            store.add(new WebDomain("d" + i + ".com", "Ana Puig", "ana@uoc.edu", "Hosting UOC " + (i % 50),
+                    today.minusDays(i % 5000), today.plusDays(i % 365), 100, i % 3 == 0, i % 2 == 0));
+        }
+        double bytesPerDomain = (double) store.getMemoryUsage() / count;
+        assertTrue(bytesPerDomain < 60, bytesPerDomain + " bytes per domain");
+        assertEquals("d123456.com", store.view(123_456).getDomain());
+    }
+}
@@ -0,0 +1,42 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyStatusTest {
+
+    private static String legacyStatus(int current, int max) {
+        double percentage = (double) current / max * 100;
+        if (percentage < 20) {
+            return "Low";
+        } else if (percentage < 80) {
+            return "Average";
+        } else {
+            return "High";
+        }
+    }
+
+    @Test
+    public void testMatchesPercentages() {
+        for (int max = 1; max <= 500; max++) {
+            for (int current = 0; current <= max; current++) {
+                assertEquals(legacyStatus(current, max), ConcurrencyStatus.of(current, max).getLabel(),
+                        current + "/" + max);
+            }
+        }
+        Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            int max = 1 + random.nextInt(Integer.MAX_VALUE);
+            int current = random.nextInt(max) + (random.nextBoolean() ? 1 : 0);
+            assertEquals(legacyStatus(current, max), ConcurrencyStatus.of(current, max).getLabel());
+        }
+        assertEquals(ConcurrencyStatus.HIGH, ConcurrencyStatus.of(Long.MAX_VALUE, Integer.MAX_VALUE));
+        assertEquals(ConcurrencyStatus.LOW, ConcurrencyStatus.of(Long.MIN_VALUE, 100));
+        assertEquals(ConcurrencyStatus.HIGH, ConcurrencyStatus.of(0, 0));
+        assertEquals("Average", ConcurrencyStatus.AVERAGE.getLabel());
+        assertEquals(20, ConcurrencyStatus.LOW.getUpperPercentage());
+    }
+}
@@ -0,0 +1,84 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentUserTrackerTest {
+
+    @Test
+    public void testEnterAndExit() {
+        ConcurrentUserTracker tracker = new ConcurrentUserTracker();
+        WebDomain domain = TestDomains.domain("uoc.edu");
+        assertEquals(100, domain.getMaxConcurrentUsers());
+        assertEquals(0, tracker.getCurrentUsers(domain));
+        assertEquals(ConcurrencyStatus.LOW, tracker.getStatus(domain));
+
+        ConcurrentUserTracker.Counter counter = tracker.counter(domain);
+        assertSame(counter, tracker.counter(domain));
+        assertSame(domain, counter.getDomain());
+        for (int i = 0; i < 19; i++) {
+            counter.enter();
+        }
+        assertEquals(ConcurrencyStatus.LOW, counter.getStatus());
+        tracker.enter(domain);
+        assertEquals(20, tracker.getCurrentUsers(domain));
+        assertEquals(ConcurrencyStatus.AVERAGE, tracker.getStatus(domain));
+        for (int i = 0; i < 60; i++) {
+            counter.enter();
+        }
+        assertEquals(ConcurrencyStatus.HIGH, counter.getStatus());
+        for (int i = 0; i < 30; i++) {
+            counter.enter();
+        }
+        assertEquals(ConcurrencyStatus.HIGH, counter.getStatus());
+        for (int i = 0; i < 110; i++) {
+            tracker.exit(domain);
+        }
+        assertEquals(0, counter.getCurrentUsers());
+
+        assertTrue(tracker.remove(domain));
+        assertFalse(tracker.remove(domain));
+        assertNotSame(counter, tracker.counter(domain));
+        assertThrows(IllegalArgumentException.class, () -> tracker.counter(null));
+    }
+
+    @Test
+    public void testConcurrentSessions() throws Exception {
+        ConcurrentUserTracker tracker = new ConcurrentUserTracker();
+        WebDomain domain = TestDomains.domain("uoc.edu");
+        int threads = 8;
+        int sessions = 100_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    ConcurrentUserTracker.Counter counter = tracker.counter(domain);
+                    for (int i = 0; i < sessions; i++) {
+                        counter.enter();
+                        counter.getStatus();
+                        counter.exit();
+                    }
+                    // Every thread leaves 5 users connected
+                    for (int i = 0; i < 5; i++) {
+                        tracker.enter(domain);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(threads * 5, tracker.getCurrentUsers(domain));
+        assertEquals(ConcurrencyStatus.AVERAGE, tracker.getStatus(domain));
+    }
+}
@@ -0,0 +1,90 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CountingBloomFilterTest {
+
+    @Test
+    public void testFalsePositiveRate() {
+        CountingBloomFilter filter = new CountingBloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.add("shop" + i + ".com");
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("SHOP" + i + ".Com"));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("store" + i + ".com")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 1_500, "false positives: " + falsePositives);
+        assertFalse(filter.mightContain(null));
+        assertEquals(100_000, filter.getExpectedSize());
+        assertEquals(0.01, filter.getFalsePositiveRate());
+
+        assertThrows(IllegalArgumentException.class, () -> new CountingBloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new CountingBloomFilter(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CountingBloomFilter(10, 1));
+        assertThrows(IllegalArgumentException.class, () -> new CountingBloomFilter(10, Double.NaN));
+    }
+
+    @Test
+    public void testRemove() {
+        CountingBloomFilter filter = new CountingBloomFilter(1_000, 0.01);
+        filter.add("uoc.edu");
+        filter.add("uoc.edu");
+        filter.add("shop.com");
+        filter.remove("UOC.edu");
+        assertTrue(filter.mightContain("uoc.edu"));
+        filter.remove("uoc.edu");
+        assertFalse(filter.mightContain("uoc.edu"));
+        assertTrue(filter.mightContain("shop.com"));
+
+        // Counters saturate instead of wrapping around, so names sharing them are never forgotten
+        CountingBloomFilter tiny = new CountingBloomFilter(1, 0.5);
+        for (int i = 0; i < 100; i++) {
+            tiny.add("d" + i + ".com");
+        }
+        for (int i = 0; i < 99; i++) {
+            tiny.remove("d" + i + ".com");
+        }
+        assertTrue(tiny.mightContain("d99.com"));
+    }
+
+    @Test
+    public void testConcurrentAddAndRemove() throws InterruptedException {
+        CountingBloomFilter filter = new CountingBloomFilter(200_000, 0.01);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t * 50_000;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    filter.add("keep" + (offset + i) + ".com");
+                    filter.add("drop" + (offset + i) + ".com");
+                    filter.remove("drop" + (offset + i) + ".com");
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int dropped = 0;
+        for (int i = 0; i < 200_000; i++) {
+            assertTrue(filter.mightContain("keep" + i + ".com"));
+            if (!filter.mightContain("drop" + i + ".com")) {
+                dropped++;
+            }
+        }
+        assertTrue(dropped > 190_000, "dropped: " + dropped);
+    }
+}
@@ -0,0 +1,145 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvDomainLoaderTest {
+
+    @TempDir
+    Path directory;
+
+    private Path write(String content) throws Exception {
+        Path file = directory.resolve("domains.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void testFormat() throws Exception {
+        Path file = write("\uFEFFDomain,Owner,Email,Provider,Registration,Expiration,Users,Whois,AutoRenew\r\n"
+                + "uoc.edu,Ana Puig,ana@uoc.edu,Hosting UOC,2020-02-29,2030-02-28,100,true,FALSE\r\n"
+                + "\r\n"
+                + "\"SHOP.com\",\"Vila, Joan \"\"JV\"\"\n2nd line\",joan@shop.com,\"Proveïdor Ç\",2019-12-31,2031-01-01,5,"
+                + "false,true\n"
+                + "\n"
+                + "last.org,Ñúñez,n@last.org,Hosting UOC,2021-03-01,2021-03-02,1,false,false");
+        List<WebDomain> domains = new ArrayList<>();
+        List<Long> errors = new ArrayList<>();
+        long loaded = new CsvDomainLoader().load(file, domains::add, (line, error) -> errors.add(line));
+        assertEquals(3, loaded);
+        assertEquals(List.of(), errors);
+
+        ColumnarDomainStoreTest.assertSameRecord(new WebDomain("uoc.edu", "Ana Puig", "ana@uoc.edu", "Hosting UOC",
+                LocalDate.of(2020, 2, 29), LocalDate.of(2030, 2, 28), 100, true, false), domains.get(0));
+        ColumnarDomainStoreTest.assertSameRecord(new WebDomain("shop.com", "Vila, Joan \"JV\"\n2nd line",
+                "joan@shop.com", "Proveïdor Ç", LocalDate.of(2019, 12, 31), LocalDate.of(2031, 1, 1), 5, false,
+                true), domains.get(1));
+        assertEquals("last.org", domains.get(2).getDomain());
+        assertEquals("Ñúñez", domains.get(2).getOwnerName());
+    }
+
+    @Test
+    public void testRowErrors() throws Exception {
+        Path file = write("bad domain,Ana,ana@uoc.edu,Hosting UOC,2020-01-01,2030-01-01,1,true,true\n"
+                + "uoc.edu,Ana,ana@uoc.edu,Hosting UOC,2023-02-29,2030-01-01,1,true,true\n"
+                + "uoc.edu,Ana,ana@uoc.edu,Hosting UOC,2020-01-01,2019-01-01,1,true,true\n"
+                + "uoc.edu,Ana,not an email,Hosting UOC,2020-01-01,2030-01-01,1,true,true\n"
+                + "uoc.edu,Ana,ana@uoc.edu,Hosting UOC,2020-01-01,2030-01-01,0,true,true\n"
+                + "uoc.edu,Ana,ana@uoc.edu,Hosting UOC,2020-01-01,2030-01-01,x1,true,true\n"
+                + "uoc.edu,Ana,ana@uoc.edu,Hosting UOC,2020-01-01,2030-01-01,1,yes,true\n"
+                + "uoc.edu,Ana,ana@uoc.edu\n"
+                + "uoc.edu,Ana,ana@uoc.edu,Hosting UOC,2020-01-01,2030-01-01,1,true,true\n"
+                + "UOC.edu,Ana,ana@uoc.edu,Hosting UOC,2020-01-01,2030-01-01,1,true,true\n"
+                + "\"unterminated.com,Ana");
+        List<Long> lines = new ArrayList<>();
+        List<Exception> errors = new ArrayList<>();
+        DomainRegistry registry = new DomainRegistry();
+        long loaded = new CsvDomainLoader().load(file, registry, (line, error) -> {
+            lines.add(line);
+            errors.add(error);
+        });
+        assertEquals(1, loaded);
+        assertEquals(1, registry.size());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 10L, 11L), lines);
+        assertSame(ValidationRule.DOMAIN_FORMAT.getException(), errors.get(0));
+        assertSame(ValidationRule.REGISTRATION_DATE.getException(), errors.get(1));
+        assertSame(ValidationRule.EXPIRATION_DATE.getException(), errors.get(2));
+        assertSame(ValidationRule.OWNER_EMAIL.getException(), errors.get(3));
+        assertSame(ValidationRule.MAX_CONCURRENT_USERS.getException(), errors.get(4));
+        assertSame(ValidationRule.MAX_CONCURRENT_USERS.getException(), errors.get(5));
+        assertInstanceOf(IllegalArgumentException.class, errors.get(6));
+        assertEquals("[ERROR] Expected 9 fields but found 3.", errors.get(7).getMessage());
+        assertEquals("[ERROR] The domain uoc.edu is already registered.", errors.get(8).getMessage());
+        assertEquals("[ERROR] Expected 9 fields but found 1.", errors.get(9).getMessage());
+    }
+
+    @Test
+    public void testLargeFileKeepsOrder() throws Exception {
+        Path file = directory.resolve("domains.csv");
+        Random random = new Random(31);
+        List<WebDomain> expected = new ArrayList<>();
+        List<Long> invalidLines = new ArrayList<>();
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < 60_000; i++) {
+                LocalDate registration = LocalDate.of(2000, 1, 1).plusDays(random.nextInt(9000));
+                LocalDate expiration = registration.plusDays(1 + random.nextInt(4000));
+                String owner = i % 1000 == 0 ? "\"Owner, " + i + "\"" : "Owner " + i;
+                boolean valid = random.nextInt(20) != 0;
+                String name = valid ? "shop" + i + ".com" : "shop" + i;
+                writer.write(name + "," + owner + ",o" + i + "@uoc.edu,Hosting " + (i % 7) + "," + registration
+                        + "," + expiration + "," + (1 + i) + "," + (i % 2 == 0) + "," + (i % 3 == 0) + "\n");
+                if (valid) {
+                    expected.add(new WebDomain(name, owner.replace("\"", ""), "o" + i + "@uoc.edu",
+                            "Hosting " + (i % 7), registration, expiration, 1 + i, i % 2 == 0, i % 3 == 0));
+                } else {
+                    invalidLines.add(i + 1L);
+                }
+            }
+        }
+        List<WebDomain> domains = new ArrayList<>();
+        List<Long> lines = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            long loaded = new CsvDomainLoader(pool).load(file, domains::add, (line, error) -> lines.add(line));
+            assertEquals(expected.size(), loaded);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(invalidLines, lines);
+        assertEquals(expected.size(), domains.size());
+        for (int i = 0; i < expected.size(); i++) {
+            ColumnarDomainStoreTest.assertSameRecord(expected.get(i), domains.get(i));
+        }
+    }
+
+    @Test
+    public void testRowLongerThanChunk() throws Exception {
+        String owner = "n".repeat(3_000_000);
+        Path file = write("a.com,Ana,ana@uoc.edu,Hosting UOC,2020-01-01,2030-01-01,1,true,true\n"
+                + "b.com," + owner + ",ana@uoc.edu,Hosting UOC,2020-01-01,2030-01-01,1,true,true\n"
+                + "c.com,Ana,ana@uoc.edu,Hosting UOC,2020-01-01,2030-01-01,1,true,true\n");
+        List<WebDomain> domains = new ArrayList<>();
+        new CsvDomainLoader().load(file, domains::add, (line, error) -> fail(error));
+        assertEquals(3, domains.size());
+        assertEquals(owner, domains.get(1).getOwnerName());
+        assertEquals("c.com", domains.get(2).getDomain());
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        assertEquals(0, new CsvDomainLoader().load(write(""), domain -> fail(), (line, error) -> fail()));
+        assertThrows(IllegalArgumentException.class, () -> new CsvDomainLoader(null));
+    }
+}
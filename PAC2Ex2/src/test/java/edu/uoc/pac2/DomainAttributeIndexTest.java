@@ -0,0 +1,116 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DomainAttributeIndexTest {
+
+    private static Set<String> names(List<WebDomain> domains) {
+        Set<String> names = new HashSet<>();
+        for (WebDomain domain : domains) {
+            names.add(domain.getDomain());
+        }
+        return names;
+    }
+
+    @Test
+    public void testFollowsSetters() throws Exception {
+        DomainRegistry registry = new DomainRegistry();
+        DomainAttributeIndex emails = DomainAttributeIndex.byOwnerEmail();
+        DomainAttributeIndex providers = DomainAttributeIndex.byHostingProvider();
+        registry.addIndex(emails);
+        registry.addIndex(providers);
+        try {
+            WebDomain uoc = TestDomains.domain("uoc.edu");
+            WebDomain shop = TestDomains.domain("shop.com");
+            WebDomain blank = new WebDomain("blank.org", "Owner", null, null, null, null, 1, false, false);
+            registry.register(uoc);
+            registry.register(shop);
+            registry.register(blank);
+            assertEquals(DomainField.OWNER_EMAIL, emails.getField());
+            assertEquals(Set.of("uoc.edu", "shop.com"), names(emails.get("Owner@UOC.edu")));
+            assertEquals(2, providers.count(" Hosting UOC "));
+            assertEquals(1, providers.getValueCount());
+            assertEquals(List.of(), emails.get(null));
+            assertEquals(0, emails.count("nobody@uoc.edu"));
+
+            shop.setOwnerEmail("joan@shop.com");
+            shop.setHostingProvider("Provider A");
+            assertEquals(Set.of("uoc.edu"), names(emails.get("owner@uoc.edu")));
+            assertEquals(Set.of("shop.com"), names(emails.get("JOAN@shop.com")));
+            assertEquals(Set.of("shop.com"), names(providers.get("Provider A")));
+            assertEquals(2, providers.getValueCount());
+
+            // A domain without value is indexed as soon as it gets one
+            blank.setHostingProvider("Provider A");
+            blank.setOwnerEmail("joan@shop.com");
+            assertEquals(Set.of("shop.com", "blank.org"), names(providers.get("Provider A")));
+            assertEquals(2, emails.count("joan@shop.com"));
+
+            // Failed setters leave the indexes unchanged
+            assertThrows(DomainValidationException.class, () -> shop.setOwnerEmail("not an email"));
+            assertEquals(2, emails.count("joan@shop.com"));
+
+            registry.remove(shop);
+            registry.remove(uoc);
+            assertEquals(0, emails.count("owner@uoc.edu"));
+            assertEquals(1, providers.getValueCount());
+            assertEquals(Set.of("blank.org"), names(providers.get("Provider A")));
+        } finally {
+            registry.removeIndex(emails);
+            registry.removeIndex(providers);
+        }
+    }
+
+    @Test
+    public void testConcurrentChanges() throws Exception {
+        DomainAttributeIndex providers = DomainAttributeIndex.byHostingProvider();
+        WebDomainEvents.addListener(providers);
+        try {
+            List<WebDomain> domains = new ArrayList<>();
+            for (int i = 0; i < 4_000; i++) {
+                WebDomain domain = TestDomains.domain("d" + i + ".com");
+                domains.add(domain);
+                providers.add(domain);
+            }
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int offset = t;
+                threads.add(new Thread(() -> {
+                    for (int round = 0; round < 5; round++) {
+                        for (int i = offset; i < domains.size(); i += 4) {
+                            try {
+                                domains.get(i).setHostingProvider("Provider " + (i + round) % 3);
+                            } catch (Exception e) {
+                                fail(e);
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            int total = 0;
+            for (int p = 0; p < 3; p++) {
+                for (WebDomain domain : providers.get("Provider " + p)) {
+                    assertEquals("Provider " + p, domain.getHostingProvider());
+                    total++;
+                }
+            }
+            assertEquals(domains.size(), total);
+            assertEquals(0, providers.count("Hosting UOC"));
+        } finally {
+            WebDomainEvents.removeListener(providers);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DomainNameCodecTest {
+    private static final String CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-";
+    private static final String[] EXTENSIONS = {"com", "org", "net", "int", "edu", "gov", "mil", "io", "info", "cat"};
+
+    static String randomName(Random random, int maxLength) {
+        StringBuilder name = new StringBuilder();
+        int length = 1 + random.nextInt(maxLength);
+        for (int i = 0; i < length; i++) {
+            name.append(CHARS.charAt(random.nextInt(CHARS.length())));
+        }
+        return name.append('.').append(EXTENSIONS[random.nextInt(EXTENSIONS.length)]).toString();
+    }
+
+    @Test
+    public void testPackUnpack() {
+        long[] key = new long[2];
+        assertTrue(DomainNameCodec.pack("uoc.edu", key));
+        assertEquals(0, key[1]);
+        assertEquals("uoc.edu", DomainNameCodec.unpack(key[0], key[1]));
+
+        long[] other = new long[2];
+        assertTrue(DomainNameCodec.pack("UOC.Edu..", other));
+        assertArrayEquals(key, other);
+        assertTrue(DomainNameCodec.pack("Kiwi.com", other));
+        assertEquals("kiwi.com", DomainNameCodec.unpack(other[0], other[1]));
+
+        assertTrue(DomainNameCodec.pack("abcdefghij.com", key));
+        assertEquals(0, key[1]);
+        assertTrue(DomainNameCodec.pack("abcdefghijk.com", key));
+        assertNotEquals(0, key[1]);
+        assertEquals("abcdefghijk.com", DomainNameCodec.unpack(key[0], key[1]));
+        assertTrue(DomainNameCodec.pack("a".repeat(20) + ".net", key));
+        assertEquals("a".repeat(20) + ".net", DomainNameCodec.unpack(key[0], key[1]));
+        assertTrue(DomainNameCodec.pack("shop-12.cat", key));
+        assertNotEquals(0, key[1]);
+        assertEquals("shop-12.cat", DomainNameCodec.unpack(key[0], key[1]));
+
+        Random random = new Random(5);
+        Set<String> names = new HashSet<>();
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            String name = randomName(random, 16);
+            if (DomainNameCodec.pack(name, key)) {
+                String normalized = DomainValidator.normalize(name);
+                assertEquals(normalized, DomainNameCodec.unpack(key[0], key[1]));
+                assertFalse(key[0] == 0 && key[1] == 0);
+                assertEquals(names.add(normalized), keys.add(key[0] + ":" + key[1]));
+            } else {
+                assertTrue(name.length() > DomainNameCodec.MAX_PACKED_LENGTH);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> DomainNameCodec.unpack(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> DomainNameCodec.unpack(-1, 0));
+    }
+
+    @Test
+    public void testLongNamesAndInvalidNames() {
+        long[] key = {1, 2};
+        String name = "a".repeat(21) + ".com";
+        assertFalse(DomainNameCodec.pack(name, key));
+        assertFalse(DomainNameCodec.pack("abcdefghijklmnop.info", key));
+        assertArrayEquals(new long[]{1, 2}, key);
+        assertArrayEquals(name.getBytes(), DomainNameCodec.toBytes(name.toUpperCase() + "."));
+        assertEquals(name, DomainNameCodec.fromBytes(DomainNameCodec.toBytes(name)));
+
+        for (String invalid : new String[]{null, "", "uoc", ".com", "uoc.", "uoc..edu", "u_c.edu", "uoc.e_u",
+                "www.uoc.edu", "uoc.edu.x", "ñ.com"}) {
+            assertFalse(DomainNameCodec.pack(invalid, key), invalid);
+            assertNull(DomainNameCodec.toBytes(invalid), invalid);
+        }
+        assertArrayEquals(new long[]{1, 2}, key);
+    }
+}
@@ -0,0 +1,185 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static edu.uoc.pac2.TestDomains.domain;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DomainRegistryTest {
+
+    @Test
+    public void testRegisterAndGet() throws Exception {
+        DomainRegistry registry = new DomainRegistry();
+        WebDomain uoc = domain("UOC.edu");
+        assertNull(registry.register(uoc));
+        assertSame(uoc, registry.register(domain("uoc.EDU")));
+        assertEquals(1, registry.size());
+
+        assertSame(uoc, registry.get("uoc.edu"));
+        assertSame(uoc, registry.get("Uoc.Edu"));
+        assertTrue(registry.contains(new StringBuilder("UOC.EDU")));
+        assertNull(registry.get("uoc.com"));
+        assertNull(registry.get(null));
+
+        assertThrows(DomainValidationException.class, () -> registry.register(domain("uoc.es")));
+        assertThrows(DomainValidationException.class, () -> registry.register(domain(null)));
+        assertEquals(1, registry.values().size());
+        assertThrows(UnsupportedOperationException.class, () -> registry.values().clear());
+    }
+
+    @Test
+    public void testNormalizeMatchesSetDomain() throws Exception {
+        WebDomain webDomain = domain("uoc.edu");
+        for (String name : new String[]{"uoc.edu", "UOC.EDU", "Uoc-Spin.Com", "Kelvin.org", "uoc.edu."}) {
+            webDomain.setDomain(name);
+            assertEquals(webDomain.getDomain(), DomainValidator.normalize(name));
+        }
+        String lowercase = "uoc.edu";
+        assertSame(lowercase, DomainValidator.normalize(lowercase));
+    }
+
+    @Test
+    public void testConditionalOperations() throws Exception {
+        DomainRegistry registry = new DomainRegistry(4);
+        WebDomain first = domain("uoc.edu");
+        WebDomain second = domain("UOC.EDU");
+        WebDomain third = domain("uoc.edu");
+
+        assertNull(registry.replace(second));
+        registry.register(first);
+        assertSame(first, registry.replace(second));
+        assertFalse(registry.replace(first, third));
+        assertTrue(registry.replace(second, third));
+        assertSame(third, registry.get("uoc.edu"));
+        assertThrows(IllegalArgumentException.class, () -> registry.replace(third, domain("uoc.com")));
+
+        assertFalse(registry.remove(first));
+        assertTrue(registry.remove(third));
+        assertNull(registry.remove("uoc.edu"));
+        registry.register(first);
+        assertSame(first, registry.remove("UOC.edu"));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testIsAvailable() throws Exception {
+        DomainRegistry registry = new DomainRegistry(0, 0.05);
+        assertTrue(registry.isAvailable("uoc.edu"));
+        assertTrue(registry.isAvailable(null));
+        WebDomain uoc = domain("uoc.edu");
+        registry.register(uoc);
+        assertFalse(registry.isAvailable("UOC.edu"));
+        assertTrue(registry.isAvailable("uoc.com"));
+        registry.remove(uoc);
+        assertTrue(registry.isAvailable("uoc.edu"));
+
+        // The filter is rebuilt as the registry grows past it, and never forgets a registered name
+        for (int i = 0; i < 10_000; i++) {
+            registry.register(domain("d" + i + ".com"));
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            registry.remove("D" + i + ".com");
+        }
+        registry.rebuildAvailabilityFilter();
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i % 2 == 0, registry.isAvailable("d" + i + ".COM"));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new DomainRegistry(16, 1.5));
+    }
+
+    @Test
+    public void testConcurrentRegistrationsAndLookups() throws InterruptedException {
+        DomainRegistry registry = new DomainRegistry();
+        int writers = 4;
+        int domainsPerWriter = 20_000;
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger mismatched = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            threads.add(new Thread(() -> {
+                // Every writer registers the same names, so each one must be won exactly once
+                for (int i = 0; i < domainsPerWriter; i++) {
+                    try {
+                        if (registry.register(domain("d" + i + ".com")) == null) {
+                            winners.incrementAndGet();
+                        }
+                    } catch (DomainValidationException e) {
+                        fail(e);
+                    }
+                }
+            }));
+        }
+        for (int r = 0; r < 2; r++) {
+            threads.add(new Thread(() -> {
+                for (int i = domainsPerWriter - 1; i >= 0; i--) {
+                    WebDomain found = registry.get("D" + i + ".COM");
+                    if (found != null && !found.getDomain().equalsIgnoreCase("d" + i + ".com")) {
+                        mismatched.incrementAndGet();
+                    }
+                    // Names found registered must never be reported available, even while the filter grows
+                    if (found != null && registry.isAvailable("d" + i + ".com")) {
+                        mismatched.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(domainsPerWriter, winners.get());
+        assertEquals(domainsPerWriter, registry.size());
+        assertEquals(0, mismatched.get());
+    }
+
+    @Test
+    public void testIndexesFollowOnlyRegisteredDomains() throws Exception {
+        DomainRegistry registry = new DomainRegistry();
+        WebDomain registered = domain("uoc.edu");
+        WebDomain replaced = domain("shop.com");
+        registry.register(registered);
+        registry.register(replaced);
+        List<String> events = new ArrayList<>();
+        DomainIndex index = new DomainIndex() {
+            @Override
+            public void add(WebDomain domain) {
+                events.add("add " + domain.getDomain());
+            }
+
+            @Override
+            public void remove(WebDomain domain) {
+                events.add("remove " + domain.getDomain());
+            }
+
+            @Override
+            public void changed(WebDomain domain, DomainField field, Object previous) {
+                events.add(field + " " + domain.getDomain());
+            }
+        };
+        registry.addIndex(index);
+        try {
+            events.clear();
+            WebDomain replacement = domain("shop.com");
+            registry.replace(replacement);
+            registered.setOwnerName("Joan Vila");
+            // Neither a replaced domain nor one that is not registered reaches the index
+            replaced.setOwnerName("Nobody");
+            domain("other.com").setOwnerName("Nobody");
+            replacement.setAutoRenew(false);
+            registry.remove("uoc.edu");
+            registered.setOwnerName("Ana Puig");
+        } finally {
+            assertTrue(registry.removeIndex(index));
+        }
+        assertFalse(registry.removeIndex(index));
+        registry.get("shop.com").setAutoRenew(true);
+        assertEquals(List.of("remove shop.com", "add shop.com", "OWNER_NAME uoc.edu", "AUTO_RENEW shop.com",
+                "remove uoc.edu"), events);
+    }
+}
@@ -0,0 +1,88 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DomainSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private static DomainRegistry registry(int count, long seed) throws DomainValidationException {
+        Random random = new Random(seed);
+        DomainRegistry registry = new DomainRegistry();
+        for (int i = 0; i < count; i++) {
+            WebDomain domain = ColumnarDomainStoreTest.randomDomain(random, i);
+            registry.register(new WebDomain("shop" + i + ".com", domain.getOwnerName(), domain.getOwnerEmail(),
+                    domain.getHostingProvider(), domain.getRegistrationDate(), domain.getExpirationDate(),
+                    domain.getMaxConcurrentUsers(), domain.isWhoisPrivacy(), domain.isAutoRenew()));
+        }
+        return registry;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        DomainRegistry registry = registry(20_000, 29);
+        registry.register(new WebDomain("uoc.edu", "Ñ".repeat(10_000), null, null, null, null, 0, true, true));
+        Path file = directory.resolve("domains.wdsn");
+        DomainSnapshot.write(registry, file);
+
+        DomainSnapshot snapshot = DomainSnapshot.open(file);
+        assertEquals(registry.size(), snapshot.size());
+        for (WebDomain expected : registry.values()) {
+            WebDomain actual = snapshot.get(expected.getDomain().toUpperCase());
+            assertNotSame(expected, actual);
+            ColumnarDomainStoreTest.assertSameRecord(expected, actual);
+            int record = snapshot.find(expected.getDomain());
+            assertSame(actual, snapshot.get(record));
+            assertEquals(expected.getExpirationDate() == null ? Long.MIN_VALUE
+                    : expected.getExpirationDate().toEpochDay(), snapshot.getExpirationEpochDay(record));
+        }
+        assertNull(snapshot.get("missing.com"));
+        assertNull(snapshot.get(null));
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.get(snapshot.size()));
+    }
+
+    @Test
+    public void testReplaceSnapshot() throws Exception {
+        Path file = directory.resolve("domains.wdsn");
+        DomainSnapshot.write(registry(100, 1), file);
+        DomainSnapshot.write(new DomainRegistry(), file);
+        DomainSnapshot empty = DomainSnapshot.open(file);
+        assertEquals(0, empty.size());
+        assertNull(empty.get("shop1.com"));
+        DomainSnapshot.write(registry(10, 2), file);
+        assertEquals(10, DomainSnapshot.open(file).size());
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testInvalidFile() throws Exception {
+        Path file = directory.resolve("domains.wdsn");
+        Files.write(file, new byte[10]);
+        assertThrows(IOException.class, () -> DomainSnapshot.open(file));
+        Files.write(file, new byte[100]);
+        assertThrows(IOException.class, () -> DomainSnapshot.open(file));
+
+        DomainSnapshot.write(registry(10, 3), file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 2), 4);
+        }
+        IOException exception = assertThrows(IOException.class, () -> DomainSnapshot.open(file));
+        assertEquals("[ERROR] Unsupported snapshot version 2.", exception.getMessage());
+        assertThrows(IOException.class, () -> DomainSnapshot.open(directory.resolve("missing.wdsn")));
+    }
+}
@@ -0,0 +1,88 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+public class DomainTimingWheelBenchmark {
+    private static final int DEADLINES = 2_000_000;
+    private static final int HORIZON_DAYS = 3 * 365;
+    private static final int ROUNDS = 3;
+
+    private static final class Entry {
+        private final WebDomain domain;
+        private final long epochDay;
+        private boolean cancelled;
+
+        Entry(WebDomain domain, long epochDay) {
+            this.domain = domain;
+            this.epochDay = epochDay;
+        }
+    }
+
+    @Test
+    public void benchmarkScheduleCancelAndFire() {
+        long start = LocalDate.of(2030, 1, 1).toEpochDay();
+        WebDomain domain = new WebDomain("uoc.edu", "Owner", "owner@uoc.edu", "Hosting UOC", null, null, 1, false,
+                true);
+        long[] days = new long[DEADLINES];
+        Random random = new Random(17);
+        for (int i = 0; i < DEADLINES; i++) {
+            days[i] = start + random.nextInt(HORIZON_DAYS);
+        }
+
+        long bestWheel = Long.MAX_VALUE;
+        long bestQueue = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            AtomicLong fired = new AtomicLong();
+            long begin = System.nanoTime();
+            DomainTimingWheel wheel = new DomainTimingWheel(start, (day, kind, domains) -> fired.addAndGet(domains.size()));
+            DomainTimingWheel.Deadline[] deadlines = new DomainTimingWheel.Deadline[DEADLINES];
+            for (int i = 0; i < DEADLINES; i++) {
+                deadlines[i] = wheel.schedule(domain, DeadlineKind.AUTO_RENEW, days[i]);
+            }
+            for (int i = 0; i < DEADLINES; i += 10) {
+                deadlines[i].cancel();
+            }
+            wheel.advanceTo(start + HORIZON_DAYS);
+            bestWheel = Math.min(bestWheel, System.nanoTime() - begin);
+            assertEquals(DEADLINES - DEADLINES / 10, fired.get());
+
+            // A priority queue cannot remove an entry in less than linear time, so cancelled entries are only
+            // flagged and skipped when polled
+            long polled = 0;
+            begin = System.nanoTime();
+            PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparingLong(entry -> entry.epochDay));
+            Entry[] entries = new Entry[DEADLINES];
+            for (int i = 0; i < DEADLINES; i++) {
+                entries[i] = new Entry(domain, days[i]);
+                queue.add(entries[i]);
+            }
+            for (int i = 0; i < DEADLINES; i += 10) {
+                entries[i].cancelled = true;
+            }
+            for (long day = start; day <= start + HORIZON_DAYS; day++) {
+                while (!queue.isEmpty() && queue.peek().epochDay <= day) {
+                    Entry entry = queue.poll();
+                    if (!entry.cancelled && entry.domain != null) {
+                        polled++;
+                    }
+                }
+            }
+            bestQueue = Math.min(bestQueue, System.nanoTime() - begin);
+            assertEquals(DEADLINES - DEADLINES / 10, polled);
+        }
+        System.out.printf("%d deadlines over %d days: priority queue %d ns/deadline, timing wheel %d ns/deadline"
+                        + " (x%.1f)%n", DEADLINES, HORIZON_DAYS, bestQueue / DEADLINES, bestWheel / DEADLINES,
+                (double) bestQueue / Math.max(1, bestWheel));
+        assertTrue(bestWheel <= bestQueue);
+    }
+}
@@ -0,0 +1,177 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DomainTimingWheelTest {
+    private static final long START = LocalDate.of(2030, 6, 15).toEpochDay();
+
+    private static WebDomain domain(String name, long expirationDay, boolean autoRenew) {
+        return new WebDomain(name, "Owner", "owner@uoc.edu", "Hosting UOC", LocalDate.ofEpochDay(START - 365),
+                LocalDate.ofEpochDay(expirationDay), 100, false, autoRenew);
+    }
+
+    @Test
+    public void testFiresInBatchesPerDayAndKind() throws Exception {
+        List<String> batches = new ArrayList<>();
+        DomainTimingWheel wheel = new DomainTimingWheel(START, (day, kind, domains) -> {
+            List<String> names = new ArrayList<>();
+            for (WebDomain domain : domains) {
+                names.add(domain.getDomain());
+            }
+            names.sort(null);
+            batches.add((day - START) + " " + kind + " " + names);
+        });
+        wheel.schedule(domain("a.com", START + 2, true));
+        wheel.schedule(domain("b.com", START + 2, false));
+        wheel.schedule(domain("c.com", START + 2, true));
+        wheel.schedule(domain("late.com", START - 10, true));
+        DomainTimingWheel.Deadline cancelled = wheel.schedule(domain("d.com", START + 1, false));
+        assertEquals(5, wheel.size());
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertEquals(4, wheel.size());
+
+        assertEquals(1, wheel.advanceTo(START + 1));
+        assertEquals(List.of("0 AUTO_RENEW [late.com]"), batches);
+        assertEquals(3, wheel.advanceTo(START + 10));
+        assertEquals(List.of("0 AUTO_RENEW [late.com]", "2 EXPIRY [b.com]", "2 AUTO_RENEW [a.com, c.com]"), batches);
+        assertEquals(START + 11, wheel.getNextEpochDay());
+        assertEquals(0, wheel.size());
+        assertTrue(cancelled.isCancelled());
+
+        WebDomain noDate = new WebDomain("e.com", "Owner", "owner@uoc.edu", "Hosting UOC", null, null, 100, false,
+                true);
+        assertThrows(DomainValidationException.class, () -> wheel.schedule(noDate));
+    }
+
+    @Test
+    public void testFailingBatchDoesNotLoseOthers() throws Exception {
+        List<DeadlineKind> delivered = new ArrayList<>();
+        DomainTimingWheel wheel = new DomainTimingWheel(START, (day, kind, domains) -> {
+            delivered.add(kind);
+            if (kind == DeadlineKind.EXPIRY) {
+                throw new IllegalStateException("expiry failed");
+            }
+        });
+        DomainTimingWheel.Deadline expiry = wheel.schedule(domain("a.com", START + 1, false));
+        DomainTimingWheel.Deadline renewal = wheel.schedule(domain("b.com", START + 1, true));
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> wheel.advanceTo(START + 1));
+        assertEquals("expiry failed", exception.getMessage());
+        // The renewals due the same day are still delivered
+        assertEquals(List.of(DeadlineKind.EXPIRY, DeadlineKind.AUTO_RENEW), delivered);
+        assertTrue(expiry.isFired());
+        assertTrue(renewal.isFired());
+        assertEquals(0, wheel.size());
+        assertEquals(START + 2, wheel.getNextEpochDay());
+    }
+
+    @Test
+    public void testCascadesThroughAllLevels() {
+        Map<Long, Integer> fired = new HashMap<>();
+        DomainTimingWheel wheel = new DomainTimingWheel(START, (day, kind, domains) ->
+                fired.merge(day, domains.size(), Integer::sum));
+        long[] offsets = {0, 1, 63, 64, 65, 4095, 4096, 4097, 262_143, 262_144, 300_000, 16_777_216, 20_000_000};
+        for (long offset : offsets) {
+            wheel.schedule(domain("d" + offset + ".com", 0, false), DeadlineKind.EXPIRY, START + offset);
+        }
+        assertEquals(offsets.length - 2, wheel.advanceTo(START + 300_000));
+        for (int i = 0; i < offsets.length - 2; i++) {
+            assertEquals(1, fired.get(START + offsets[i]), "offset " + offsets[i]);
+        }
+        assertEquals(2, wheel.size());
+        assertEquals(2, wheel.advanceTo(START + 20_000_000));
+        assertEquals(1, fired.get(START + 20_000_000));
+    }
+
+    @Test
+    public void testMatchesExpectedDays() {
+        Random random = new Random(13);
+        Map<WebDomain, Long> firedAt = new IdentityHashMap<>();
+        DomainTimingWheel wheel = new DomainTimingWheel(START, (day, kind, domains) -> {
+            for (WebDomain domain : domains) {
+                assertNull(firedAt.put(domain, day));
+            }
+        });
+        Map<DomainTimingWheel.Deadline, Long> expected = new IdentityHashMap<>();
+        long day = START;
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 2000; i++) {
+                WebDomain domain = domain("d.com", START, false);
+                DomainTimingWheel.Deadline deadline = wheel.schedule(domain, DeadlineKind.EXPIRY,
+                        day - 5 + random.nextInt(20_000));
+                // Deadlines on days already processed fire on the next day processed
+                expected.put(deadline, Math.max(deadline.getEpochDay(), wheel.getNextEpochDay()));
+            }
+            List<DomainTimingWheel.Deadline> deadlines = new ArrayList<>(expected.keySet());
+            for (int i = 0; i < 500; i++) {
+                deadlines.get(random.nextInt(deadlines.size())).cancel();
+            }
+            day += random.nextInt(1000);
+            wheel.advanceTo(day);
+        }
+        wheel.advanceTo(day + 20_000);
+        assertEquals(0, wheel.size());
+
+        int cancelled = 0;
+        for (Map.Entry<DomainTimingWheel.Deadline, Long> entry : expected.entrySet()) {
+            DomainTimingWheel.Deadline deadline = entry.getKey();
+            if (deadline.isCancelled()) {
+                cancelled++;
+                assertFalse(firedAt.containsKey(deadline.getDomain()));
+            } else {
+                assertTrue(deadline.isFired());
+                assertEquals(entry.getValue(), firedAt.get(deadline.getDomain()));
+            }
+        }
+        assertEquals(expected.size(), firedAt.size() + cancelled);
+    }
+
+    @Test
+    public void testConcurrentScheduling() throws InterruptedException {
+        List<WebDomain> fired = new ArrayList<>();
+        DomainTimingWheel wheel = new DomainTimingWheel(START, (day, kind, domains) -> fired.addAll(domains));
+        WebDomain domain = domain("uoc.edu", START, true);
+        AtomicInteger cancelled = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 50_000; i++) {
+                    DomainTimingWheel.Deadline deadline = wheel.schedule(domain, DeadlineKind.AUTO_RENEW,
+                            START + random.nextInt(5000));
+                    // An overdue deadline may fire before it is cancelled
+                    if (i % 2 == 0 && deadline.cancel()) {
+                        cancelled.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            for (int day = 0; day < 1000; day++) {
+                wheel.advanceTo(START + day);
+            }
+        }));
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        wheel.advanceTo(START + 10_000);
+        assertEquals(200_000 - cancelled.get(), fired.size());
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,53 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+public class DomainTrieIndexBenchmark {
+    private static final int DOMAINS = 500_000;
+    private static final int QUERIES = 100_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void benchmarkAutocomplete() {
+        Random random = new Random(13);
+        DomainTrieIndex index = new DomainTrieIndex();
+        long start = System.nanoTime();
+        for (int i = 0; i < DOMAINS; i++) {
+            index.add(TestDomains.domain(DomainNameCodecTest.randomName(random, 12)));
+        }
+        long insert = (System.nanoTime() - start) / DOMAINS;
+        String[] prefixes = new String[QUERIES];
+        for (int i = 0; i < prefixes.length; i++) {
+            String name = DomainNameCodecTest.randomName(random, 12);
+            prefixes[i] = name.substring(0, Math.min(3, name.indexOf('.')));
+        }
+
+        long list = Long.MAX_VALUE;
+        long count = Long.MAX_VALUE;
+        long found = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            start = System.nanoTime();
+            for (String prefix : prefixes) {
+                found += index.withPrefix(prefix, 10).size();
+            }
+            list = Math.min(list, (System.nanoTime() - start) / QUERIES);
+            start = System.nanoTime();
+            for (String prefix : prefixes) {
+                found += index.countWithPrefix(prefix);
+            }
+            count = Math.min(count, (System.nanoTime() - start) / QUERIES);
+        }
+        start = System.nanoTime();
+        int org = index.countWithSuffix(".org");
+        long suffix = System.nanoTime() - start;
+        System.out.printf("trie over %d names: insert %d ns, withPrefix(limit 10) %d ns, countWithPrefix %d ns, "
+                + "countWithSuffix(.org) %d ns%n", DOMAINS, insert, list, count, suffix);
+        assertTrue(found > 0 && org > 0);
+    }
+}
@@ -0,0 +1,136 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DomainTrieIndexTest {
+
+    private static List<String> names(List<WebDomain> domains) {
+        List<String> names = new ArrayList<>();
+        for (WebDomain domain : domains) {
+            names.add(domain.getDomain());
+        }
+        return names;
+    }
+
+    @Test
+    public void testPrefixAndSuffix() throws Exception {
+        DomainRegistry registry = new DomainRegistry();
+        DomainTrieIndex index = new DomainTrieIndex();
+        registry.addIndex(index);
+        try {
+            for (String name : new String[]{"shop.com", "shopping.org", "shop-eu.net", "sho.org", "uoc.edu",
+                    "Shopify.com", "a.org"}) {
+                registry.register(TestDomains.domain(name));
+            }
+            assertEquals(7, index.size());
+            assertEquals(List.of("shop-eu.net", "shop.com", "Shopify.com", "shopping.org"),
+                    names(index.withPrefix("SHOP", 10)));
+            assertEquals(List.of("shop-eu.net", "shop.com"), names(index.withPrefix("shop", 2)));
+            assertEquals(List.of(), names(index.withPrefix("shop", 0)));
+            assertEquals(List.of(), names(index.withPrefix("shopx", 10)));
+            assertEquals(5, index.countWithPrefix("sho"));
+            assertEquals(1, index.countWithPrefix("shopp"));
+            assertEquals(0, index.countWithPrefix("x"));
+            assertEquals(7, index.countWithPrefix(""));
+            assertEquals(7, index.withPrefix("", 100).size());
+            assertEquals("a.org", index.withPrefix("", 1).get(0).getDomain());
+
+            assertEquals(3, index.countWithSuffix(".ORG"));
+            assertEquals(List.of("a.org", "shopping.org", "sho.org"), names(index.withSuffix(".org", 10)));
+            assertEquals(2, index.countWithSuffix("com"));
+            assertEquals(0, index.countWithSuffix(".es"));
+
+            // Renames and removals are followed through the registry and the events
+            WebDomain shop = registry.get("shop.com");
+            shop.setDomain("boutique.com");
+            assertEquals(0, index.countWithPrefix("shop.com"));
+            assertEquals(List.of("boutique.com"), names(index.withPrefix("bou", 10)));
+            assertEquals(2, index.countWithSuffix(".com"));
+            registry.remove(registry.get("uoc.edu"));
+            registry.remove(shop);
+            assertEquals(0, index.countWithSuffix(".edu"));
+            assertEquals(6, index.size());
+            index.remove(shop);
+            assertEquals(5, index.size());
+            assertEquals(List.of("shop-eu.net", "Shopify.com", "shopping.org"), names(index.withPrefix("shop", 10)));
+
+            assertThrows(IllegalArgumentException.class, () -> index.withPrefix("a", -1));
+            assertThrows(IllegalArgumentException.class, () -> index.countWithSuffix(null));
+        } finally {
+            registry.removeIndex(index);
+        }
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(23);
+        DomainTrieIndex index = new DomainTrieIndex();
+        TreeMap<String, WebDomain> expected = new TreeMap<>();
+        for (int i = 0; i < 30_000; i++) {
+            String name = DomainValidator.normalize(DomainNameCodecTest.randomName(random, 6));
+            if (random.nextInt(3) == 0) {
+                WebDomain domain = expected.remove(name);
+                if (domain != null) {
+                    index.remove(domain);
+                }
+            } else if (!expected.containsKey(name)) {
+                WebDomain domain = TestDomains.domain(name);
+                expected.put(name, domain);
+                index.add(domain);
+                index.add(domain);
+            }
+        }
+        assertEquals(expected.size(), index.size());
+        for (String prefix : new String[]{"", "a", "ab", "z-", "q1", "abc", "m.", "9"}) {
+            List<String> matching = new ArrayList<>();
+            for (String name : expected.tailMap(prefix).keySet()) {
+                if (!name.startsWith(prefix)) {
+                    break;
+                }
+                matching.add(name);
+            }
+            assertEquals(matching.size(), index.countWithPrefix(prefix), prefix);
+            assertEquals(matching.subList(0, Math.min(20, matching.size())), names(index.withPrefix(prefix, 20)));
+        }
+        for (String suffix : new String[]{".com", "a.cat", "-.io", "info"}) {
+            long matching = expected.keySet().stream().filter(name -> name.endsWith(suffix)).count();
+            assertEquals(matching, index.countWithSuffix(suffix), suffix);
+            List<WebDomain> listed = index.withSuffix(suffix, Integer.MAX_VALUE);
+            assertEquals(matching, listed.size());
+            for (WebDomain domain : listed) {
+                assertTrue(domain.getDomain().endsWith(suffix));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentInserts() throws InterruptedException {
+        DomainTrieIndex index = new DomainTrieIndex();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            threads.add(new Thread(() -> {
+                for (int i = offset; i < 40_000; i += 4) {
+                    index.add(TestDomains.domain((char) ('a' + i % 26) + "shop" + i + ".com"));
+                    index.countWithPrefix("ashop1");
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40_000, index.size());
+        assertEquals(40_000, index.countWithSuffix(".com"));
+        assertEquals(40_000 / 26 + 1, index.countWithPrefix("b"));
+    }
+}
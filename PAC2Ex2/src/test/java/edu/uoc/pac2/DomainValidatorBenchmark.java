@@ -0,0 +1,77 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+public class DomainValidatorBenchmark {
+    private static final int CANDIDATES = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    static long nanosPerCall(String[] candidates, Predicate<String> validator) {
+        long best = Long.MAX_VALUE;
+        int valid = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (String candidate : candidates) {
+                if (validator.test(candidate)) {
+                    valid++;
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        assertTrue(valid >= 0);
+        return best / candidates.length;
+    }
+
+    @Test
+    public void benchmarkIsValidDomain() {
+        Random random = new Random(7);
+        String[] candidates = new String[CANDIDATES];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = DomainValidatorTest.randomCandidate(random);
+        }
+        for (String candidate : candidates) {
+            assertEquals(DomainValidatorTest.legacyIsValidDomain(candidate), DomainValidator.isValidDomain(candidate));
+        }
+
+        long legacy = nanosPerCall(candidates, DomainValidatorTest::legacyIsValidDomain);
+        long scanner = nanosPerCall(candidates, DomainValidator::isValidDomain);
+        System.out.printf("isValidDomain: split/regex %d ns/call, single pass %d ns/call (x%.1f)%n",
+                legacy, scanner, (double) legacy / Math.max(1, scanner));
+        assertTrue(scanner <= legacy);
+    }
+
+    @Test
+    public void benchmarkIsValidHostnameOnAdversarialInputs() {
+        String longLabels = ("a".repeat(61) + ".").repeat(4) + "com";
+        String manyLabels = "a.".repeat(125) + "com";
+        String[] candidates = {
+                longLabels,
+                manyLabels,
+                longLabels.substring(0, longLabels.length() - 1) + "_",
+                manyLabels.replace("com", "c-m"),
+                ("a-".repeat(31) + "a.").repeat(4) + "co-",
+                "a".repeat(100_000) + ".com",
+                "-".repeat(252) + "."
+        };
+        String[] repeated = new String[70_000];
+        for (int i = 0; i < repeated.length; i++) {
+            repeated[i] = candidates[i % candidates.length];
+        }
+        for (String candidate : candidates) {
+            assertEquals(DomainValidatorTest.regexIsValidHostname(candidate), DomainValidator.isValidHostname(candidate));
+        }
+
+        long regex = nanosPerCall(repeated, DomainValidatorTest::regexIsValidHostname);
+        long scanner = nanosPerCall(repeated, DomainValidator::isValidHostname);
+        System.out.printf("isValidHostname (adversarial): split/regex %d ns/call, single pass %d ns/call (x%.1f)%n",
+                regex, scanner, (double) regex / Math.max(1, scanner));
+        assertTrue(scanner <= regex);
+    }
+}
@@ -0,0 +1,177 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DomainValidatorTest {
+
+    static boolean legacyIsValidDomain(String domain) {
+        if (domain == null) {
+            return false;
+        }
+        domain = domain.toLowerCase();
+        String[] parts = domain.split("\\.");
+        if (parts.length != 2) {
+            return false;
+        }
+        if (!parts[0].matches("^[a-z0-9-]+$")) {
+            return false;
+        }
+        for (String ext : new String[]{"com", "org", "net", "int", "edu", "gov", "mil"}) {
+            if (ext.equals(parts[1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String randomCandidate(Random random) {
+        String alphabet = "abcxyzABCXYZ0129-_. !\u212A\u0130";
+        String[] extensions = {"com", "ORG", "Net", "edu", "es", "cat", "comm", ""};
+        StringBuilder builder = new StringBuilder();
+        int nameLength = random.nextInt(12);
+        for (int i = 0; i < nameLength; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        if (random.nextInt(10) > 0) {
+            builder.append('.').append(extensions[random.nextInt(extensions.length)]);
+        }
+        while (random.nextInt(8) == 0) {
+            builder.append('.');
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testIsValidDomain() {
+        assertTrue(DomainValidator.isValidDomain("uoc.edu"));
+        assertTrue(DomainValidator.isValidDomain("UOC.EDU"));
+        assertTrue(DomainValidator.isValidDomain("custom-domain-123.com"));
+        assertTrue(DomainValidator.isValidDomain("uoc.com."));
+        assertTrue(DomainValidator.isValidDomain("\u212Aelvin.org"));
+
+        assertFalse(DomainValidator.isValidDomain(null));
+        assertFalse(DomainValidator.isValidDomain(""));
+        assertFalse(DomainValidator.isValidDomain("."));
+        assertFalse(DomainValidator.isValidDomain(".com"));
+        assertFalse(DomainValidator.isValidDomain("uoc."));
+        assertFalse(DomainValidator.isValidDomain("uocedu"));
+        assertFalse(DomainValidator.isValidDomain("uoc..edu"));
+        assertFalse(DomainValidator.isValidDomain("cv.uoc.edu"));
+        assertFalse(DomainValidator.isValidDomain(" uoc.edu "));
+        assertFalse(DomainValidator.isValidDomain("spin_uoc.com"));
+        assertFalse(DomainValidator.isValidDomain("uoc.ed2u"));
+        assertFalse(DomainValidator.isValidDomain("uoc.es"));
+        assertFalse(DomainValidator.isValidDomain("\u0130stanbul.com"));
+    }
+
+    @Test
+    public void testIsValidDomainWithExtensions() {
+        String[] extensions = {"es", "cat"};
+        assertTrue(DomainValidator.isValidDomain("uoc.cat", extensions));
+        assertTrue(DomainValidator.isValidDomain("uoc.ES", extensions));
+        assertFalse(DomainValidator.isValidDomain("uoc.edu", extensions));
+    }
+
+    static boolean regexIsValidHostname(String hostname) {
+        if (hostname == null) {
+            return false;
+        }
+        String host = hostname.endsWith(".") ? hostname.substring(0, hostname.length() - 1) : hostname;
+        if (host.isEmpty() || host.length() > 253) {
+            return false;
+        }
+        String[] labels = host.toLowerCase().split("\\.", -1);
+        if (labels.length < 2) {
+            return false;
+        }
+        for (String label : labels) {
+            if (!label.matches("^[a-z0-9]([a-z0-9-]{0,61}[a-z0-9])?$")) {
+                return false;
+            }
+        }
+        String extension = labels[labels.length - 1];
+        for (String ext : new String[]{"com", "org", "net", "int", "edu", "gov", "mil"}) {
+            if (ext.equals(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String randomHostname(Random random) {
+        String alphabet = "ab9-";
+        String[] extensions = {"com", "EDU", "es", "-com", ""};
+        StringBuilder builder = new StringBuilder();
+        int labels = random.nextInt(5);
+        for (int i = 0; i < labels; i++) {
+            int length = random.nextInt(10) == 0 ? 60 + random.nextInt(6) : random.nextInt(4);
+            for (int j = 0; j < length; j++) {
+                builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            builder.append('.');
+        }
+        builder.append(extensions[random.nextInt(extensions.length)]);
+        if (random.nextInt(10) == 0) {
+            builder.append('.');
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testIsValidHostname() {
+        assertTrue(DomainValidator.isValidHostname("uoc.edu"));
+        assertTrue(DomainValidator.isValidHostname("api.eu.shop.com"));
+        assertTrue(DomainValidator.isValidHostname("API.EU.Shop.COM."));
+        assertTrue(DomainValidator.isValidHostname("x-1.y--2.com"));
+        assertTrue(DomainValidator.isValidHostname("a".repeat(63) + ".com"));
+        assertTrue(DomainValidator.isValidHostname(("a".repeat(61) + ".").repeat(4) + "com"));
+        assertTrue(DomainValidator.isValidHostname("a.".repeat(125) + "com"));
+
+        assertFalse(DomainValidator.isValidHostname(null));
+        assertFalse(DomainValidator.isValidHostname(""));
+        assertFalse(DomainValidator.isValidHostname("."));
+        assertFalse(DomainValidator.isValidHostname("com"));
+        assertFalse(DomainValidator.isValidHostname(".uoc.edu"));
+        assertFalse(DomainValidator.isValidHostname("cv..uoc.edu"));
+        assertFalse(DomainValidator.isValidHostname("uoc.edu.."));
+        assertFalse(DomainValidator.isValidHostname("-cv.uoc.edu"));
+        assertFalse(DomainValidator.isValidHostname("cv-.uoc.edu"));
+        assertFalse(DomainValidator.isValidHostname("cv_1.uoc.edu"));
+        assertFalse(DomainValidator.isValidHostname("cv.uoc.es"));
+        assertFalse(DomainValidator.isValidHostname("a".repeat(64) + ".com"));
+        assertFalse(DomainValidator.isValidHostname(("a".repeat(62) + ".").repeat(4) + "com"));
+        assertFalse(DomainValidator.isValidHostname("a.".repeat(126) + "com"));
+    }
+
+    @Test
+    public void testIsValidHostnameWithMultiLabelExtensions() {
+        ExtensionRegistry registry = new ExtensionRegistry("uk", "co.uk", "a.b.c");
+        assertTrue(DomainValidator.isValidHostname("shop.co.uk", registry));
+        assertTrue(DomainValidator.isValidHostname("co.uk", registry));
+        assertTrue(DomainValidator.isValidHostname("x.a.b.c", registry));
+        assertFalse(DomainValidator.isValidHostname("a.b.c", registry));
+        assertFalse(DomainValidator.isValidHostname("shop.com", registry));
+    }
+
+    @Test
+    public void testIsValidHostnameMatchesRegex() {
+        Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            String candidate = randomHostname(random);
+            assertEquals(regexIsValidHostname(candidate), DomainValidator.isValidHostname(candidate), candidate);
+        }
+    }
+
+    @Test
+    public void testMatchesLegacyRules() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            String candidate = randomCandidate(random);
+            assertEquals(legacyIsValidDomain(candidate), DomainValidator.isValidDomain(candidate), candidate);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmailValidatorTest {
+    private static final String[] EXTENSIONS = new String[]{"com", "org", "net", "int", "edu", "gov", "mil"};
+    private static final String GENERIC_REGEX = "^[A-Za-z0-9._-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$";
+    private static final String EXTENSIONS_REGEX = "^[A-Za-z0-9._-]+@[A-Za-z0-9.-]+\\.(" + String.join("|", EXTENSIONS) + ")$";
+
+    private static String randomCandidate(Random random) {
+        String alphabet = "aZ09._-@.@ +!";
+        String[] suffixes = {".com", ".edu", ".EDU", ".es", ".c", ".cat1", ".", "", ".mil.com", "..org"};
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(10);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.append(suffixes[random.nextInt(suffixes.length)]).toString();
+    }
+
+    @Test
+    public void testIsValidEmail() {
+        assertTrue(EmailValidator.isValidEmail("gferrate@uoc.edu"));
+        assertTrue(EmailValidator.isValidEmail("g.ferrate_1-x@mail.uoc.cat"));
+        assertTrue(EmailValidator.isValidEmail("a@b.ES"));
+
+        assertFalse(EmailValidator.isValidEmail(null));
+        assertFalse(EmailValidator.isValidEmail(""));
+        assertFalse(EmailValidator.isValidEmail("@uoc.edu"));
+        assertFalse(EmailValidator.isValidEmail("gferrate@.edu"));
+        assertFalse(EmailValidator.isValidEmail("gferrate@uoc.e"));
+        assertFalse(EmailValidator.isValidEmail("gferrate@uoc.ed2"));
+        assertFalse(EmailValidator.isValidEmail("gferrate@uoc@edu.com"));
+        assertFalse(EmailValidator.isValidEmail("gferrate uoc.edu"));
+    }
+
+    @Test
+    public void testIsValidEmailWithExtensions() {
+        assertTrue(EmailValidator.isValidEmail("gferrate@uoc.edu", EXTENSIONS));
+        assertTrue(EmailValidator.isValidEmail("g.ferrate@mail.uoc.edu", EXTENSIONS));
+        assertTrue(EmailValidator.isValidEmail("a@b..com", EXTENSIONS));
+
+        assertFalse(EmailValidator.isValidEmail(null, EXTENSIONS));
+        assertFalse(EmailValidator.isValidEmail("gferrate@uoc.cat", EXTENSIONS));
+        assertFalse(EmailValidator.isValidEmail("gferrate@uoc.EDU", EXTENSIONS));
+        assertFalse(EmailValidator.isValidEmail("gferrate@.edu", EXTENSIONS));
+        assertFalse(EmailValidator.isValidEmail("gferrate@edu", EXTENSIONS));
+    }
+
+    @Test
+    public void testGetDomain() {
+        assertEquals("uoc.edu", EmailValidator.getDomain("gferrate@UOC.edu"));
+        assertEquals("mail.uoc.edu", EmailValidator.getDomain("g.ferrate@mail.uoc.edu"));
+        assertEquals("", EmailValidator.getDomain("gferrate@"));
+        assertNull(EmailValidator.getDomain("gferrate"));
+        assertNull(EmailValidator.getDomain(null));
+    }
+
+    @Test
+    public void testMatchesRegularExpressions() {
+        Random random = new Random(2024);
+        for (int i = 0; i < 200_000; i++) {
+            String candidate = randomCandidate(random);
+            assertEquals(candidate.matches(GENERIC_REGEX), EmailValidator.isValidEmail(candidate), candidate);
+            assertEquals(candidate.matches(EXTENSIONS_REGEX), EmailValidator.isValidEmail(candidate, EXTENSIONS), candidate);
+        }
+    }
+}
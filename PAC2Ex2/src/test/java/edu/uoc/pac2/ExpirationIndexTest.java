@@ -0,0 +1,137 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpirationIndexTest {
+    private static final LocalDate TODAY = LocalDate.of(2030, 6, 15);
+
+    @BeforeEach
+    public void fixClock() {
+        DomainClock.setCurrent(DomainClock.fixed(TODAY));
+    }
+
+    @AfterEach
+    public void restoreClock() {
+        DomainClock.setCurrent(DomainClock.system());
+    }
+
+    private static WebDomain domain(String name, LocalDate expirationDate) {
+        return new WebDomain(name, "Owner", "owner@uoc.edu", "Hosting UOC", TODAY.minusYears(1), expirationDate,
+                100, false, true);
+    }
+
+    @Test
+    public void testRangeQueries() throws Exception {
+        DomainRegistry registry = new DomainRegistry();
+        WebDomain expired = domain("expired.com", TODAY.minusDays(1));
+        WebDomain today = domain("today.com", TODAY);
+        WebDomain soon = domain("soon.com", TODAY.plusDays(30));
+        WebDomain later = domain("later.com", TODAY.plusDays(31));
+        registry.register(expired);
+        registry.register(later);
+
+        ExpirationIndex index = new ExpirationIndex();
+        WebDomain replacement = domain("today.com", TODAY.plusDays(2));
+        registry.addIndex(index);
+        try {
+            registry.register(soon);
+            registry.register(today);
+            assertEquals(4, index.size());
+            assertEquals(List.of(today, soon), index.expiringWithin(30));
+            assertEquals(List.of(today), index.expiringWithin(0));
+            assertEquals(List.of(expired), index.expired());
+            assertEquals(List.of(expired, today, soon, later),
+                    index.expiringBetween(TODAY.minusYears(1), TODAY.plusYears(1)));
+            assertTrue(index.expiringBetween(TODAY.plusDays(1), TODAY).isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> index.expiringWithin(-1));
+
+            later.setExpirationDate(TODAY.plusDays(10));
+            expired.setExpirationDate(TODAY.plusDays(30));
+            assertEquals(4, index.expiringWithin(30).size());
+            assertEquals(List.of(today, later), index.expiringWithin(10));
+            assertTrue(index.expired().isEmpty());
+
+            registry.remove("later.com");
+            assertEquals(3, index.size());
+            assertEquals(List.of(today), index.expiringWithin(10));
+            // Domains that are not in the registry are not indexed
+            later.setExpirationDate(TODAY.plusDays(5));
+            assertEquals(List.of(today), index.expiringWithin(10));
+
+            registry.replace(replacement);
+            assertEquals(List.of(replacement), index.expiringWithin(10));
+        } finally {
+            assertTrue(registry.removeIndex(index));
+        }
+        // A detached index is no longer updated
+        soon.setExpirationDate(TODAY.plusDays(1));
+        assertEquals(List.of(replacement), index.expiringWithin(10));
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        DomainRegistry registry = new DomainRegistry();
+        ExpirationIndex index = new ExpirationIndex();
+        registry.addIndex(index);
+        List<WebDomain> domains = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            WebDomain domain = domain("d" + i + ".com", TODAY.plusDays(i % 100));
+            domains.add(domain);
+            registry.register(domain);
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger errors = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                // Domains moving during the query may be missed or seen again, but queries must not fail
+                List<WebDomain> all = index.expiringBetween(TODAY, TODAY.plusDays(200));
+                if (all.contains(null)) {
+                    errors.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            int writer = w;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(writer);
+                // Every writer owns a quarter of the domains, as WebDomain itself is not thread-safe
+                for (int n = 0; n < 20_000; n++) {
+                    WebDomain domain = domains.get(writer + 4 * random.nextInt(domains.size() / 4));
+                    try {
+                        domain.setExpirationDate(TODAY.plusDays(random.nextInt(200)));
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                }
+            });
+            writers.add(thread);
+            thread.start();
+        }
+        for (Thread thread : writers) {
+            thread.join();
+        }
+        running.set(false);
+        reader.join();
+        registry.removeIndex(index);
+
+        assertEquals(0, errors.get());
+        List<WebDomain> all = index.expiringBetween(TODAY, TODAY.plusDays(200));
+        assertEquals(domains.size(), all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertFalse(all.get(i).getExpirationDate().isBefore(all.get(i - 1).getExpirationDate()));
+        }
+    }
+}
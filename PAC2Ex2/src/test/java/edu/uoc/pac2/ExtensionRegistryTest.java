@@ -0,0 +1,116 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExtensionRegistryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testDefaultExtensions() {
+        ExtensionRegistry registry = ExtensionRegistry.getDefault();
+        assertEquals(7, registry.size());
+        for (String extension : new String[]{"com", "org", "net", "int", "edu", "gov", "mil"}) {
+            assertTrue(registry.contains(extension));
+        }
+        assertTrue(registry.contains("EDU"));
+        assertTrue(registry.contains("uoc.edu", 4, 7));
+        assertFalse(registry.contains("es"));
+        assertFalse(registry.contains(""));
+        assertFalse(registry.contains(null));
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        Path file = directory.resolve("public_suffix_list.dat");
+        Files.write(file, List.of(
+                "// ===BEGIN ICANN DOMAINS===",
+                "",
+                "cat",
+                "ES  trailing text is ignored",
+                "co.uk",
+                "*.ck",
+                "!www.ck",
+                "香港",
+                "# comment",
+                "cat"), StandardCharsets.UTF_8);
+
+        ExtensionRegistry registry = new ExtensionRegistry("com");
+        assertEquals(3, registry.load(file));
+        assertEquals(3, registry.size());
+        assertTrue(registry.contains("cat"));
+        assertTrue(registry.contains("es"));
+        assertTrue(registry.contains("co.uk"));
+        assertFalse(registry.contains("com"));
+        assertFalse(registry.contains("ck"));
+
+        assertTrue(DomainValidator.isValidDomain("uoc.cat", registry));
+        assertFalse(DomainValidator.isValidDomain("uoc.com", registry));
+    }
+
+    @Test
+    public void testFailedLoadKeepsExtensions() throws IOException {
+        ExtensionRegistry registry = new ExtensionRegistry("com", "org");
+        Path empty = Files.write(directory.resolve("empty.dat"), List.of("// nothing here"));
+        assertThrows(IOException.class, () -> registry.load(empty));
+        assertThrows(IOException.class, () -> registry.load(directory.resolve("missing.dat")));
+        assertEquals(2, registry.size());
+        assertTrue(registry.contains("org"));
+    }
+
+    @Test
+    public void testLargeRegistry() {
+        List<String> extensions = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            extensions.add("x" + Integer.toString(i, 36));
+        }
+        ExtensionRegistry registry = new ExtensionRegistry();
+        assertEquals(10_000, registry.replace(extensions));
+        for (String extension : extensions) {
+            assertTrue(registry.contains(extension.toUpperCase()));
+        }
+        assertFalse(registry.contains("y0"));
+    }
+
+    @Test
+    public void testReloadWhileValidating() throws InterruptedException {
+        List<String> first = new ArrayList<>(List.of("com"));
+        List<String> second = new ArrayList<>(List.of("com"));
+        for (int i = 0; i < 1000; i++) {
+            first.add("a" + i);
+            second.add("b" + i);
+        }
+        ExtensionRegistry registry = new ExtensionRegistry("com");
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                // Both lists contain com, so a reader can only miss it by seeing a half-built table
+                if (!DomainValidator.isValidDomain("uoc.com", registry)) {
+                    misses.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 2000; i++) {
+            registry.replace(i % 2 == 0 ? first : second);
+        }
+        running.set(false);
+        reader.join();
+        assertEquals(0, misses.get());
+        assertTrue(registry.contains("b999"));
+    }
+}
@@ -0,0 +1,63 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+public class MutationLogBenchmark {
+    private static final int THREADS = 64;
+    private static final int MUTATIONS = 2_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void benchmarkGroupCommit() throws Exception {
+        DomainRegistry registry = new DomainRegistry();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long elapsed;
+        long syncs;
+        try (MutationLog log = MutationLog.open(directory.resolve("domains.log"), registry)) {
+            List<WebDomain> domains = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                WebDomain domain = new WebDomain("shop" + t + ".com", "Ana Puig", "ana@uoc.edu", "Hosting UOC",
+                        LocalDate.of(2020, 3, 1), LocalDate.of(2031, 3, 1), 100, false, true);
+                registry.register(domain);
+                domains.add(domain);
+            }
+            long begin = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (WebDomain domain : domains) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 1; i <= MUTATIONS; i++) {
+                        domain.setMaxConcurrentUsers(i);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            elapsed = System.nanoTime() - begin;
+            syncs = log.getSyncCount();
+        } finally {
+            executor.shutdown();
+        }
+        long mutations = (long) THREADS * MUTATIONS;
+        System.out.printf("%d durable mutations from %d threads: %.0f mutations/s, %d ns/mutation, %.1f mutations"
+                        + " per force%n", mutations, THREADS, mutations * 1e9 / elapsed, elapsed / mutations,
+                (double) mutations / syncs);
+        assertTrue(elapsed / mutations < 1_000_000);
+    }
+}
@@ -0,0 +1,225 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MutationLogTest {
+
+    @TempDir
+    Path directory;
+
+    private static WebDomain domain(String name) {
+        return new WebDomain(name, "Ana Puig", "ana@uoc.edu", "Hosting UOC", LocalDate.of(2020, 3, 1),
+                LocalDate.of(2031, 3, 1), 100, false, true);
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        Path file = directory.resolve("domains.log");
+        DomainRegistry registry = new DomainRegistry();
+        try (MutationLog log = MutationLog.open(file, registry)) {
+            assertEquals(0, registry.size());
+            WebDomain uoc = domain("uoc.edu");
+            WebDomain shop = domain("shop.com");
+            registry.register(uoc);
+            registry.register(shop);
+            registry.register(domain("gone.org"));
+            uoc.setExpirationDate(LocalDate.of(2035, 1, 1));
+            uoc.setOwnerEmail("joan@uoc.edu");
+            uoc.setAutoRenew(false);
+            uoc.setWhoisPrivacy(true);
+            uoc.setMaxConcurrentUsers(7);
+            uoc.setHostingProvider("Provider A");
+            shop.setDomain("store.com");
+            shop.setOwnerName("Joan Vila");
+            registry.remove("gone.org");
+            // Domains that are not registered are not logged
+            domain("other.com").setOwnerName("Nobody");
+            assertTrue(log.getSyncCount() > 0);
+        }
+
+        DomainRegistry restored = new DomainRegistry();
+        try (MutationLog log = MutationLog.open(file, restored)) {
+            assertEquals(2, restored.size());
+            ColumnarDomainStoreTest.assertSameRecord(registry.get("uoc.edu"), restored.get("uoc.edu"));
+            WebDomain shop = restored.values().stream()
+                    .filter(domain -> domain.getDomain().equals("store.com")).findFirst().orElseThrow();
+            ColumnarDomainStoreTest.assertSameRecord(registry.get("shop.com"), shop);
+            assertNull(restored.get("gone.org"));
+
+            // Replayed domains are not logged again
+            assertEquals(0, log.getSyncCount());
+            restored.get("uoc.edu").setAutoRenew(true);
+        }
+        DomainRegistry again = new DomainRegistry();
+        MutationLog.open(file, again).close();
+        assertTrue(again.get("uoc.edu").isAutoRenew());
+    }
+
+    @Test
+    public void testTornRecord() throws Exception {
+        Path file = directory.resolve("domains.log");
+        DomainRegistry registry = new DomainRegistry();
+        MutationLog log = MutationLog.open(file, registry);
+        try {
+            registry.register(domain("uoc.edu"));
+            registry.register(domain("shop.com"));
+        } finally {
+            log.close();
+        }
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+        DomainRegistry restored = new DomainRegistry();
+        MutationLog.open(file, restored).close();
+        assertEquals(1, restored.size());
+        assertNotNull(restored.get("uoc.edu"));
+        assertTrue(Files.size(file) < size - 3);
+
+        // A corrupted record is dropped as well
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+        DomainRegistry corrupted = new DomainRegistry();
+        MutationLog.open(file, corrupted).close();
+        assertEquals(0, corrupted.size());
+        assertEquals(0, Files.size(file));
+    }
+
+    @Test
+    public void testExistingDomainsAreLogged() throws Exception {
+        Path file = directory.resolve("domains.log");
+        DomainRegistry registry = new DomainRegistry();
+        registry.register(domain("uoc.edu"));
+        for (int i = 0; i < 1_000; i++) {
+            registry.register(domain("shop" + i + ".com"));
+        }
+        try (MutationLog log = MutationLog.open(file, registry)) {
+            // The existing domains are appended with a single force
+            assertEquals(1, log.getSyncCount());
+        }
+        DomainRegistry restored = new DomainRegistry();
+        MutationLog.open(file, restored).close();
+        assertEquals(registry.size(), restored.size());
+        ColumnarDomainStoreTest.assertSameRecord(registry.get("uoc.edu"), restored.get("uoc.edu"));
+    }
+
+    @Test
+    public void testFlushAfterRegistration() throws Exception {
+        Path file = directory.resolve("domains.log");
+        DomainRegistry registry = new DomainRegistry();
+        try (MutationLog log = MutationLog.open(file, registry)) {
+            // Appending only copies the record, the registry forces it once it has released its locks
+            log.add(domain("uoc.edu"));
+            assertEquals(0, log.getSyncCount());
+            log.flush();
+            assertEquals(1, log.getSyncCount());
+            log.flush();
+            assertEquals(1, log.getSyncCount());
+            registry.register(domain("shop.com"));
+            assertEquals(2, log.getSyncCount());
+            // A domain passed again, as when it is registered while the log is attached, is logged once
+            log.add(registry.get("shop.com"));
+            log.flush();
+            assertEquals(2, log.getSyncCount());
+            registry.remove("shop.com");
+            assertEquals(3, log.getSyncCount());
+        }
+        DomainRegistry restored = new DomainRegistry();
+        MutationLog.open(file, restored).close();
+        assertEquals(1, restored.size());
+        assertNotNull(restored.get("uoc.edu"));
+    }
+
+    @Test
+    public void testConcurrentMutations() throws Exception {
+        Path file = directory.resolve("domains.log");
+        DomainRegistry registry = new DomainRegistry();
+        int threads = 8;
+        int mutations = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (MutationLog log = MutationLog.open(file, registry)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                WebDomain domain = domain("shop" + t + ".com");
+                futures.add(executor.submit(() -> {
+                    registry.register(domain);
+                    for (int i = 1; i <= mutations; i++) {
+                        domain.setMaxConcurrentUsers(i);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertTrue(log.getSyncCount() <= threads * (mutations + 1));
+        } finally {
+            executor.shutdown();
+        }
+        DomainRegistry restored = new DomainRegistry();
+        MutationLog.open(file, restored).close();
+        assertEquals(threads, restored.size());
+        for (WebDomain domain : restored.values()) {
+            assertEquals(mutations, domain.getMaxConcurrentUsers());
+        }
+    }
+
+    @Test
+    public void testConcurrentChangesToSameField() throws Exception {
+        Path file = directory.resolve("domains.log");
+        DomainRegistry registry = new DomainRegistry();
+        WebDomain shared = domain("uoc.edu");
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (MutationLog log = MutationLog.open(file, registry)) {
+            registry.register(shared);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 1; i <= 200; i++) {
+                        shared.setMaxConcurrentUsers(i * threads + offset);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // The replay ends with the value the domain holds, whatever the order the threads set it in
+        DomainRegistry restored = new DomainRegistry();
+        MutationLog.open(file, restored).close();
+        assertEquals(shared.getMaxConcurrentUsers(), restored.get("uoc.edu").getMaxConcurrentUsers());
+    }
+
+    @Test
+    public void testClosedLog() throws Exception {
+        Path file = directory.resolve("domains.log");
+        DomainRegistry registry = new DomainRegistry();
+        MutationLog log = MutationLog.open(file, registry);
+        log.close();
+        log.close();
+        registry.register(domain("uoc.edu"));
+        log.add(domain("shop.com"));
+        assertThrows(IllegalStateException.class, log::flush);
+        assertEquals(0, Files.size(file));
+    }
+}
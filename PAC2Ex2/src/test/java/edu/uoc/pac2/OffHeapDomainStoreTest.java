@@ -0,0 +1,137 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapDomainStoreTest {
+
+    @Test
+    public void testPutFindRemove() throws Exception {
+        Random random = new Random(23);
+        OffHeapDomainStore store = new OffHeapDomainStore(0);
+        Map<String, WebDomain> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            int n = random.nextInt(30_000);
+            String name = "shop" + n + ".com";
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(name) != null, store.remove(name.toUpperCase()));
+            } else {
+                WebDomain domain = ColumnarDomainStoreTest.randomDomain(random, n);
+                domain.setDomain(name);
+                int record = store.put(domain);
+                expected.put(name, domain);
+                assertEquals(record, store.find(name));
+            }
+        }
+        assertEquals(expected.size(), store.size());
+        for (int n = 0; n < 30_000; n++) {
+            String name = "shop" + n + ".com";
+            OffHeapDomainStore.View view = store.get("SHOP" + n + ".COM");
+            if (expected.containsKey(name)) {
+                ColumnarDomainStoreTest.assertSameRecord(expected.get(name), view);
+                assertFalse(view.isRemoved());
+                assertEquals(view.getRecord(), store.find(name));
+            } else {
+                assertNull(view);
+                assertEquals(-1, store.find(name));
+            }
+        }
+        assertTrue(store.getOffHeapBytes() > 0);
+    }
+
+    @Test
+    public void testReplaceKeepsRecord() throws DomainValidationException {
+        OffHeapDomainStore store = new OffHeapDomainStore();
+        LocalDate date = LocalDate.of(2030, 5, 1);
+        int record = store.put(new WebDomain("uoc.edu", "Ana Puig", "ana@uoc.edu", "Hosting UOC", date.minusYears(2),
+                date, 100, true, false));
+        OffHeapDomainStore.View view = store.view(record);
+        WebDomain replacement = new WebDomain("uoc.edu", "Joan Vila", null, null, null, date.plusYears(1), 5,
+                false, true);
+        assertEquals(record, store.put(replacement));
+        assertEquals(1, store.size());
+        ColumnarDomainStoreTest.assertSameRecord(replacement, view);
+        ColumnarDomainStoreTest.assertSameRecord(replacement, view.toWebDomain());
+
+        assertTrue(store.remove("UOC.EDU"));
+        assertTrue(view.isRemoved());
+        assertFalse(store.remove("uoc.edu"));
+        assertNull(store.get("uoc.edu"));
+        assertFalse(store.remove(null));
+        assertEquals(-1, store.find(null));
+        assertNotEquals(record, store.put(replacement));
+    }
+
+    @Test
+    public void testInvalidInput() {
+        OffHeapDomainStore store = new OffHeapDomainStore();
+        WebDomain domain = new WebDomain(null, "Ana Puig", "ana@uoc.edu", "Hosting UOC", null, null, 1, false, false);
+        DomainValidationException exception = assertThrows(DomainValidationException.class, () -> store.put(domain));
+        assertEquals(ValidationRule.DOMAIN_FORMAT.getException().getMessage(), exception.getMessage());
+        assertThrows(IndexOutOfBoundsException.class, () -> store.view(0));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapDomainStore(-1));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapDomainStore((1 << 27) + 1));
+    }
+
+    @Test
+    public void testIndexSizeLimit() {
+        assertEquals(64, OffHeapDomainStore.indexBytes(16));
+        // The largest index takes 1 GiB, and the next size would not fit in a buffer
+        assertEquals(1 << 30, OffHeapDomainStore.indexBytes(1 << 28));
+        assertThrows(IllegalStateException.class, () -> OffHeapDomainStore.indexBytes(1 << 29));
+        assertThrows(IllegalStateException.class, () -> OffHeapDomainStore.indexBytes(1L << 31));
+    }
+
+    @Test
+    public void testLongStrings() throws DomainValidationException {
+        OffHeapDomainStore store = new OffHeapDomainStore();
+        WebDomain domain = new WebDomain("uoc.edu", "n".repeat(3_000_000), "ana@uoc.edu", "Hosting UOC", null, null,
+                1, false, false);
+        for (int i = 0; i < 3; i++) {
+            store.put(domain);
+        }
+        ColumnarDomainStoreTest.assertSameRecord(domain, store.get("uoc.edu"));
+    }
+
+    @Test
+    public void testConcurrentReaders() throws Exception {
+        OffHeapDomainStore store = new OffHeapDomainStore();
+        LocalDate date = LocalDate.of(2030, 5, 1);
+        store.put(new WebDomain("uoc.edu", "Ana Puig", "ana@uoc.edu", "Hosting UOC", null, date, 1, false, false));
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        OffHeapDomainStore.View view = store.get("uoc.edu");
+                        assertEquals("uoc.edu", view.getDomain());
+                        assertEquals("Ana Puig", view.getOwnerName());
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            readers[t].start();
+        }
+        for (int i = 0; i < 50_000; i++) {
+            store.put(new WebDomain("shop" + i + ".com", "Ana Puig", "ana@uoc.edu", "Hosting UOC", null, date, 1,
+                    false, false));
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get());
+        assertEquals(50_001, store.size());
+    }
+}
@@ -0,0 +1,80 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+public class PackedDomainSetBenchmark {
+    private static final int DOMAINS = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    private static long nanosPerLookup(String[] lookups, Predicate<String> set) {
+        long best = Long.MAX_VALUE;
+        int found = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            // Fresh copies, as names read from requests or files do not have their hash cached
+            String[] copies = new String[lookups.length];
+            for (int i = 0; i < copies.length; i++) {
+                copies[i] = new String(lookups[i]);
+            }
+            long start = System.nanoTime();
+            for (String lookup : copies) {
+                if (set.test(lookup)) {
+                    found++;
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        assertTrue(found > 0);
+        return best / lookups.length;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test
+    public void benchmarkContains() throws Exception {
+        Random random = new Random(3);
+        String[] names = new String[DOMAINS];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = DomainValidator.normalize(DomainNameCodecTest.randomName(random, 14));
+        }
+        String[] lookups = new String[DOMAINS];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = i % 2 == 0 ? names[random.nextInt(names.length)]
+                    : DomainValidator.normalize(DomainNameCodecTest.randomName(random, 14));
+        }
+
+        long before = usedMemory();
+        Set<String> strings = new HashSet<>();
+        for (String name : names) {
+            strings.add(new String(name.toCharArray()));
+        }
+        long stringBytes = usedMemory() - before;
+        before = usedMemory();
+        PackedDomainSet packed = new PackedDomainSet();
+        for (String name : names) {
+            packed.add(name);
+        }
+        long packedBytes = usedMemory() - before;
+        assertEquals(strings.size(), packed.size());
+
+        long stringNanos = nanosPerLookup(lookups, strings::contains);
+        long packedNanos = nanosPerLookup(lookups, packed::contains);
+        System.out.printf("contains: HashSet<String> %d ns/lookup %d bytes/name, PackedDomainSet %d ns/lookup "
+                + "%d bytes/name%n", stringNanos, stringBytes / DOMAINS, packedNanos, packedBytes / DOMAINS);
+        assertTrue(packedBytes < stringBytes);
+    }
+}
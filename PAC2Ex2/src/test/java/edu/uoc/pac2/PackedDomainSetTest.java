@@ -0,0 +1,72 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedDomainSetTest {
+
+    @Test
+    public void testAddContainsRemove() throws Exception {
+        PackedDomainSet set = new PackedDomainSet();
+        String longName = "a-very-long-domain-name-for-the-fallback.com";
+        assertTrue(set.add("uoc.edu"));
+        assertTrue(set.add("Shop.cat"));
+        assertTrue(set.add(longName));
+        assertFalse(set.add("UOC.EDU."));
+        assertFalse(set.add(longName.toUpperCase()));
+        assertEquals(3, set.size());
+
+        assertTrue(set.contains("uoc.EDU"));
+        assertTrue(set.contains("shop.cat"));
+        assertTrue(set.contains(longName + "."));
+        assertFalse(set.contains("uoc.com"));
+        assertFalse(set.contains("not a domain"));
+        assertFalse(set.contains(null));
+        assertSame(ValidationRule.DOMAIN_FORMAT.getException(),
+                assertThrows(DomainValidationException.class, () -> set.add("uoc")));
+
+        Set<String> names = new HashSet<>();
+        set.forEach(names::add);
+        assertEquals(Set.of("uoc.edu", "shop.cat", longName), names);
+
+        assertTrue(set.remove("Uoc.edu"));
+        assertFalse(set.remove("uoc.edu"));
+        assertTrue(set.remove(longName));
+        assertFalse(set.remove("uoc"));
+        assertEquals(1, set.size());
+        assertFalse(set.contains("uoc.edu"));
+        assertTrue(set.contains("shop.cat"));
+        assertThrows(IllegalArgumentException.class, () -> new PackedDomainSet(-1));
+    }
+
+    @Test
+    public void testMatchesHashSet() throws Exception {
+        Random random = new Random(17);
+        PackedDomainSet set = new PackedDomainSet();
+        Set<String> expected = new HashSet<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            names.add(DomainNameCodecTest.randomName(random, i % 10 == 0 ? 40 : 8));
+        }
+        for (int i = 0; i < 200_000; i++) {
+            String name = names.get(random.nextInt(names.size()));
+            String normalized = DomainValidator.normalize(name);
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.add(normalized), set.add(name));
+                case 1 -> assertEquals(expected.remove(normalized), set.remove(name));
+                default -> assertEquals(expected.contains(normalized), set.contains(name));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        Set<String> actual = new HashSet<>();
+        set.forEach(actual::add);
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,105 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PortfolioForecasterTest {
+
+    private static WebDomain[] randomPortfolio(Random random, int size) {
+        String[] providers = {"Hosting UOC", "Provider A", "Provider B", null};
+        LocalDate today = LocalDate.now();
+        WebDomain[] domains = new WebDomain[size];
+        for (int i = 0; i < size; i++) {
+            domains[i] = new WebDomain("d" + i + ".com", "Owner", "owner@uoc.edu", providers[random.nextInt(4)],
+                    today.minusDays(random.nextInt(20 * 365)), today.plusDays(random.nextInt(365)), 100, false,
+                    random.nextBoolean());
+        }
+        return domains;
+    }
+
+    @Test
+    public void testForecast() throws Exception {
+        LocalDate today = LocalDate.now();
+        WebDomain first = new WebDomain("uoc.edu", "Owner", "owner@uoc.edu", "Hosting UOC",
+                today.minusYears(1), today.plusDays(1), 100, false, true);
+        WebDomain second = new WebDomain("uoc.com", "Owner", "owner@uoc.edu", "Hosting UOC",
+                today.minusYears(1), today.plusDays(1), 100, false, false);
+        LocalDate target = today.plusYears(1).plusDays(2);
+
+        PortfolioForecast forecast = PortfolioForecaster.forecast(new WebDomain[]{first, second}, target);
+        assertEquals(target, forecast.getTargetDate());
+        assertEquals(2, forecast.getDomains());
+        assertEquals(first.predictedRenewalCostByDate(target), forecast.getTotalCost(true));
+        assertEquals(first.predictedRenewalCostByDate(target), forecast.getTotalCost(false));
+        assertEquals(2 * first.predictedRenewalCostByDate(target), forecast.getTotalCost());
+
+        List<PortfolioForecast.Group> groups = forecast.getGroups();
+        assertEquals(2, groups.size());
+        assertEquals("Hosting UOC", groups.get(0).getHostingProvider());
+        assertEquals(today.plusDays(1).getMonth(), groups.get(0).getMonth());
+        assertFalse(groups.get(0).isAutoRenew());
+        assertTrue(groups.get(1).isAutoRenew());
+        assertEquals(1, groups.get(1).getDomains());
+
+        assertEquals(0, PortfolioForecaster.forecast(new WebDomain[0], target).getGroups().size());
+        assertThrows(DomainValidationException.class,
+                () -> PortfolioForecaster.forecast(new WebDomain[]{first}, today.minusDays(1)));
+    }
+
+    @Test
+    public void testForecastMatchesSequentialSum() throws Exception {
+        WebDomain[] domains = randomPortfolio(new Random(5), 50_003);
+        LocalDate target = LocalDate.now().plusYears(12);
+
+        long autoRenewCents = 0;
+        Map<String, Long> domainsPerGroup = new HashMap<>();
+        for (WebDomain domain : domains) {
+            autoRenewCents += Math.round(domain.predictedRenewalCostByDate(target) * 100.0);
+            domainsPerGroup.merge(domain.getHostingProvider() + " " + domain.getExpirationDate().getMonth() + " "
+                    + domain.isAutoRenew(), 1L, Long::sum);
+        }
+
+        PortfolioForecast forecast = PortfolioForecaster.forecast(domains, target);
+        assertEquals(autoRenewCents / 100.0, forecast.getTotalCost(true));
+        assertEquals(domains.length, forecast.getDomains());
+        assertEquals(domainsPerGroup.size(), forecast.getGroups().size());
+        PortfolioForecast.Group previous = null;
+        for (PortfolioForecast.Group group : forecast.getGroups()) {
+            assertEquals(domainsPerGroup.get(group.getHostingProvider() + " " + group.getMonth() + " "
+                    + group.isAutoRenew()), group.getDomains());
+            if (previous != null && previous.getHostingProvider() != null) {
+                assertTrue(previous.getHostingProvider().compareTo(group.getHostingProvider()) <= 0);
+            }
+            previous = group;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        List<PortfolioForecast> forecasts = new ArrayList<>();
+        forecasts.add(PortfolioForecaster.forecast(domains, target, pool));
+        pool.shutdown();
+        forecasts.add(PortfolioForecaster.forecast(Arrays.asList(domains), target));
+        forecasts.add(PortfolioForecaster.forecast(new LinkedList<>(Arrays.asList(domains)), target));
+        for (PortfolioForecast other : forecasts) {
+            assertEquals(forecast.getTotalCost(), other.getTotalCost());
+            assertEquals(forecast.getGroups().size(), other.getGroups().size());
+            for (int i = 0; i < forecast.getGroups().size(); i++) {
+                assertEquals(forecast.getGroups().get(i).getCost(), other.getGroups().get(i).getCost());
+                assertEquals(forecast.getGroups().get(i).getMonth(), other.getGroups().get(i).getMonth());
+            }
+        }
+        assertTrue(Arrays.asList(Month.values()).containsAll(
+                forecast.getGroups().stream().map(PortfolioForecast.Group::getMonth).toList()));
+    }
+}
@@ -0,0 +1,54 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+public class RenewalCostCalculatorBenchmark {
+    private static final int DOMAINS = 200_000;
+    private static final int ROUNDS = 5;
+
+    private interface CostFunction {
+        double cost(LocalDate registrationDate, LocalDate expirationDate, LocalDate targetDate, double renewalCost);
+    }
+
+    private static long nanosPerCall(LocalDate[] registrations, LocalDate[] expirations, LocalDate target,
+                                     CostFunction function) {
+        long best = Long.MAX_VALUE;
+        double total = 0.0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < registrations.length; i++) {
+                total += function.cost(registrations[i], expirations[i], target, 14.99);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        assertTrue(total >= 0.0);
+        return best / registrations.length;
+    }
+
+    @Test
+    public void benchmarkPredictedRenewalCost() {
+        Random random = new Random(3);
+        LocalDate today = LocalDate.of(2024, 1, 1);
+        LocalDate target = today.plusYears(30);
+        LocalDate[] registrations = new LocalDate[DOMAINS];
+        LocalDate[] expirations = new LocalDate[DOMAINS];
+        for (int i = 0; i < DOMAINS; i++) {
+            registrations[i] = RenewalCostCalculatorTest.randomDate(random, today.minusYears(30), 30 * 365);
+            expirations[i] = RenewalCostCalculatorTest.randomDate(random, today, 365);
+        }
+
+        long legacy = nanosPerCall(registrations, expirations, target,
+                RenewalCostCalculatorTest::legacyPredictedRenewalCost);
+        long tiers = nanosPerCall(registrations, expirations, target, RenewalCostCalculator::predictedRenewalCost);
+        System.out.printf("predictedRenewalCost over 30 years: loop %d ns/call, tiers %d ns/call (x%.1f)%n",
+                legacy, tiers, (double) legacy / Math.max(1, tiers));
+        assertTrue(tiers <= legacy);
+    }
+}
@@ -0,0 +1,90 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RenewalCostCalculatorTest {
+
+    static double legacyPredictedRenewalCost(LocalDate registrationDate, LocalDate expirationDate,
+                                             LocalDate targetDate, double renewalCost) {
+        double totalCost = 0.0;
+        LocalDate nextRenewalDate = expirationDate;
+        while (nextRenewalDate.isBefore(targetDate)) {
+            long yearsOfAntiquity = Period.between(registrationDate, nextRenewalDate.plusDays(1)).getYears();
+            double discount = 1.0;
+            if (yearsOfAntiquity >= 2 && yearsOfAntiquity <= 3) {
+                discount = 0.95;
+            } else if (yearsOfAntiquity >= 4 && yearsOfAntiquity <= 5) {
+                discount = 0.90;
+            } else if (yearsOfAntiquity >= 6) {
+                discount = 0.85;
+            }
+            totalCost += renewalCost * discount;
+            nextRenewalDate = nextRenewalDate.plusYears(1);
+        }
+        return Math.round(totalCost * 100.0) / 100.0;
+    }
+
+    static LocalDate randomDate(Random random, LocalDate from, int days) {
+        // Month ends and leap days are the interesting cases, so they are picked more often
+        LocalDate date = from.plusDays(random.nextInt(days));
+        switch (random.nextInt(4)) {
+            case 0:
+                return date.withDayOfMonth(date.lengthOfMonth());
+            case 1:
+                int year = date.getYear() - date.getYear() % 4;
+                return LocalDate.of(year == 1900 || year == 2100 ? year + 4 : year, 2, 28 + random.nextInt(2));
+            default:
+                return date;
+        }
+    }
+
+    @Test
+    public void testPredictedRenewalCost() {
+        LocalDate today = LocalDate.of(2024, 3, 15);
+        assertEquals(0.0, RenewalCostCalculator.predictedRenewalCost(today.minusYears(1), today.plusDays(1),
+                today.plusDays(1), 14.99));
+        assertEquals(14.99, RenewalCostCalculator.predictedRenewalCost(today.minusYears(1), today,
+                today.plusDays(1), 14.99));
+        assertEquals(127.42, RenewalCostCalculator.predictedRenewalCost(LocalDate.of(1994, 3, 1),
+                LocalDate.of(2024, 9, 1), LocalDate.of(2034, 6, 1), 14.99));
+    }
+
+    @Test
+    public void testLeapDayAndYearEnd() {
+        LocalDate leapDay = LocalDate.of(2020, 2, 29);
+        LocalDate yearEnd = LocalDate.of(2021, 12, 31);
+        for (LocalDate registration : new LocalDate[]{leapDay, leapDay.minusDays(1), yearEnd, yearEnd.plusDays(1)}) {
+            for (LocalDate expiration : new LocalDate[]{leapDay, yearEnd, LocalDate.of(2024, 2, 29)}) {
+                for (int days = 0; days < 4000; days += 7) {
+                    LocalDate target = expiration.plusDays(days);
+                    assertEquals(legacyPredictedRenewalCost(registration, expiration, target, 14.99),
+                            RenewalCostCalculator.predictedRenewalCost(registration, expiration, target, 14.99),
+                            registration + " " + expiration + " " + target);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesYearByYearLoop() {
+        Random random = new Random(11);
+        LocalDate origin = LocalDate.of(1980, 1, 1);
+        for (int i = 0; i < 200_000; i++) {
+            LocalDate registration = randomDate(random, origin, 60 * 365);
+            // Expirations before the registration are not valid but must not change the result either
+            LocalDate expiration = randomDate(random, registration.minusYears(2), 15 * 365);
+            LocalDate target = randomDate(random, expiration.minusYears(1), 60 * 365);
+            double renewalCost = random.nextInt(100_000) / 100.0;
+            double expected = legacyPredictedRenewalCost(registration, expiration, target, renewalCost);
+            double actual = RenewalCostCalculator.predictedRenewalCost(registration, expiration, target, renewalCost);
+            assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(actual),
+                    registration + " " + expiration + " " + target + " " + renewalCost);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StringDictionaryTest {
+
+    @Test
+    public void testEncodeDecode() {
+        StringDictionary dictionary = new StringDictionary();
+        assertEquals(0, dictionary.encode("Hosting UOC"));
+        assertEquals(1, dictionary.encode("Provider A"));
+        assertEquals(0, dictionary.encode(new String("Hosting UOC")));
+        assertEquals(-1, dictionary.encode(null));
+        assertEquals(1, dictionary.code("Provider A"));
+        assertEquals(-1, dictionary.code("Provider B"));
+        assertEquals(-1, dictionary.code(null));
+        assertEquals("Provider A", dictionary.decode(1));
+        assertNull(dictionary.decode(-1));
+        assertEquals(2, dictionary.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.decode(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.decode(-2));
+
+        String interned = dictionary.intern(new String("Provider A"));
+        assertSame(interned, dictionary.intern(new String("Provider A")));
+        assertNull(dictionary.intern(null));
+    }
+
+    @Test
+    public void testConcurrentEncode() throws Exception {
+        StringDictionary dictionary = new StringDictionary();
+        int threads = 8;
+        int values = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<int[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    int[] codes = new int[values];
+                    for (int i = 0; i < values; i++) {
+                        int value = (i * 7 + offset * 131) % values;
+                        codes[value] = dictionary.encode("Provider " + value);
+                    }
+                    return codes;
+                }));
+            }
+            int[] expected = futures.get(0).get();
+            for (Future<int[]> future : futures) {
+                assertArrayEquals(expected, future.get());
+            }
+            assertEquals(values, dictionary.size());
+            boolean[] seen = new boolean[values];
+            for (int value = 0; value < values; value++) {
+                assertEquals("Provider " + value, dictionary.decode(expected[value]));
+                assertFalse(seen[expected[value]]);
+                seen[expected[value]] = true;
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMaxSize() {
+        StringDictionary dictionary = new StringDictionary(2);
+        assertEquals(0, dictionary.encode("Provider A"));
+        String second = new String("Provider B");
+        assertSame(second, dictionary.intern(second));
+        // A full dictionary keeps its values but takes no new ones
+        String third = new String("Provider C");
+        assertSame(third, dictionary.intern(third));
+        assertEquals(-1, dictionary.code("Provider C"));
+        assertThrows(IllegalStateException.class, () -> dictionary.encode("Provider C"));
+        assertEquals(1, dictionary.encode("Provider B"));
+        assertSame(second, dictionary.intern(new String("Provider B")));
+        assertEquals(2, dictionary.size());
+        assertThrows(IllegalArgumentException.class, () -> new StringDictionary(0));
+    }
+
+    @Test
+    public void testSetterInternsHostingProvider() throws Exception {
+        WebDomain first = new WebDomain("uoc.edu", "Ana", "ana@uoc.edu", null, null, null, 1, false, false);
+        WebDomain second = new WebDomain("shop.com", "Joan", "joan@shop.com", null, null, null, 1, false, false);
+        first.setHostingProvider(new String(" Hosting UOC "));
+        second.setHostingProvider(new String("Hosting UOC"));
+        assertEquals("Hosting UOC", first.getHostingProvider());
+        assertSame(first.getHostingProvider(), second.getHostingProvider());
+        assertSame(first.getHostingProvider(), StringDictionary.HOSTING_PROVIDERS.intern("Hosting UOC"));
+    }
+}
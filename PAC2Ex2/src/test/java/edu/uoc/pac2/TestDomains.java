@@ -0,0 +1,25 @@
+package edu.uoc.pac2;
+
+import java.time.LocalDate;
+
+/**
+ * Domains shared by the tests of the registry and its indexes, dated relative to the current date of
+ * {@link DomainClock}.
+ */
+final class TestDomains {
+
+    private TestDomains() {
+    }
+
+    /**
+     * Creates a valid domain registered a year before the current date and expiring a year after it.
+     *
+     * @param name the domain name
+     * @return a new domain
+     */
+    static WebDomain domain(String name) {
+        LocalDate today = LocalDate.ofEpochDay(DomainClock.currentEpochDay());
+        return new WebDomain(name, "Owner", "owner@uoc.edu", "Hosting UOC", today.minusYears(1),
+                today.plusYears(1), 100, false, true);
+    }
+}
@@ -0,0 +1,101 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+public class TyposquatIndexBenchmark {
+    private static final int NAMES = 10_000_000;
+    private static final int QUERIES = 20;
+    private static final int SCANS = 3;
+    private static final String CHARS = "abcdefghijklmnopqrstuvwxyz";
+    private static final String[] EXTENSIONS = {"com", "org", "net", "io"};
+
+    private static String randomName(Random random) {
+        StringBuilder name = new StringBuilder();
+        int length = 4 + random.nextInt(10);
+        for (int i = 0; i < length; i++) {
+            name.append(CHARS.charAt(random.nextInt(CHARS.length())));
+        }
+        return name.append('.').append(EXTENSIONS[random.nextInt(EXTENSIONS.length)]).toString();
+    }
+
+    /**
+     * Levenshtein distance abandoned as soon as it exceeds the bound, the best a linear scan can do.
+     */
+    private static boolean within(String first, String second, int bound) {
+        if (Math.abs(first.length() - second.length()) > bound) {
+            return false;
+        }
+        int[] previous = new int[second.length() + 1];
+        int[] current = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= second.length(); j++) {
+                int replace = previous[j - 1] + (first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(replace, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > bound) {
+                return false;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[second.length()] <= bound;
+    }
+
+    @Test
+    public void benchmarkSimilarTo() {
+        Random random = new Random(19);
+        String[] names = new String[NAMES];
+        TyposquatIndex index = new TyposquatIndex();
+        long start = System.nanoTime();
+        for (int i = 0; i < NAMES; i++) {
+            names[i] = randomName(random);
+            index.add(new WebDomain(names[i], null, null, null, null, null, 1, false, false));
+        }
+        long insert = (System.nanoTime() - start) / NAMES;
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            // A registered name with one character replaced, as a typosquat would be
+            String name = names[random.nextInt(NAMES)];
+            int position = random.nextInt(name.indexOf('.'));
+            queries[i] = name.substring(0, position) + CHARS.charAt(random.nextInt(CHARS.length()))
+                    + name.substring(position + 1);
+        }
+
+        long[] indexMicros = new long[3];
+        for (int maxDistance = 1; maxDistance <= 2; maxDistance++) {
+            start = System.nanoTime();
+            int found = 0;
+            for (String query : queries) {
+                found += index.similarTo(query, maxDistance).size();
+            }
+            indexMicros[maxDistance] = (System.nanoTime() - start) / QUERIES / 1000;
+            assertTrue(found >= QUERIES);
+        }
+        start = System.nanoTime();
+        for (int q = 0; q < SCANS; q++) {
+            int found = 0;
+            for (String name : names) {
+                if (within(queries[q], name, 2)) {
+                    found++;
+                }
+            }
+            assertEquals(found, index.similarTo(queries[q], 2).size());
+        }
+        long scanMicros = (System.nanoTime() - start) / SCANS / 1000;
+        System.out.printf("typosquats over %d names: insert %d ns, similarTo distance 1 %d us, distance 2 %d us, "
+                + "linear scan distance 2 %d us%n", NAMES, insert, indexMicros[1], indexMicros[2], scanMicros);
+    }
+}
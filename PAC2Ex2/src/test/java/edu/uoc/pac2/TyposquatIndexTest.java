@@ -0,0 +1,109 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TyposquatIndexTest {
+
+    static int levenshtein(String first, String second) {
+        int[][] distances = new int[first.length() + 1][second.length() + 1];
+        for (int i = 0; i <= first.length(); i++) {
+            for (int j = 0; j <= second.length(); j++) {
+                if (i == 0 || j == 0) {
+                    distances[i][j] = i + j;
+                } else {
+                    int replace = distances[i - 1][j - 1] + (first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1);
+                    distances[i][j] = Math.min(replace, Math.min(distances[i - 1][j], distances[i][j - 1]) + 1);
+                }
+            }
+        }
+        return distances[first.length()][second.length()];
+    }
+
+    private static List<String> names(List<WebDomain> domains) {
+        List<String> names = new ArrayList<>();
+        for (WebDomain domain : domains) {
+            names.add(domain.getDomain());
+        }
+        return names;
+    }
+
+    @Test
+    public void testSimilarTo() throws Exception {
+        DomainRegistry registry = new DomainRegistry();
+        TyposquatIndex index = new TyposquatIndex();
+        registry.addIndex(index);
+        try {
+            for (String name : new String[]{"paypal.com", "paypa1.com", "pay-pal.com", "paypal.net", "ypapal.com",
+                    "uoc.edu", "google.com"}) {
+                registry.register(TestDomains.domain(name));
+            }
+            assertEquals(7, index.size());
+            assertEquals(List.of("paypal.com"), names(index.similarTo("PAYPAL.com", 0)));
+            List<String> similar = names(index.similarTo("paypal.com", 1));
+            assertEquals("paypal.com", similar.get(0));
+            assertEquals(Set.of("paypal.com", "paypa1.com", "pay-pal.com"), new HashSet<>(similar));
+            assertEquals(Set.of("paypal.com", "paypa1.com", "pay-pal.com", "ypapal.com"),
+                    new HashSet<>(names(index.similarTo("paypal.com", 2))));
+            assertEquals(List.of(), index.similarTo("wikipedia.org", 2));
+
+            // Renames and removals are followed
+            WebDomain copy = registry.get("paypa1.com");
+            copy.setDomain("paypai.com");
+            assertEquals(Set.of("paypal.com", "paypai.com", "pay-pal.com"),
+                    new HashSet<>(names(index.similarTo("paypal.com", 1))));
+            index.remove(copy);
+            assertEquals(6, index.size());
+            assertEquals(List.of(), index.similarTo("paypai.com", 0));
+
+            assertThrows(IllegalArgumentException.class, () -> index.similarTo("paypal.com", -1));
+            assertThrows(IllegalArgumentException.class, () -> index.similarTo(null, 1));
+        } finally {
+            registry.removeIndex(index);
+        }
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(41);
+        TyposquatIndex index = new TyposquatIndex();
+        List<WebDomain> indexed = new ArrayList<>();
+        for (int i = 0; i < 6_000; i++) {
+            WebDomain domain = TestDomains.domain(DomainNameCodecTest.randomName(random, 5));
+            index.add(domain);
+            indexed.add(domain);
+        }
+        // Removing most domains rebuilds the tree, which must keep the others
+        for (int i = 0; i < 4_000; i++) {
+            index.remove(indexed.remove(indexed.size() - 1));
+        }
+        assertEquals(indexed.size(), index.size());
+        for (int q = 0; q < 200; q++) {
+            String query = DomainValidator.normalize(DomainNameCodecTest.randomName(random, 5));
+            for (int maxDistance = 0; maxDistance <= 2; maxDistance++) {
+                List<WebDomain> expected = new ArrayList<>();
+                for (WebDomain domain : indexed) {
+                    if (levenshtein(query, DomainValidator.normalize(domain.getDomain())) <= maxDistance) {
+                        expected.add(domain);
+                    }
+                }
+                List<WebDomain> found = index.similarTo(query, maxDistance);
+                assertEquals(expected.size(), found.size(), query);
+                assertTrue(found.containsAll(expected), query);
+                int last = 0;
+                for (WebDomain domain : found) {
+                    int distance = levenshtein(query, DomainValidator.normalize(domain.getDomain()));
+                    assertTrue(distance >= last);
+                    last = distance;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValidationRuleTest {
+
+    private static void assertRule(ValidationRule rule, Executable executable) {
+        DomainValidationException exception = assertThrows(DomainValidationException.class, executable);
+        assertSame(rule.getException(), exception);
+        assertSame(rule, exception.getRule());
+        assertEquals(rule.getMessage(), exception.getMessage());
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
+    @Test
+    public void testSettersThrowPreallocatedExceptions() {
+        WebDomain webDomain = new WebDomain("uoc.edu", "Gabriel Ferraté i Pascual", "gferrate@uoc.edu", "Hosting UOC",
+                LocalDate.now().minusYears(30), LocalDate.now().plusMonths(6), 10000, true, true);
+
+        assertRule(ValidationRule.DOMAIN_FORMAT, () -> webDomain.setDomain("uoc.es"));
+        assertRule(ValidationRule.DOMAIN_FORMAT, () -> webDomain.setDomain(null));
+        assertRule(ValidationRule.OWNER_NAME, () -> webDomain.setOwnerName("  "));
+        assertRule(ValidationRule.OWNER_EMAIL, () -> webDomain.setOwnerEmail("gferrate@"));
+        assertRule(ValidationRule.HOSTING_PROVIDER, () -> webDomain.setHostingProvider(null));
+        assertRule(ValidationRule.REGISTRATION_DATE, () -> webDomain.setRegistrationDate(LocalDate.now().plusDays(1)));
+        assertRule(ValidationRule.EXPIRATION_DATE, () -> webDomain.setExpirationDate(LocalDate.now().minusYears(31)));
+        assertRule(ValidationRule.MAX_CONCURRENT_USERS, () -> webDomain.setMaxConcurrentUsers(0));
+        assertRule(ValidationRule.CONCURRENT_USERS, () -> webDomain.domainConcurrenceStatus(10001));
+        assertRule(ValidationRule.TARGET_DATE, () -> webDomain.predictedRenewalCostByDate(LocalDate.now().minusDays(1)));
+    }
+
+    @Test
+    public void testExceptionsAreStackless() {
+        for (ValidationRule rule : ValidationRule.values()) {
+            DomainValidationException exception = rule.getException();
+            exception.addSuppressed(new IllegalStateException());
+            exception.fillInStackTrace();
+            assertEquals(0, exception.getSuppressed().length);
+            assertEquals(0, exception.getStackTrace().length);
+            assertTrue(rule.getMessage().startsWith("[ERROR] "));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package edu.uoc.pac2;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WebDomainEventsTest {
+
+    @Test
+    public void testSettersNotifyListeners() throws Exception {
+        WebDomain webDomain = TestDomains.domain("uoc.edu");
+        LocalDate expiration = webDomain.getExpirationDate();
+        List<String> events = new ArrayList<>();
+        WebDomainListener listener = (domain, field, previous) -> {
+            assertSame(webDomain, domain);
+            events.add(field + "=" + previous);
+        };
+        WebDomainEvents.addListener(listener);
+        try {
+            webDomain.setDomain("UOC.com");
+            webDomain.setOwnerName(" New owner ");
+            webDomain.setExpirationDate(expiration.plusDays(1));
+            webDomain.setMaxConcurrentUsers(5);
+            webDomain.setAutoRenew(false);
+            webDomain.setWhoisPrivacy(true);
+            assertThrows(Exception.class, () -> webDomain.setDomain("uoc.es"));
+            assertThrows(Exception.class, () -> webDomain.setMaxConcurrentUsers(0));
+        } finally {
+            assertTrue(WebDomainEvents.removeListener(listener));
+        }
+        assertFalse(WebDomainEvents.removeListener(listener));
+        webDomain.setAutoRenew(true);
+
+        assertEquals(List.of("DOMAIN=uoc.edu", "OWNER_NAME=Owner", "EXPIRATION_DATE=" + expiration,
+                "MAX_CONCURRENT_USERS=100", "AUTO_RENEW=true", "WHOIS_PRIVACY=false"), events);
+        assertEquals("uoc.com", webDomain.getDomain());
+        assertThrows(IllegalArgumentException.class, () -> WebDomainEvents.addListener(null));
+    }
+}